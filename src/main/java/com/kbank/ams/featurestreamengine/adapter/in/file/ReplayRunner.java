@@ -0,0 +1,282 @@
+package com.kbank.ams.featurestreamengine.adapter.in.file;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.kbank.ams.featurestreamengine.application.port.in.DetectionUseCase;
+import com.kbank.ams.featurestreamengine.application.service.FlowFieldProjection;
+import com.kbank.ams.featurestreamengine.common.annotations.FileReadAdapter;
+import com.kbank.ams.featurestreamengine.common.kafka.ProjectedEvent;
+import com.kbank.ams.featurestreamengine.common.kafka.RawTxLogDeserializer;
+import com.kbank.ams.featurestreamengine.common.util.JsonUtil;
+import com.kbank.ams.featurestreamengine.domain.detection.DetectionResult;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Replay / backfill ({@code ingestion.mode=replay}): reads newline-delimited raw tx events from local files and
+ * drives them through the regular detection pipeline without a broker, then reports throughput and stage timings.
+ *
+ * Lines are read by one thread (in chunks or memory-mapped) and handed to {@code replay.parallelism}
+ * workers in batches of {@code replay.batch-size}; each worker parses its batch and calls {@code detect}.
+ *
+ * With {@code replay.exit-on-complete} the application context is closed once the files are done; if any batch
+ * failed the runner throws instead, so startup fails and the process exits non-zero.
+ */
+@Slf4j
+@FileReadAdapter
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "ams.feature-stream-engine.ingestion.mode", havingValue = "replay")
+public class ReplayRunner implements ApplicationRunner {
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+    private static final int READ_BUFFER_BYTES = 1 << 20;
+    private static final long MAP_WINDOW_BYTES = 1L << 28;
+
+    private final DetectionUseCase detectionUseCase;
+    private final FlowFieldProjection flowFieldProjection;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${ams.feature-stream-engine.replay.paths}")
+    private String paths;
+    @Value("${ams.feature-stream-engine.replay.parallelism}")
+    private int parallelism;
+    @Value("${ams.feature-stream-engine.replay.batch-size}")
+    private int batchSize;
+    @Value("${ams.feature-stream-engine.replay.mmap}")
+    private boolean mmap;
+    @Value("${ams.feature-stream-engine.replay.exit-on-complete}")
+    private boolean exitOnComplete;
+    @Value("${ams.feature-stream-engine.deserializer.projection.enabled}")
+    private boolean projectionEnabled;
+
+    private final LongAdder events = new LongAdder();
+    private final LongAdder scored = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder parseErrors = new LongAdder();
+    private final LongAdder failedEvents = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder flowNanos = new LongAdder();
+    private final LongAdder scoringNanos = new LongAdder();
+    private final LongAdder storeNanos = new LongAdder();
+
+    private RawTxLogDeserializer deserializer;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<Path> files = resolveFiles();
+        if (projectionEnabled) {
+            deserializer = new RawTxLogDeserializer(flowFieldProjection::acquire);
+        }
+        log.info("replay start. files={}, parallelism={}, batchSize={}, mmap={}", files, parallelism, batchSize, mmap);
+
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, namedThreads());
+        // bounds the batches read ahead of the workers
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        long start = System.nanoTime();
+        try {
+            for (Path file : files) {
+                List<byte[]> batch = new ArrayList<>(batchSize);
+                Consumer<byte[]> onLine = line -> {
+                    batch.add(line);
+                    if (batch.size() >= batchSize) {
+                        submit(workers, inFlight, new ArrayList<>(batch));
+                        batch.clear();
+                    }
+                };
+                if (mmap) {
+                    readMapped(file, onLine);
+                } else {
+                    readStreaming(file, onLine);
+                }
+                if (!batch.isEmpty()) submit(workers, inFlight, new ArrayList<>(batch));
+            }
+        } finally {
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        report(System.nanoTime() - start);
+
+        if (exitOnComplete) {
+            if (failedEvents.sum() > 0) {
+                throw new IllegalStateException("replay failed for " + failedEvents.sum() + " events");
+            }
+            SpringApplication.exit(context);
+        }
+    }
+
+    private void submit(ExecutorService workers, Semaphore inFlight, List<byte[]> lines) {
+        inFlight.acquireUninterruptibly();
+        workers.execute(() -> {
+            try {
+                process(lines);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private void process(List<byte[]> lines) {
+        long parseStart = System.nanoTime();
+        List<Map<String, Object>> items = new ArrayList<>(lines.size());
+        for (byte[] line : lines) {
+            try {
+                Map<String, Object> item = deserializer != null
+                    ? deserializer.deserialize(null, line)
+                    : JsonUtil.om.readValue(line, MAP_TYPE);
+                if (item != null) items.add(item);
+            } catch (Exception e) {
+                parseErrors.increment();
+                log.warn("replay skip unparsable line: {}", e.getMessage());
+            }
+        }
+        parseNanos.add(System.nanoTime() - parseStart);
+
+        try {
+            DetectionResult result = detectionUseCase.detect(items);
+            events.add(items.size());
+            batches.increment();
+            scored.add(result.getScoredCount());
+            duplicates.add(result.getDuplicateCount());
+            flowNanos.add(result.getFlowNanos());
+            scoringNanos.add(result.getScoringNanos());
+            storeNanos.add(result.getStoreNanos());
+        } catch (Exception e) {
+            failedEvents.add(items.size());
+            ProjectedEvent.markDetected(items);
+            log.error("replay batch detect failed. size={}", items.size(), e);
+        }
+    }
+
+    private void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long n = batches.sum();
+        log.info("replay done. events={} ({}/s) elapsed={}s scored={} duplicates={} failed={} parseErrors={}",
+            events.sum(), String.format("%.1f", events.sum() / seconds), String.format("%.2f", seconds),
+            scored.sum(), duplicates.sum(), failedEvents.sum(), parseErrors.sum());
+        log.info("replay stage avg ms/batch (batches={}): parse={} flow={} scoring={} store={}", n,
+            avgMs(parseNanos, n), avgMs(flowNanos, n), avgMs(scoringNanos, n), avgMs(storeNanos, n));
+    }
+
+    private static String avgMs(LongAdder nanos, long count) {
+        return String.format("%.2f", count == 0 ? 0.0 : nanos.sum() / 1e6 / count);
+    }
+
+    private List<Path> resolveFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String p : paths.split(",")) {
+            if (p.isBlank()) continue;
+            Path path = Paths.get(p.trim());
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> listing = Files.list(path)) {
+                    listing.filter(Files::isRegularFile).sorted().forEach(files::add);
+                }
+            } else {
+                files.add(path);
+            }
+        }
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("ams.feature-stream-engine.replay.paths has no files: " + paths);
+        }
+        return files;
+    }
+
+    /**
+     * Reads the file in chunks of {@link #READ_BUFFER_BYTES}; a line crossing a chunk boundary is carried over.
+     */
+    static void readStreaming(Path file, Consumer<byte[]> onLine) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] chunk = new byte[READ_BUFFER_BYTES];
+            LineBuffer line = new LineBuffer();
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                int from = 0;
+                for (int i = 0; i < read; i++) {
+                    if (chunk[i] == '\n') {
+                        line.append(chunk, from, i - from);
+                        line.emit(onLine);
+                        from = i + 1;
+                    }
+                }
+                line.append(chunk, from, read - from);
+            }
+            line.emit(onLine);
+        }
+    }
+
+    /**
+     * Maps the file in windows of {@link #MAP_WINDOW_BYTES}; a line crossing a window boundary is carried over.
+     */
+    static void readMapped(Path file, Consumer<byte[]> onLine) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            LineBuffer line = new LineBuffer();
+            for (long position = 0; position < size; position += MAP_WINDOW_BYTES) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(MAP_WINDOW_BYTES, size - position));
+                while (window.hasRemaining()) {
+                    byte b = window.get();
+                    if (b == '\n') {
+                        line.emit(onLine);
+                    } else {
+                        line.append(b);
+                    }
+                }
+            }
+            line.emit(onLine);
+        }
+    }
+
+    private static final class LineBuffer {
+        private byte[] bytes = new byte[1024];
+        private int length;
+
+        void append(byte b) {
+            if (length == bytes.length) bytes = Arrays.copyOf(bytes, length * 2);
+            bytes[length++] = b;
+        }
+
+        void append(byte[] src, int offset, int count) {
+            if (length + count > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+            System.arraycopy(src, offset, bytes, length, count);
+            length += count;
+        }
+
+        void emit(Consumer<byte[]> onLine) {
+            int end = length;
+            if (end > 0 && bytes[end - 1] == '\r') end--;
+            if (end > 0) onLine.accept(Arrays.copyOf(bytes, end));
+            length = 0;
+        }
+    }
+
+    private static ThreadFactory namedThreads() {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> new Thread(r, "replay-" + seq.getAndIncrement());
+    }
+}
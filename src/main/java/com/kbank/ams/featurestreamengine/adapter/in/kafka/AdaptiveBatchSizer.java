@@ -0,0 +1,124 @@
+package com.kbank.ams.featurestreamengine.adapter.in.kafka;
+
+import com.kbank.ams.featurestreamengine.domain.detection.DetectionResult;
+import java.util.Arrays;
+
+/**
+ * Per-lane controller that adapts micro-batch size and linger time to a p99 end-to-end latency target.
+ *
+ * Inputs per batch: end-to-end latency of the oldest event (record timestamp to stored), the lane's
+ * remaining queue depth and the downstream timings reported by {@link DetectionResult}.
+ * - p99 above target: shrink batch size multiplicatively and halve linger
+ * - p99 well below target with a backlog: grow batch size additively, as long as one batch's
+ *   scoring + store time still leaves headroom in the budget
+ * - batches that do not fill shrink linger towards its minimum, so a lone event is not held back
+ *
+ * The batch size only moves once {@value #MIN_SAMPLES} batches were seen since its last change, and every change
+ * starts a new latency window: the p99 then reflects the new size only, instead of the spike that caused
+ * the change shrinking the batch again for the next {@value #WINDOW} batches.
+ *
+ * Updated only by the owning lane thread; the current values are published for stats readers.
+ */
+final class AdaptiveBatchSizer {
+    private static final int WINDOW = 128;
+    private static final int MIN_SAMPLES = 16;
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final boolean enabled;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final long minLingerMs;
+    private final long maxLingerMs;
+    private final long targetLatencyMs;
+
+    private final long[] latencies = new long[WINDOW];
+    private final long[] sorted = new long[WINDOW];
+    private int latencyCount;
+    private int latencyPos;
+
+    private volatile int batchSize;
+    private volatile long lingerMs;
+    private double downstreamMsEwma;
+    private volatile long p99Ms;
+
+    AdaptiveBatchSizer(boolean enabled, int initialBatchSize, int minBatchSize, int maxBatchSize,
+                       long initialLingerMs, long minLingerMs, long maxLingerMs, long targetLatencyMs) {
+        this.enabled = enabled;
+        this.minBatchSize = Math.max(1, minBatchSize);
+        this.maxBatchSize = Math.max(this.minBatchSize, maxBatchSize);
+        this.minLingerMs = Math.max(0, minLingerMs);
+        this.maxLingerMs = Math.max(this.minLingerMs, maxLingerMs);
+        this.targetLatencyMs = targetLatencyMs;
+        this.batchSize = enabled ? clamp(initialBatchSize, this.minBatchSize, this.maxBatchSize) : initialBatchSize;
+        this.lingerMs = enabled ? clamp(initialLingerMs, this.minLingerMs, this.maxLingerMs) : initialLingerMs;
+    }
+
+    int batchSize() {
+        return batchSize;
+    }
+
+    long lingerMs() {
+        return lingerMs;
+    }
+
+    long p99Ms() {
+        return p99Ms;
+    }
+
+    void onBatch(int size, long endToEndMs, DetectionResult result, int remainingDepth) {
+        record(endToEndMs);
+        if (!enabled) return;
+
+        double downstreamMs = (result.getScoringNanos() + result.getStoreNanos()) / 1_000_000.0;
+        downstreamMsEwma = downstreamMsEwma == 0 ? downstreamMs : EWMA_ALPHA * downstreamMs + (1 - EWMA_ALPHA) * downstreamMsEwma;
+
+        boolean settled = latencyCount >= MIN_SAMPLES;
+        if (p99Ms > targetLatencyMs) {
+            if (settled) {
+                batchSize = Math.max(minBatchSize, batchSize * 3 / 4);
+                lingerMs = Math.max(minLingerMs, lingerMs / 2);
+                resetWindow();
+            }
+            return;
+        }
+
+        boolean headroom = p99Ms < targetLatencyMs * 0.8 && downstreamMsEwma < targetLatencyMs / 2.0;
+        if (settled && headroom && remainingDepth >= batchSize && batchSize < maxBatchSize) {
+            batchSize = Math.min(maxBatchSize, batchSize + Math.max(1, batchSize / 8));
+            resetWindow();
+        }
+
+        if (size < batchSize && remainingDepth == 0) {
+            lingerMs = Math.max(minLingerMs, lingerMs / 2);
+        } else if (headroom) {
+            lingerMs = Math.min(maxLingerMs, Math.max(1, lingerMs * 2));
+        }
+    }
+
+    private void record(long endToEndMs) {
+        latencies[latencyPos] = endToEndMs;
+        latencyPos = (latencyPos + 1) % WINDOW;
+        if (latencyCount < WINDOW) latencyCount++;
+
+        System.arraycopy(latencies, 0, sorted, 0, latencyCount);
+        Arrays.sort(sorted, 0, latencyCount);
+        p99Ms = sorted[Math.min(latencyCount - 1, (int) Math.ceil(latencyCount * 0.99) - 1)];
+    }
+
+    /**
+     * Forgets the latencies seen with the previous batch size; {@link #p99Ms()} keeps its last value until the
+     * next batch.
+     */
+    private void resetWindow() {
+        latencyCount = 0;
+        latencyPos = 0;
+    }
+
+    private static int clamp(int v, int min, int max) {
+        return Math.max(min, Math.min(max, v));
+    }
+
+    private static long clamp(long v, long min, long max) {
+        return Math.max(min, Math.min(max, v));
+    }
+}
@@ -0,0 +1,95 @@
+package com.kbank.ams.featurestreamengine.adapter.in.kafka;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Flow control between the Kafka listener and the worker lanes.
+ *
+ * Counts events handed to the lanes and not yet drained. Above the high watermark the listener
+ * container is paused (all assigned partitions), below the low watermark it is resumed, so the
+ * consumption rate follows processing capacity instead of overflowing the lanes.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "ams.feature-stream-engine.ingestion.mode", havingValue = "queue", matchIfMissing = true)
+public class ListenerBackpressure {
+    public static final String LISTENER_ID = "raw-tx-log-listener";
+
+    private final KafkaListenerEndpointRegistry registry;
+    private final int highWatermark;
+    private final int lowWatermark;
+
+    private final AtomicInteger backlog = new AtomicInteger();
+    private volatile boolean paused;
+    private final AtomicLong pauseCount = new AtomicLong();
+
+    public ListenerBackpressure(
+        KafkaListenerEndpointRegistry registry,
+        @Value("${ams.feature-stream-engine.worker.backpressure.high-watermark}") int highWatermark,
+        @Value("${ams.feature-stream-engine.worker.backpressure.low-watermark}") int lowWatermark
+    ) {
+        if (lowWatermark >= highWatermark) {
+            throw new IllegalArgumentException("low-watermark must be below high-watermark");
+        }
+        this.registry = registry;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+    }
+
+    public void onEnqueued() {
+        if (backlog.incrementAndGet() >= highWatermark && !paused) update();
+    }
+
+    public void onDrained(int count) {
+        if (backlog.addAndGet(-count) <= lowWatermark && paused) update();
+    }
+
+    /**
+     * Pauses or resumes the container to match the backlog. Decision and container call are one step under the
+     * lock, and the backlog is read again after each switch: a drain that saw the container not yet paused is
+     * either seen here or finds it paused and comes here itself, so the container never stays paused on an empty
+     * backlog.
+     */
+    private synchronized void update() {
+        MessageListenerContainer container = registry.getListenerContainer(LISTENER_ID);
+        if (container == null) return;
+        while (true) {
+            int current = backlog.get();
+            if (!paused && current >= highWatermark) {
+                container.pause();
+                paused = true;
+                pauseCount.incrementAndGet();
+                log.info("backlog {} >= high watermark {} -> pause {}", current, highWatermark, LISTENER_ID);
+            } else if (paused && current <= lowWatermark) {
+                container.resume();
+                paused = false;
+                log.info("backlog {} <= low watermark {} -> resume {}", current, lowWatermark, LISTENER_ID);
+            } else {
+                return;
+            }
+        }
+    }
+
+    public int highWatermark() {
+        return highWatermark;
+    }
+
+    public int backlog() {
+        return backlog.get();
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public long pauseCount() {
+        return pauseCount.get();
+    }
+}
@@ -0,0 +1,105 @@
+package com.kbank.ams.featurestreamengine.adapter.in.kafka;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tracks in-flight offsets per partition and acknowledges only the highest contiguous processed offset.
+ *
+ * Records of one partition can complete out of order (micro-batches, retries), so an offset is committed
+ * only once every earlier offset of the same partition has completed as well.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "ams.feature-stream-engine.ingestion.mode", havingValue = "queue", matchIfMissing = true)
+public class OffsetCommitTracker {
+    private final ConcurrentMap<TopicPartition, PartitionState> partitions = new ConcurrentHashMap<>();
+
+    public void register(String topic, int partition, long offset, Acknowledgment ack) {
+        partitions.computeIfAbsent(new TopicPartition(topic, partition), tp -> new PartitionState())
+            .register(offset, ack);
+    }
+
+    public void complete(String topic, int partition, long offset) {
+        PartitionState state = partitions.get(new TopicPartition(topic, partition));
+        if (state == null) return;  // revoked while in flight
+        state.complete(offset);
+    }
+
+    public void revoke(Collection<TopicPartition> revoked) {
+        for (TopicPartition tp : revoked) {
+            PartitionState state = partitions.remove(tp);
+            if (state != null && state.pendingCount() > 0) {
+                log.info("partition revoked with uncommitted offsets. partition={}, pending={}", tp, state.pendingCount());
+            }
+        }
+    }
+
+    /**
+     * Next offset to be committed (last committed + 1) for the partition, or -1 when nothing was committed yet.
+     */
+    public long committedOffset(TopicPartition tp) {
+        PartitionState state = partitions.get(tp);
+        return state == null ? -1 : state.committed;
+    }
+
+    /**
+     * Whether the offset no longer needs to be retained: committed, or its partition is no longer assigned here.
+     */
+    public boolean isCommitted(TopicPartition tp, long offset) {
+        PartitionState state = partitions.get(tp);
+        return state == null || state.committed > offset;
+    }
+
+    public int pendingCount() {
+        return partitions.values().stream().mapToInt(PartitionState::pendingCount).sum();
+    }
+
+    private static final class PartitionState {
+        private final TreeMap<Long, Entry> pending = new TreeMap<>();
+        private volatile long committed = -1;
+
+        synchronized void register(long offset, Acknowledgment ack) {
+            pending.put(offset, new Entry(ack));
+        }
+
+        synchronized void complete(long offset) {
+            Entry entry = pending.get(offset);
+            if (entry == null) return;
+            entry.done = true;
+
+            Acknowledgment last = null;
+            long lastOffset = -1;
+            while (!pending.isEmpty() && pending.firstEntry().getValue().done) {
+                Map.Entry<Long, Entry> head = pending.pollFirstEntry();
+                last = head.getValue().ack;
+                lastOffset = head.getKey();
+            }
+            if (last != null) {
+                last.acknowledge();
+                committed = lastOffset + 1;
+            }
+        }
+
+        synchronized int pendingCount() {
+            return pending.size();
+        }
+    }
+
+    private static final class Entry {
+        final Acknowledgment ack;
+        boolean done;
+
+        Entry(Acknowledgment ack) {
+            this.ack = ack;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.kbank.ams.featurestreamengine.adapter.in.kafka;
+
+import com.kbank.ams.featurestreamengine.application.port.in.DetectionUseCase;
+import com.kbank.ams.featurestreamengine.common.annotations.KafkaSubscribeAdapter;
+import com.kbank.ams.featurestreamengine.common.kafka.ProjectedEvent;
+import com.kbank.ams.featurestreamengine.domain.command.DetectionCommand;
+import com.kbank.ams.featurestreamengine.domain.detection.DetectionResult;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+
+/**
+ * Batch ingestion ({@code ingestion.mode=batch}): each consumer thread passes its whole poll straight
+ * into detection, and the container commits the batch once this method returns.
+ */
+@Slf4j
+@KafkaSubscribeAdapter
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "ams.feature-stream-engine.ingestion.mode", havingValue = "batch")
+public class RawTxLogBatchConsumer {
+    private final DetectionUseCase detectionUseCase;
+
+    @KafkaListener(topics = "${ams.feature-stream-engine.topic}", containerFactory = "batchKafkaListenerContainerFactory")
+    public void listen(List<ConsumerRecord<String, Map<String,Object>>> records) {
+        int nullCount = 0;
+        Map<String, List<Map<String,Object>>> itemsByTopic = new LinkedHashMap<>();
+        Map<String, Long> oldestByTopic = new HashMap<>();
+
+        for (ConsumerRecord<String, Map<String,Object>> r : records) {
+            Map<String,Object> v = r.value();
+            if (v == null) {
+                nullCount++;
+                log.warn("discard null value (tombstone/deser). topic={}, partition={}, offset={}, key={}",
+                        r.topic(), r.partition(), r.offset(), r.key());
+                continue;
+            }
+            itemsByTopic.computeIfAbsent(r.topic(), topic -> new ArrayList<>()).add(v);
+            oldestByTopic.merge(r.topic(), r.timestamp(), Math::min);
+        }
+
+        if (nullCount > 0) {
+            log.warn("batch contained null values count={}", nullCount);
+        }
+
+        try {
+            // flows are routed by source topic
+            for (Map.Entry<String, List<Map<String,Object>>> entry : itemsByTopic.entrySet()) {
+                DetectionResult result = detectionUseCase.detect(DetectionCommand.builder()
+                    .topic(entry.getKey())
+                    .eventTimeMillis(oldestByTopic.get(entry.getKey()))
+                    .items(entry.getValue())
+                    .build());
+                log.debug("batch processed. topic={} {}", entry.getKey(), result);
+            }
+        } catch (Exception e) {
+            // 배치 전체 실패 (재처리/에러핸들러로 넘김)
+            log.error("batch detect failed. firstOffset={} lastOffset={}",
+                    records.get(0).offset(), records.get(records.size()-1).offset(), e);
+            // the batch is redelivered and read again, so these events no longer hold back a flow reload
+            itemsByTopic.values().forEach(ProjectedEvent::markDetected);
+            throw e;
+        }
+    }
+}
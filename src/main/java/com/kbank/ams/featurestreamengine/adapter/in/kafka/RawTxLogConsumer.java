@@ -1,74 +1,47 @@
 package com.kbank.ams.featurestreamengine.adapter.in.kafka;
 
-import com.kbank.ams.featurestreamengine.application.port.in.DetectionUseCase;
-import com.kbank.ams.featurestreamengine.application.service.DetectionService;
 import com.kbank.ams.featurestreamengine.common.annotations.KafkaSubscribeAdapter;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.apache.kafka.common.protocol.types.Field;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
 import org.springframework.kafka.support.Acknowledgment;
 
+/**
+ * Record-at-a-time ingestion ({@code ingestion.mode=queue}): hands each record to the worker lanes.
+ */
 @Slf4j
 @KafkaSubscribeAdapter
 @RequiredArgsConstructor
-public class RawTxLogConsumer {
+@ConditionalOnProperty(name = "ams.feature-stream-engine.ingestion.mode", havingValue = "queue", matchIfMissing = true)
+public class RawTxLogConsumer implements ConsumerSeekAware {
     private final RawTxQueueProcessor processor;
-    private final DetectionUseCase detectionUseCase;
+    private final OffsetCommitTracker offsetCommitTracker;
 
-    @KafkaListener(topics = "raw.tx.log", containerFactory = "singleKafkaListenerContainerFactory")
+    @KafkaListener(id = ListenerBackpressure.LISTENER_ID, idIsGroup = false, topics = "${ams.feature-stream-engine.topic}", containerFactory = "singleKafkaListenerContainerFactory")
     public void listen(ConsumerRecord<String, Map<String, Object>> r, Acknowledgment ack){
         Map<String,Object> v = r.value();
         if (v == null) {
-            ack.acknowledge();
+            processor.skip(r.topic(), r.partition(), r.offset(), ack);
             return;
         }
 
-        boolean ok = processor.enqueue(r.topic(), r.partition(), r.offset(), r.key(), v);
+        // the offset is acknowledged by the worker once the micro-batch containing it has been stored
+        boolean ok = processor.enqueue(r.topic(), r.partition(), r.offset(), r.key(), r.timestamp(), v, ack);
 
         if (!ok) {
-            log.warn("queue full -> drop. topic={}, partition, offset={}", r.topic(), r.partition(), r.offset());
+            log.warn("enqueue interrupted -> left uncommitted. topic={}, partition={}, offset={}", r.topic(), r.partition(), r.offset());
         }
-        ack.acknowledge();
     }
 
-//    @KafkaListener(topics = "raw-tx-log", containerFactory = "batchKafkaListenerContainerFactory")
-//    public void listen(List<ConsumerRecord<String, Map<String,Object>>> records) {
-//        log.info("batch received size={}", records.size());
-//
-//        int nullCount = 0;
-//        List<Map<String,Object>> items = new ArrayList<>(records.size());
-//
-//        for (ConsumerRecord<String, Map<String,Object>> r : records) {
-//            Map<String,Object> v = r.value();
-//            if (v == null) {
-//                nullCount++;
-//                log.warn("discard null value (tombstone/deser). topic={}, partition={}, offset={}, key={}",
-//                        r.topic(), r.partition(), r.offset(), r.key());
-//                continue;
-//            }
-//            // 필요하면 uuid 로그
-//            items.add(v);
-//        }
-//
-//        if (nullCount > 0) {
-//            log.warn("batch contained null values count={}", nullCount);
-//        }
-//
-//        try {
-//            detectionUseCase.detect(items);
-//            log.info("batch processed. size={}", items.size());
-//        } catch (Exception e) {
-//            // 배치 전체 실패 (재처리/에러핸들러로 넘김)
-//            log.error("batch detect failed. firstOffset={} lastOffset={}",
-//                    records.get(0).offset(), records.get(records.size()-1).offset(), e);
-//            throw e;
-//        }
-//    }
-
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        offsetCommitTracker.revoke(partitions);
+    }
 }
@@ -1,81 +1,236 @@
 package com.kbank.ams.featurestreamengine.adapter.in.kafka;
 
 import com.kbank.ams.featurestreamengine.application.port.in.DetectionUseCase;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Getter;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 @Slf4j
 @Component
-public class RawTxQueueProcessor {
-    private static final int QUEUE_CAPACITY = 500_000;
-    private static final int MICRO_BATCH_SIZE = 100;
-    private static final long MICRO_BATCH_MAX_WAIT_MS = 1000;
-    private final BlockingQueue<WorkerItem> queue = new ArrayBlockingQueue(QUEUE_CAPACITY);
-    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor();
-    private final DetectionUseCase detectionUseCase;
+@ConditionalOnProperty(name = "ams.feature-stream-engine.ingestion.mode", havingValue = "queue", matchIfMissing = true)
+public class RawTxQueueProcessor implements MeterBinder {
+    private static final long ENQUEUE_WAIT_MS = 1000;
+    private static final String[] ROUTING_FIELDS = {"cust_id", "acct_nbr"};
 
-    public RawTxQueueProcessor(DetectionUseCase detectionUseCase) {
+    private final DetectionUseCase detectionUseCase;
+    private final OffsetCommitTracker offsetCommitTracker;
+    private final ListenerBackpressure backpressure;
+    private final List<WorkerLane> lanes = new ArrayList<>();
+    private final ExecutorService workers;
+    private final ScheduledExecutorService statsReporter = Executors.newSingleThreadScheduledExecutor(namedThreads("lane-stats"));
+    private final long statsIntervalMs;
+    private final long[] lastProcessed;
+    private final AtomicLong discarded = new AtomicLong();
+
+    public RawTxQueueProcessor(
+        DetectionUseCase detectionUseCase,
+        OffsetCommitTracker offsetCommitTracker,
+        ListenerBackpressure backpressure,
+        @Value("${ams.feature-stream-engine.worker.lanes}") int laneCount,
+        @Value("${ams.feature-stream-engine.worker.queue-capacity}") int queueCapacity,
+        @Value("${ams.feature-stream-engine.worker.wait-strategy}") WaitStrategy waitStrategy,
+        @Value("${ams.feature-stream-engine.worker.batch-size}") int batchSize,
+        @Value("${ams.feature-stream-engine.worker.linger-ms}") long lingerMs,
+        @Value("${ams.feature-stream-engine.worker.stats-interval-ms}") long statsIntervalMs,
+        @Value("${ams.feature-stream-engine.worker.adaptive.enabled}") boolean adaptive,
+        @Value("${ams.feature-stream-engine.worker.adaptive.batch-size-min}") int minBatchSize,
+        @Value("${ams.feature-stream-engine.worker.adaptive.batch-size-max}") int maxBatchSize,
+        @Value("${ams.feature-stream-engine.worker.adaptive.linger-ms-min}") long minLingerMs,
+        @Value("${ams.feature-stream-engine.worker.adaptive.linger-ms-max}") long maxLingerMs,
+        @Value("${ams.feature-stream-engine.worker.adaptive.latency-target-ms}") long latencyTargetMs,
+        @Value("${ams.feature-stream-engine.worker.spill.enabled}") boolean spillEnabled,
+        @Value("${ams.feature-stream-engine.worker.spill.dir}") String spillDir,
+        @Value("${ams.feature-stream-engine.worker.spill.segment-bytes}") int spillSegmentBytes
+    ) {
         this.detectionUseCase = detectionUseCase;
+        this.offsetCommitTracker = offsetCommitTracker;
+        this.backpressure = backpressure;
+        this.statsIntervalMs = statsIntervalMs;
+        for (int i = 0; i < laneCount; i++) {
+            AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(adaptive, batchSize, minBatchSize, maxBatchSize,
+                lingerMs, minLingerMs, maxLingerMs, latencyTargetMs);
+            SpillLog spill = spillEnabled ? spillLog(Paths.get(spillDir), i, spillSegmentBytes) : null;
+            lanes.add(new WorkerLane(i, queueCapacity, waitStrategy, sizer, detectionUseCase, offsetCommitTracker, backpressure, spill));
+        }
+        int totalCapacity = lanes.stream().mapToInt(WorkerLane::capacity).sum();
+        if (!spillEnabled && backpressure.highWatermark() >= totalCapacity) {
+            // the listener would block on full lanes instead of being paused and overrun max.poll.interval.ms
+            throw new IllegalArgumentException("ams.feature-stream-engine.worker.backpressure.high-watermark ("
+                + backpressure.highWatermark() + ") must be below the total lane capacity (" + totalCapacity
+                + ") unless the spill is enabled");
+        }
+        this.workers = Executors.newFixedThreadPool(laneCount, namedThreads("worker-lane"));
+        this.lastProcessed = new long[laneCount];
     }
 
-    public boolean enqueue(String topic, int partition, long offset, String key, Map<String,Object> value) {
-        WorkerItem item = new WorkerItem(topic, partition, offset, key, value);
+    public boolean enqueue(String topic, int partition, long offset, String key, long timestamp, Map<String,Object> value, Acknowledgment ack) {
+        WorkerLane lane = lanes.get(laneIndex(key, partition, value));
+        offsetCommitTracker.register(topic, partition, offset, ack);
         try {
-            return queue.offer(item, MICRO_BATCH_MAX_WAIT_MS, TimeUnit.MILLISECONDS);
+            // the container is paused once the backlog reaches the high watermark, which stays below the total lane
+            // capacity; blocking covers the rest of the current poll and a single lane filled up by skewed keys
+            while (!lane.offer(topic, partition, offset, key, timestamp, value, ENQUEUE_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                log.warn("lane {} full -> waiting. topic={}, partition={}, offset={}", lane.index(), topic, partition, offset);
+            }
+            backpressure.onEnqueued();
+            return true;
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             return false;
         }
     }
 
-    private void startWorker() {
-        worker.scheduleAtFixedRate(this::drainAndProcess, 0, 10, TimeUnit.MILLISECONDS);
+    /**
+     * Marks a record that never reaches a lane (tombstone, deserialization failure) as processed
+     * so it does not hold back the commit of later offsets.
+     */
+    public void skip(String topic, int partition, long offset, Acknowledgment ack) {
+        offsetCommitTracker.register(topic, partition, offset, ack);
+        offsetCommitTracker.complete(topic, partition, offset);
+        discarded.incrementAndGet();
     }
 
-    private void drainAndProcess() {
-        try {
-            List<Map<String,Object>> items = new ArrayList<>(MICRO_BATCH_SIZE);
-            List<WorkerItem> metas = new ArrayList<>();
-
-            WorkerItem first = queue.poll(MICRO_BATCH_MAX_WAIT_MS, TimeUnit.MILLISECONDS);
-            if (first==null) return;
+    public List<LaneStats> laneStats() {
+        return lanes.stream()
+            .map(lane -> new LaneStats(lane.index(), lane.depth(), lane.spilled(), lane.spillSegments(),
+                lane.processedCount(), lane.batchCount(), lane.batchSize(), lane.lingerMs(), lane.p99LatencyMs()))
+            .toList();
+    }
 
-            metas.add(first);
-            items.add(first.value);
+    /**
+     * Lane depth and throughput, backpressure and uncommitted offsets; read only when metrics are scraped.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (WorkerLane lane : lanes) {
+            String laneTag = String.valueOf(lane.index());
+            Gauge.builder("fse.worker.lane.depth", lane, WorkerLane::depth).tag("lane", laneTag).register(registry);
+            Gauge.builder("fse.worker.lane.spilled", lane, WorkerLane::spilled).tag("lane", laneTag).register(registry);
+            Gauge.builder("fse.worker.lane.batch.size", lane, WorkerLane::batchSize).tag("lane", laneTag).register(registry);
+            FunctionCounter.builder("fse.worker.lane.processed", lane, WorkerLane::processedCount).tag("lane", laneTag).register(registry);
+        }
+        Gauge.builder("fse.ingest.backlog", backpressure, ListenerBackpressure::backlog).register(registry);
+        Gauge.builder("fse.ingest.paused", backpressure, b -> b.isPaused() ? 1 : 0).register(registry);
+        FunctionCounter.builder("fse.ingest.pauses", backpressure, ListenerBackpressure::pauseCount).register(registry);
+        Gauge.builder("fse.ingest.uncommitted", offsetCommitTracker, OffsetCommitTracker::pendingCount).register(registry);
+        FunctionCounter.builder("fse.ingest.discarded", discarded, AtomicLong::get)
+            .description("records that never reached a lane (tombstones, deserialization failures)")
+            .register(registry);
+    }
 
-            queue.drainTo(metas, MICRO_BATCH_SIZE -1);
-            for (int i =1; i < metas.size(); i++) {
-                items.add(metas.get(i).value);
-            }
+    @PostConstruct
+    public void startWorkers() {
+        lanes.forEach(workers::execute);
+        statsReporter.scheduleAtFixedRate(this::reportStats, statsIntervalMs, statsIntervalMs, TimeUnit.MILLISECONDS);
+    }
 
-            long firstOffset = metas.get(0).offset;
-            long lastOffset = metas.get(metas.size() - 1).offset;
+    @PreDestroy
+    public void stopWorkers() throws InterruptedException {
+        statsReporter.shutdownNow();
+        lanes.forEach(WorkerLane::stop);
+        workers.shutdown();
+        if (!workers.awaitTermination(ENQUEUE_WAIT_MS * 2, TimeUnit.MILLISECONDS)) {
+            workers.shutdownNow();
+        }
+        // spilled events were never committed and are redelivered by Kafka after restart
+        lanes.forEach(WorkerLane::closeSpill);
+    }
 
-        } catch (Exception e) {
+    /**
+     * Routes by customer (falling back to account, record key and partition) so per-customer ordering holds.
+     */
+    private int laneIndex(String key, int partition, Map<String,Object> value) {
+        if (lanes.size() == 1) return 0;
+        Object routingKey = null;
+        for (String field : ROUTING_FIELDS) {
+            routingKey = value.get(field);
+            if (routingKey != null) break;
+        }
+        if (routingKey == null) routingKey = key;
+        int hash = routingKey != null ? routingKey.hashCode() : partition;
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.size());
+    }
 
+    private void reportStats() {
+        double seconds = statsIntervalMs / 1000.0;
+        StringBuilder sb = new StringBuilder();
+        for (LaneStats stats : laneStats()) {
+            long delta = stats.getProcessed() - lastProcessed[stats.getLane()];
+            lastProcessed[stats.getLane()] = stats.getProcessed();
+            sb.append(String.format(" [lane=%d depth=%d spilled=%d/%dseg rate=%.1f/s batch=%d linger=%dms p99=%dms]",
+                stats.getLane(), stats.getDepth(), stats.getSpilled(), stats.getSpillSegments(), delta / seconds,
+                stats.getBatchSize(), stats.getLingerMs(), stats.getP99LatencyMs()));
         }
+        log.info("worker lanes{} backlog={} paused={} pauses={} uncommitted={}", sb, backpressure.backlog(),
+            backpressure.isPaused(), backpressure.pauseCount(), offsetCommitTracker.pendingCount());
     }
 
+    private SpillLog spillLog(Path dir, int lane, int segmentBytes) {
+        // segments found in the dir are deleted, so it must not depend on the working directory
+        if (!dir.isAbsolute()) {
+            throw new IllegalArgumentException("ams.feature-stream-engine.worker.spill.dir must be an absolute path: '" + dir + "'");
+        }
+        try {
+            return new SpillLog(dir, "lane-" + lane, segmentBytes, offsetCommitTracker);
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to open spill dir " + dir, e);
+        }
+    }
 
-    private static final class WorkerItem {
-        final String topic;
-        final int partition;
-        final long offset;
-        final String key;
-        final Map<String, Object> value;
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + seq.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
 
-        public WorkerItem(String topic, int partition, long offset, String key, Map<String, Object> value) {
-            this.topic = topic;
-            this.partition = partition;
-            this.offset = offset;
-            this.key = key;
-            this.value = value;
+    @Getter
+    @ToString
+    public static class LaneStats {
+        private final int lane;
+        private final int depth;
+        private final int spilled;
+        private final int spillSegments;
+        private final long processed;
+        private final long batches;
+        private final int batchSize;
+        private final long lingerMs;
+        private final long p99LatencyMs;
+
+        public LaneStats(int lane, int depth, int spilled, int spillSegments, long processed, long batches,
+                         int batchSize, long lingerMs, long p99LatencyMs) {
+            this.lane = lane;
+            this.depth = depth;
+            this.spilled = spilled;
+            this.spillSegments = spillSegments;
+            this.processed = processed;
+            this.batches = batches;
+            this.batchSize = batchSize;
+            this.lingerMs = lingerMs;
+            this.p99LatencyMs = p99LatencyMs;
         }
     }
 }
-
@@ -0,0 +1,319 @@
+package com.kbank.ams.featurestreamengine.adapter.in.kafka;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.kbank.ams.featurestreamengine.common.kafka.FieldProjection;
+import com.kbank.ams.featurestreamengine.common.kafka.ProjectedEvent;
+import com.kbank.ams.featurestreamengine.common.util.JsonUtil;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * Append-only overflow log of one worker lane, stored in memory-mapped segment files.
+ *
+ * Records are read back in append order. A fully read segment is kept until every offset in it
+ * is committed (or its partition was revoked and will be redelivered elsewhere), then deleted.
+ * The log is not recovered after a restart: uncommitted offsets are redelivered by Kafka instead.
+ * Projected events are read back as {@link ProjectedEvent}s of the projection they were spilled with.
+ * Segments are unmapped when deleted rather than left for the garbage collector, so their pages and file
+ * handles are given back right away.
+ */
+@Slf4j
+final class SpillLog implements Closeable {
+    private static final TypeReference<Map<String, Object>> RECORD_TYPE = new TypeReference<>() {};
+    private static final int LENGTH_BYTES = Integer.BYTES;
+    // sun.misc.Unsafe#invokeCleaner (jdk.unsupported): the only way to unmap a MappedByteBuffer before it is collected
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("spill segments cannot be unmapped eagerly: {}", e.toString());
+        }
+        UNSAFE = invokeCleaner != null ? unsafe : null;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final Path dir;
+    private final String prefix;
+    private final int segmentBytes;
+    private final OffsetCommitTracker offsetCommitTracker;
+
+    private final Deque<Segment> unread = new ArrayDeque<>();
+    private final Deque<Segment> retained = new ArrayDeque<>();
+    private final Map<Long, FieldProjection> projections = new HashMap<>();
+    private long nextSegmentId;
+    private int count;
+    private int quarantined;
+    private long spilledTotal;
+
+    SpillLog(Path dir, String prefix, int segmentBytes, OffsetCommitTracker offsetCommitTracker) throws IOException {
+        this.dir = dir;
+        this.prefix = prefix;
+        this.segmentBytes = segmentBytes;
+        this.offsetCommitTracker = offsetCommitTracker;
+        Files.createDirectories(dir);
+        deleteSegments();
+    }
+
+    synchronized void append(WorkerItem item) throws IOException {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("topic", item.topic);
+        record.put("partition", item.partition);
+        record.put("offset", item.offset);
+        record.put("key", item.key);
+        record.put("timestamp", item.timestamp);
+        record.put("value", item.value);
+        if (item.value instanceof ProjectedEvent event) {
+            record.put("projection", event.projection().getGeneration());
+            projections.putIfAbsent(event.projection().getGeneration(), event.projection());
+        }
+        byte[] bytes = JsonUtil.om.writeValueAsBytes(record);
+
+        Segment tail = unread.peekLast();
+        if (tail == null || tail.remaining() < LENGTH_BYTES + bytes.length) {
+            tail = newSegment(Math.max(segmentBytes, LENGTH_BYTES + bytes.length));
+            unread.addLast(tail);
+        }
+        tail.write(bytes, new TopicPartition(item.topic, item.partition), item.offset);
+        count++;
+        spilledTotal++;
+    }
+
+    /**
+     * Reads up to {@code max} records in append order into {@code out}. A record that cannot be read is quarantined:
+     * it is skipped and its offset never completes, so commits of its partition stop before it and Kafka redelivers
+     * it after the next rebalance or restart; its segment stays on disk until then. A corrupt length prefix
+     * quarantines the rest of its segment, as the records after it cannot be located.
+     */
+    synchronized int poll(int max, List<WorkerItem> out) {
+        int n = 0;
+        while (n < max && !unread.isEmpty()) {
+            Segment head = unread.peekFirst();
+            if (head.read == head.written) {
+                // fully read: never written again, kept until its offsets are committed
+                retained.addLast(unread.pollFirst());
+                continue;
+            }
+            byte[] bytes;
+            try {
+                bytes = head.read();
+            } catch (RuntimeException e) {
+                quarantine(head, head.skipRest(), e);
+                continue;
+            }
+            try {
+                Map<String, Object> record = JsonUtil.om.readValue(bytes, RECORD_TYPE);
+                out.add(new WorkerItem(
+                    (String) record.get("topic"),
+                    ((Number) record.get("partition")).intValue(),
+                    ((Number) record.get("offset")).longValue(),
+                    (String) record.get("key"),
+                    ((Number) record.get("timestamp")).longValue(),
+                    value(record)));
+                n++;
+                count--;
+            } catch (IOException | RuntimeException e) {
+                quarantine(head, 1, e);
+            }
+        }
+        if (count == 0 && !unread.isEmpty()) {
+            retained.addLast(unread.pollFirst());
+        }
+        if (count == 0) projections.clear();
+        return n;
+    }
+
+    /**
+     * Number of records quarantined since the last call.
+     */
+    synchronized int takeQuarantined() {
+        int taken = quarantined;
+        quarantined = 0;
+        return taken;
+    }
+
+    /**
+     * Deletes read segments whose offsets have all been committed.
+     */
+    synchronized void purge() {
+        Iterator<Segment> it = retained.iterator();
+        while (it.hasNext()) {
+            Segment segment = it.next();
+            if (segment.committed(offsetCommitTracker)) {
+                delete(segment);
+                it.remove();
+            }
+        }
+    }
+
+    synchronized boolean isEmpty() {
+        return count == 0;
+    }
+
+    synchronized int size() {
+        return count;
+    }
+
+    synchronized long spilledTotal() {
+        return spilledTotal;
+    }
+
+    synchronized int segmentCount() {
+        return unread.size() + retained.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        unread.forEach(SpillLog::unmap);
+        retained.forEach(SpillLog::unmap);
+        unread.clear();
+        retained.clear();
+        projections.clear();
+        count = 0;
+        deleteSegments();
+    }
+
+    private Segment newSegment(int size) throws IOException {
+        Path path = dir.resolve(String.format("%s-%020d.seg", prefix, nextSegmentId++));
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the mapping stays valid after the channel is closed
+            return new Segment(path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    private void deleteSegments() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, prefix + "-*.seg")) {
+            for (Path path : stream) {
+                delete(path);
+            }
+        }
+    }
+
+    private static void delete(Segment segment) {
+        unmap(segment);
+        delete(segment.path);
+    }
+
+    /**
+     * Releases the segment's mapping now; it must not be read or written afterwards.
+     */
+    private static void unmap(Segment segment) {
+        if (UNSAFE == null) return;
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, segment.buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("failed to unmap spill segment {}, left to the garbage collector", segment.path, e);
+        }
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("failed to delete spill segment {}", path, e);
+        }
+    }
+
+    private void quarantine(Segment segment, int records, Exception e) {
+        count -= records;
+        quarantined += records;
+        log.error("unreadable spill record(s) quarantined, left uncommitted for redelivery. segment={}, records={}",
+            segment.path, records, e);
+    }
+
+    private Map<String, Object> value(Map<String, Object> record) {
+        Map<String, Object> value = castMap(record.get("value"));
+        Object generation = record.get("projection");
+        return generation != null && value != null
+            ? new ProjectedEvent(projections.get(((Number) generation).longValue()), value)
+            : value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> castMap(Object value) {
+        return (Map<String, Object>) value;
+    }
+
+    private static final class Segment {
+        final Path path;
+        final MappedByteBuffer buffer;
+        final Map<TopicPartition, Long> maxOffsets = new HashMap<>();
+        int writePos;
+        int readPos;
+        int written;
+        int read;
+
+        Segment(Path path, MappedByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        int remaining() {
+            return buffer.capacity() - writePos;
+        }
+
+        void write(byte[] bytes, TopicPartition tp, long offset) {
+            buffer.putInt(writePos, bytes.length);
+            buffer.put(writePos + LENGTH_BYTES, bytes);
+            writePos += LENGTH_BYTES + bytes.length;
+            written++;
+            maxOffsets.merge(tp, offset, Math::max);
+        }
+
+        byte[] read() {
+            int length = buffer.getInt(readPos);
+            if (length < 0 || length > writePos - readPos - LENGTH_BYTES) {
+                throw new IllegalStateException("corrupt record length " + length + " at " + readPos);
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(readPos + LENGTH_BYTES, bytes);
+            readPos += LENGTH_BYTES + length;
+            read++;
+            return bytes;
+        }
+
+        /**
+         * Marks the unread rest of the segment as read and returns how many records it held.
+         */
+        int skipRest() {
+            int skipped = written - read;
+            readPos = writePos;
+            read = written;
+            return skipped;
+        }
+
+        boolean committed(OffsetCommitTracker tracker) {
+            for (Map.Entry<TopicPartition, Long> e : maxOffsets.entrySet()) {
+                if (!tracker.isCommitted(e.getKey(), e.getValue())) return false;
+            }
+            return true;
+        }
+    }
+}
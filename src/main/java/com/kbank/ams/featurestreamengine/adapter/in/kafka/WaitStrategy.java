@@ -0,0 +1,52 @@
+package com.kbank.ams.featurestreamengine.adapter.in.kafka;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a thread waits on the worker ring (consumer for new events, producer for free slots).
+ *
+ * BUSY_SPIN gives the lowest hand-off latency but burns a core per waiting thread, YIELD backs off to the
+ * scheduler, PARK sleeps in short intervals and is the cheapest when lanes are often idle.
+ */
+public enum WaitStrategy {
+    BUSY_SPIN {
+        @Override
+        int idle(int counter) {
+            Thread.onSpinWait();
+            return counter + 1;
+        }
+    },
+    YIELD {
+        @Override
+        int idle(int counter) {
+            if (counter < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+            return counter + 1;
+        }
+    },
+    PARK {
+        @Override
+        int idle(int counter) {
+            if (counter < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (counter < SPIN_TRIES + YIELD_TRIES) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+            return counter + 1;
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = 50_000;
+
+    /**
+     * Waits once; {@code counter} is the number of unsuccessful checks so far and the returned value is passed back in.
+     */
+    abstract int idle(int counter);
+}
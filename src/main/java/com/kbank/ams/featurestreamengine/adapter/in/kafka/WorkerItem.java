@@ -0,0 +1,37 @@
+package com.kbank.ams.featurestreamengine.adapter.in.kafka;
+
+import java.util.Map;
+
+/**
+ * One consumed record on its way through a worker lane. Ring slots are reused, so fields are rewritten in place.
+ */
+final class WorkerItem {
+    String topic;
+    int partition;
+    long offset;
+    String key;
+    long timestamp;
+    Map<String, Object> value;
+
+    WorkerItem() {
+    }
+
+    WorkerItem(String topic, int partition, long offset, String key, long timestamp, Map<String, Object> value) {
+        set(topic, partition, offset, key, timestamp, value);
+    }
+
+    void set(String topic, int partition, long offset, String key, long timestamp, Map<String, Object> value) {
+        this.topic = topic;
+        this.partition = partition;
+        this.offset = offset;
+        this.key = key;
+        this.timestamp = timestamp;
+        this.value = value;
+    }
+
+    void clear() {
+        this.topic = null;
+        this.key = null;
+        this.value = null;
+    }
+}
@@ -0,0 +1,247 @@
+package com.kbank.ams.featurestreamengine.adapter.in.kafka;
+
+import com.kbank.ams.featurestreamengine.application.port.in.DetectionUseCase;
+import com.kbank.ams.featurestreamengine.domain.command.DetectionCommand;
+import com.kbank.ams.featurestreamengine.domain.detection.DetectionResult;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * One worker lane: a bounded ring drained by a dedicated thread in micro-batches.
+ *
+ * Events are routed to lanes by key, so all events of a customer are processed in order by the same lane.
+ * With a spill log, events that do not fit the ring are appended to disk instead; once spilling has started
+ * every later event goes to the spill as well until it is drained, which keeps the lane in arrival order.
+ */
+@Slf4j
+final class WorkerLane implements Runnable {
+    private static final long RETRY_BACKOFF_INITIAL_MS = 100;
+    private static final long RETRY_BACKOFF_MAX_MS = 10_000;
+    private static final long IDLE_POLL_MS = 100;
+
+    private final int index;
+    private final WorkerRing ring;
+    private final AdaptiveBatchSizer sizer;
+    private final DetectionUseCase detectionUseCase;
+    private final OffsetCommitTracker offsetCommitTracker;
+    private final ListenerBackpressure backpressure;
+    private final SpillLog spill;
+
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private volatile boolean running = true;
+
+    WorkerLane(int index, int capacity, WaitStrategy waitStrategy, AdaptiveBatchSizer sizer,
+               DetectionUseCase detectionUseCase, OffsetCommitTracker offsetCommitTracker,
+               ListenerBackpressure backpressure, SpillLog spill) {
+        this.index = index;
+        this.ring = new WorkerRing(capacity, waitStrategy);
+        this.sizer = sizer;
+        this.detectionUseCase = detectionUseCase;
+        this.offsetCommitTracker = offsetCommitTracker;
+        this.backpressure = backpressure;
+        this.spill = spill;
+    }
+
+    /**
+     * Hands a record to the lane. Must only be called from the single listener thread.
+     */
+    boolean offer(String topic, int partition, long offset, String key, long timestamp, Map<String,Object> value,
+                  long timeout, TimeUnit unit) throws InterruptedException {
+        if (spill == null) {
+            return ring.publish(topic, partition, offset, key, timestamp, value, timeout, unit);
+        }
+        synchronized (spill) {
+            if (spill.isEmpty() && ring.tryPublish(topic, partition, offset, key, timestamp, value)) return true;
+            try {
+                spill.append(new WorkerItem(topic, partition, offset, key, timestamp, value));
+                return true;
+            } catch (IOException e) {
+                log.error("lane {} spill append failed. offset={}", index, offset, e);
+            }
+        }
+        unit.sleep(timeout);
+        return false;
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    int index() {
+        return index;
+    }
+
+    int capacity() {
+        return ring.capacity();
+    }
+
+    int depth() {
+        return ring.size() + spilled();
+    }
+
+    int spilled() {
+        return spill == null ? 0 : spill.size();
+    }
+
+    int spillSegments() {
+        return spill == null ? 0 : spill.segmentCount();
+    }
+
+    void closeSpill() {
+        if (spill == null) return;
+        try {
+            spill.close();
+        } catch (IOException e) {
+            log.warn("lane {} failed to remove spill segments", index, e);
+        }
+    }
+
+    long processedCount() {
+        return processedCount.get();
+    }
+
+    long batchCount() {
+        return batchCount.get();
+    }
+
+    int batchSize() {
+        return sizer.batchSize();
+    }
+
+    long lingerMs() {
+        return sizer.lingerMs();
+    }
+
+    long p99LatencyMs() {
+        return sizer.p99Ms();
+    }
+
+    @Override
+    public void run() {
+        long backoff = RETRY_BACKOFF_INITIAL_MS;
+        while (running) {
+            try {
+                drainAndProcess();
+                backoff = RETRY_BACKOFF_INITIAL_MS;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("lane {} micro-batch worker failed. retryInMs={}", index, backoff, e);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff = Math.min(backoff * 2, RETRY_BACKOFF_MAX_MS);
+            }
+        }
+    }
+
+    private void drainAndProcess() throws InterruptedException {
+        int batchSize = sizer.batchSize();
+        List<WorkerItem> metas = new ArrayList<>(batchSize);
+        // the ring only holds events older than the spill, so the spill is read once the ring is empty
+        if (ring.isEmpty() && spill != null) {
+            int polled = spill.poll(batchSize, metas);
+            // quarantined records leave the backlog here; their offsets stay uncommitted
+            int quarantined = spill.takeQuarantined();
+            if (quarantined > 0) backpressure.onDrained(quarantined);
+            if (polled > 0) {
+                process(metas);
+                return;
+            }
+        }
+
+        int available = ring.await(1, TimeUnit.MILLISECONDS.toNanos(IDLE_POLL_MS));
+        if (available == 0) return;
+
+        // linger: give a partially filled batch a bounded chance to fill up
+        if (available < batchSize) {
+            available = ring.await(batchSize, TimeUnit.MILLISECONDS.toNanos(sizer.lingerMs()));
+        }
+        int count = Math.min(available, batchSize);
+        for (int i = 0; i < count; i++) {
+            metas.add(ring.get(i));
+        }
+        // slots are reused by the producer, so they are released only once the batch is done with them
+        if (process(metas)) {
+            ring.release(count);
+        }
+    }
+
+    private boolean process(List<WorkerItem> metas) throws InterruptedException {
+        List<Map<String,Object>> items = new ArrayList<>(metas.size());
+        for (WorkerItem meta : metas) {
+            items.add(meta.value);
+        }
+
+        // detect() returns only after the scoring results are stored, so the offsets can be committed afterwards.
+        DetectionResult result = detectWithRetry(items, metas);
+        if (result == null) return false;
+
+        long oldestTimestamp = Long.MAX_VALUE;
+        for (WorkerItem meta : metas) {
+            offsetCommitTracker.complete(meta.topic, meta.partition, meta.offset);
+            oldestTimestamp = Math.min(oldestTimestamp, meta.timestamp);
+        }
+        if (spill != null) spill.purge();
+        backpressure.onDrained(metas.size());
+        processedCount.addAndGet(metas.size());
+        batchCount.incrementAndGet();
+        sizer.onBatch(metas.size(), Math.max(0, System.currentTimeMillis() - oldestTimestamp), result, depth());
+        return true;
+    }
+
+    /**
+     * Flows are routed by source topic, so a batch mixing topics is detected per topic. Events already detected
+     * by an earlier attempt of a retried batch are skipped by the dedup cache.
+     */
+    private DetectionResult detectByTopic(List<Map<String,Object>> items, List<WorkerItem> metas) {
+        Map<String, List<Map<String,Object>>> byTopic = new LinkedHashMap<>();
+        Map<String, Long> oldestByTopic = new HashMap<>();
+        for (int i = 0; i < metas.size(); i++) {
+            WorkerItem meta = metas.get(i);
+            byTopic.computeIfAbsent(meta.topic, topic -> new ArrayList<>()).add(items.get(i));
+            oldestByTopic.merge(meta.topic, meta.timestamp, Math::min);
+        }
+        DetectionResult result = null;
+        for (Map.Entry<String, List<Map<String,Object>>> entry : byTopic.entrySet()) {
+            DetectionResult topicResult = detectionUseCase.detect(DetectionCommand.builder()
+                .topic(entry.getKey())
+                .eventTimeMillis(oldestByTopic.get(entry.getKey()))
+                .items(entry.getValue())
+                .build());
+            result = result == null ? topicResult : result.plus(topicResult);
+        }
+        return result;
+    }
+
+    /**
+     * Retries the whole batch until it succeeds. Offsets of a failed batch are never committed,
+     * so giving up (shutdown) leaves them to be redelivered after restart or rebalance.
+     */
+    private DetectionResult detectWithRetry(List<Map<String,Object>> items, List<WorkerItem> metas) throws InterruptedException {
+        long backoff = RETRY_BACKOFF_INITIAL_MS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return detectByTopic(items, metas);
+            } catch (Exception e) {
+                log.error("lane {} micro-batch detect failed. attempt={}, size={}, firstOffset={}, lastOffset={}",
+                        index, attempt, items.size(), metas.get(0).offset, metas.get(metas.size() - 1).offset, e);
+                if (!running) return null;
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, RETRY_BACKOFF_MAX_MS);
+            }
+        }
+    }
+}
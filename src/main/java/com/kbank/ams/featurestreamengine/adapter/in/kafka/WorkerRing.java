@@ -0,0 +1,105 @@
+package com.kbank.ams.featurestreamengine.adapter.in.kafka;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated single-producer / single-consumer ring between the listener thread and one worker lane.
+ *
+ * The producer writes a record into the next free slot and publishes it with an ordered store; the consumer
+ * claims everything published so far as a batch and releases the slots only after the batch is processed,
+ * so no hand-off object is allocated per record and neither side takes a lock.
+ */
+final class WorkerRing {
+    private final WorkerItem[] slots;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+
+    /** number of slots written by the producer */
+    private final AtomicLong published = new AtomicLong();
+    /** number of slots handed back by the consumer */
+    private final AtomicLong released = new AtomicLong();
+    /** producer-local copy of {@link #released}, refreshed only when the ring looks full */
+    private long releasedCache;
+
+    WorkerRing(int capacity, WaitStrategy waitStrategy) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new WorkerItem[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new WorkerItem();
+        }
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /* producer side (listener thread only) */
+
+    boolean tryPublish(String topic, int partition, long offset, String key, long timestamp, Map<String, Object> value) {
+        long seq = published.get();
+        if (seq - releasedCache >= slots.length) {
+            releasedCache = released.get();
+            if (seq - releasedCache >= slots.length) return false;
+        }
+        slots[(int) seq & mask].set(topic, partition, offset, key, timestamp, value);
+        published.lazySet(seq + 1);
+        return true;
+    }
+
+    boolean publish(String topic, int partition, long offset, String key, long timestamp, Map<String, Object> value,
+                    long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int counter = 0;
+        while (!tryPublish(topic, partition, offset, key, timestamp, value)) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            if (System.nanoTime() - deadline >= 0) return false;
+            counter = waitStrategy.idle(counter);
+        }
+        return true;
+    }
+
+    /* consumer side (lane thread only) */
+
+    /**
+     * Waits until at least {@code min} events are available or the timeout elapses; returns the number available.
+     */
+    int await(int min, long timeoutNanos) throws InterruptedException {
+        int available = size();
+        if (available >= min) return available;
+        long deadline = System.nanoTime() + timeoutNanos;
+        int counter = 0;
+        while ((available = size()) < min) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            if (System.nanoTime() - deadline >= 0) break;
+            counter = waitStrategy.idle(counter);
+        }
+        return available;
+    }
+
+    /**
+     * The {@code i}-th unreleased event; valid until {@link #release(int)}.
+     */
+    WorkerItem get(int i) {
+        return slots[(int) (released.get() + i) & mask];
+    }
+
+    void release(int count) {
+        long from = released.get();
+        for (long seq = from; seq < from + count; seq++) {
+            slots[(int) seq & mask].clear();
+        }
+        released.lazySet(from + count);
+    }
+
+    int size() {
+        return (int) (published.get() - released.get());
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+}
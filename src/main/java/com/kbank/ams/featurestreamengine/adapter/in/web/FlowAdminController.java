@@ -0,0 +1,60 @@
+package com.kbank.ams.featurestreamengine.adapter.in.web;
+
+import com.kbank.ams.featurestreamengine.application.port.in.QueryFlowStatsUseCase;
+import com.kbank.ams.featurestreamengine.application.port.in.ReloadFlowUseCase;
+import com.kbank.ams.featurestreamengine.common.annotations.WebAdapter;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowReloadResult;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowStats;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@WebAdapter
+@RestController
+@RequestMapping("/admin/flows")
+@RequiredArgsConstructor
+public class FlowAdminController {
+    static final String TOKEN_HEADER = "X-Admin-Token";
+
+    private final ReloadFlowUseCase reloadFlowUseCase;
+    private final QueryFlowStatsUseCase queryFlowStatsUseCase;
+
+    @Value("${ams.feature-stream-engine.admin.token}")
+    private String adminToken;
+
+    /**
+     * Reloads changed flows from the config dir without restarting the consumers. Requires the configured
+     * {@code admin.token} in {@value #TOKEN_HEADER}; disabled while no token is configured.
+     */
+    @PostMapping("/reload")
+    public FlowReloadResult reload(@RequestHeader(value = TOKEN_HEADER, required = false) String token) {
+        requireToken(token, "flow reload");
+        return reloadFlowUseCase.reload();
+    }
+
+    /**
+     * Per-process cost and pass rate of the loaded flows, with the order they currently run in. Requires the
+     * admin token like {@link #reload}.
+     */
+    @GetMapping("/stats")
+    public List<FlowStats> stats(@RequestHeader(value = TOKEN_HEADER, required = false) String token) {
+        requireToken(token, "flow stats");
+        return queryFlowStatsUseCase.flowStats();
+    }
+
+    private void requireToken(String token, String action) {
+        if (adminToken.isBlank() || token == null
+            || !MessageDigest.isEqual(adminToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, action + " requires " + TOKEN_HEADER);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.kbank.ams.featurestreamengine.adapter.out.file;
+
+import com.kbank.ams.featurestreamengine.application.port.out.StoreFraudScoringPort;
+import com.kbank.ams.featurestreamengine.common.annotations.FileWriteAdapter;
+import com.kbank.ams.featurestreamengine.common.util.JsonUtil;
+import com.kbank.ams.featurestreamengine.domain.fraudscoring.FraudScoring;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+
+/**
+ * Appends scoring results as JSON lines to a local file (sink.file), e.g. for replays without a database.
+ */
+@FileWriteAdapter
+@Slf4j
+@ConditionalOnProperty(name = "ams.feature-stream-engine.sink.file.enabled", havingValue = "true")
+public class FraudScoringFileAdapter implements StoreFraudScoringPort {
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    @Value("${ams.feature-stream-engine.sink.file.path}")
+    private String path;
+
+    private OutputStream out;
+
+    @PostConstruct
+    public void open() throws IOException {
+        Path file = Paths.get(path);
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        out = new BufferedOutputStream(Files.newOutputStream(file,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND), BUFFER_BYTES);
+        log.info("fraud scoring file sink -> {}", file.toAbsolutePath());
+    }
+
+    @Override
+    public synchronized int store(List<FraudScoring> fraudScorings) {
+        try {
+            for (FraudScoring fraudScoring : fraudScorings) {
+                out.write(JsonUtil.om.writeValueAsBytes(fraudScoring));
+                out.write('\n');
+            }
+            out.flush();
+            return fraudScorings.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to write fraud scorings to " + path, e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
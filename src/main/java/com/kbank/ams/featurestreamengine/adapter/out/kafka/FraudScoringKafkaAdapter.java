@@ -0,0 +1,44 @@
+package com.kbank.ams.featurestreamengine.adapter.out.kafka;
+
+import com.kbank.ams.featurestreamengine.application.port.out.StoreFraudScoringPort;
+import com.kbank.ams.featurestreamengine.common.annotations.KafkaPublishAdapter;
+import com.kbank.ams.featurestreamengine.common.util.JsonUtil;
+import com.kbank.ams.featurestreamengine.domain.fraudscoring.FraudScoring;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * Publishes scoring results to {@code sink.kafka.topic}, keyed by cust_id so a customer's results stay ordered.
+ *
+ * All records of the batch are sent before waiting, so the producer can batch them; the call returns only once
+ * every record is acknowledged, which keeps the source offsets uncommitted until the results are published.
+ */
+@KafkaPublishAdapter
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "ams.feature-stream-engine.sink.kafka.enabled", havingValue = "true")
+public class FraudScoringKafkaAdapter implements StoreFraudScoringPort {
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    @Value("${ams.feature-stream-engine.sink.kafka.topic}")
+    private String topic;
+
+    @SneakyThrows
+    @Override
+    public int store(List<FraudScoring> fraudScorings) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[fraudScorings.size()];
+        for (int i = 0; i < futures.length; i++) {
+            FraudScoring fraudScoring = fraudScorings.get(i);
+            String value = JsonUtil.om.writeValueAsString(fraudScoring);
+            futures[i] = kafkaTemplate.send(topic, fraudScoring.getCustId(), value).completable();
+        }
+        CompletableFuture.allOf(futures).join();
+        return futures.length;
+    }
+}
@@ -0,0 +1,34 @@
+package com.kbank.ams.featurestreamengine.adapter.out.persistence;
+
+import com.kbank.ams.featurestreamengine.adapter.out.persistence.jdbc.template.SgsJdbcTemplate;
+import com.kbank.ams.featurestreamengine.application.port.out.StoreFraudScoringPort;
+import com.kbank.ams.featurestreamengine.common.annotations.PersistenceAdapter;
+import com.kbank.ams.featurestreamengine.domain.fraudscoring.FraudScoring;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+
+/**
+ * Stores scoring results into {@code fraud_scoring_result} (sink.jdbc).
+ */
+@PersistenceAdapter
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "ams.feature-stream-engine.sink.jdbc.enabled", havingValue = "true", matchIfMissing = true)
+public class FraudScoringJdbcAdapter implements StoreFraudScoringPort {
+    private final SgsJdbcTemplate<FraudScoring> sgsJdbcTemplate;
+
+    @Override
+    public int store(List<FraudScoring> fraudScorings) {
+        return sgsJdbcTemplate.bulkInsert(INSERT_FRAUD_SCORING_SQL, fraudScorings);
+    }
+
+    private static final String INSERT_FRAUD_SCORING_SQL = """
+        INSERT INTO fraud_scoring_result (
+            created_at, uuid, event_name, dt, cust_id, acct_nbr, model_name, model_version, prediction, probability, threshold, features
+        ) VALUES (
+            now(), :uuid, :eventName, :dt, :custId, :acctNbr, :modelName, :modelVersion, :prediction, :probability, :threshold, :featuresJsonStr
+        )
+            """;
+}
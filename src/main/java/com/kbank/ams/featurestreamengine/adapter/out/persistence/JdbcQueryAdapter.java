@@ -5,8 +5,10 @@ import com.kbank.ams.featurestreamengine.adapter.out.persistence.jdbc.template.M
 import com.kbank.ams.featurestreamengine.adapter.out.persistence.jdbc.template.SgsJdbcTemplate;
 import com.kbank.ams.featurestreamengine.application.port.out.LoadJdbcPort;
 import com.kbank.ams.featurestreamengine.common.annotations.PersistenceAdapter;
+import com.kbank.ams.featurestreamengine.domain.command.LoadJdbcCommand;
 import com.kbank.ams.featurestreamengine.domain.command.LoadOneJdbcCommand;
 import com.kbank.ams.featurestreamengine.domain.flow.FlowEnum;
+import java.util.List;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +30,11 @@ public class JdbcQueryAdapter implements LoadJdbcPort {
         return JdbcOperation(command.getDatabase()).selectBool(command.getQuery(), command.getParams());
     }
 
+    @Override
+    public List<Map<String, Object>> load(LoadJdbcCommand command) {
+        return JdbcOperation(command.getDatabase()).selectWithParams(command.getQuery(), command.getFieldSpecs(), command.getParams());
+    }
+
     private MultiDbJdbcOperations JdbcOperation(FlowEnum.Database database){
         switch (database) {
             case GOLDILOCKS -> {return glkJdbcTemplate;}
@@ -0,0 +1,78 @@
+package com.kbank.ams.featurestreamengine.adapter.out.restapi;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.kbank.ams.featurestreamengine.adapter.out.restapi.retrofit.RestApiServiceRegistry;
+import com.kbank.ams.featurestreamengine.application.port.out.LoadApiPort;
+import com.kbank.ams.featurestreamengine.common.annotations.RestApiAdapter;
+import com.kbank.ams.featurestreamengine.common.util.JsonUtil;
+import com.kbank.ams.featurestreamengine.domain.command.LoadApiCommand;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * REQ_API calls: enqueued on the shared OkHttp client, so no flow thread blocks per request.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@RestApiAdapter
+public class ApiQueryAdapter implements LoadApiPort {
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    private final RestApiServiceRegistry apiServiceRegistry;
+
+    @Override
+    public CompletableFuture<Map<String, Object>> loadOne(LoadApiCommand command) {
+        return post(command, new TypeReference<>() {});
+    }
+
+    @Override
+    public CompletableFuture<List<Map<String, Object>>> load(LoadApiCommand command) {
+        return post(command, new TypeReference<>() {});
+    }
+
+    private <T> CompletableFuture<T> post(LoadApiCommand command, TypeReference<T> responseType) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        RequestBody body;
+        try {
+            body = RequestBody.create(JsonUtil.om.writeValueAsBytes(command.getBody()), JSON);
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        Call<ResponseBody> call = apiServiceRegistry.api(command.getBaseUrl(), command.getTimeoutMs()).post(command.getPath(), body);
+        if (command.getTimeoutMs() > 0) {
+            call.timeout().timeout(command.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        }
+        call.enqueue(new Callback<>() {
+            @Override
+            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                try (ResponseBody responseBody = response.isSuccessful() ? response.body() : response.errorBody()) {
+                    if (!response.isSuccessful()) {
+                        throw new IOException("HTTP " + response.code() + " " + call.request().url());
+                    }
+                    future.complete(JsonUtil.om.readValue(responseBody.byteStream(), responseType));
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<ResponseBody> call, Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+}
@@ -1,20 +1,35 @@
 package com.kbank.ams.featurestreamengine.adapter.out.restapi.retrofit;
 
 import com.kbank.ams.featurestreamengine.common.retrofit.RetrofitApiUtils;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
 import org.springframework.stereotype.Component;
 import retrofit2.Call;
-import retrofit2.Retrofit;
 import retrofit2.http.Body;
 import retrofit2.http.POST;
 import retrofit2.http.Path;
 
 @Component
 public class RestApiServiceRegistry {
+    private final Map<List<Object>, Api> apis = new ConcurrentHashMap<>();
+
+    /**
+     * One service per base url, all on the shared client.
+     */
     public Api api(String baseUrl){
-        Retrofit retrofit = RetrofitApiUtils.initRetrofit(baseUrl);
-        return retrofit.create(Api.class);
+        return api(baseUrl, 0);
+    }
+
+    /**
+     * One service per base url and timeout; with a timeout its client reads up to that long, sharing the
+     * connection pool and dispatcher of the shared client.
+     */
+    public Api api(String baseUrl, long timeoutMs){
+        return apis.computeIfAbsent(List.of(baseUrl, timeoutMs),
+            key -> RetrofitApiUtils.initRetrofit(baseUrl, timeoutMs).create(Api.class));
     }
     public interface Api {
         @POST("{contextPath}")
@@ -4,8 +4,20 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.kbank.ams.featurestreamengine.common.annotations.Factory;
 import com.kbank.ams.featurestreamengine.common.util.JsonUtil;
 import com.kbank.ams.featurestreamengine.domain.flow.Flow;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowPlan;
+import com.kbank.ams.featurestreamengine.domain.flow.process.Process;
+import com.kbank.ams.featurestreamengine.domain.flow.process.ProcessStats;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -23,15 +35,131 @@ public class FlowFactory {
     private final Map<String,String> specRepository;
     private final ProcessFactory processFactory;
 
-    @SneakyThrows
+    @Value("${ams.feature-stream-engine.flow.io-threads}")
+    private int ioThreads;
+    private ExecutorService ioExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        ioExecutor = Executors.newFixedThreadPool(ioThreads, r -> {
+            Thread t = new Thread(r, "flow-io-" + seq.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        ioExecutor.shutdownNow();
+    }
+
     public Flow create(String apiPath){
-        Map<String,Object> spec = JsonUtil.om.readValue(specRepository.get(apiPath), new TypeReference<Map<String, Object>>() {});
-        String baseDir = configDir + "/flow/" + apiPath + "/";
+        return create(apiPath, specRepository.get(apiPath));
+    }
+
+    /**
+     * Compiles a flow from the given spec.json content; query files are read from the flow's config dir.
+     */
+    @SneakyThrows
+    public Flow create(String apiPath, String specJson){
+        Map<String,Object> spec = JsonUtil.om.readValue(specJson, new TypeReference<Map<String, Object>>() {});
+        String baseDir = flowDir(apiPath);
         Flow flow = new Flow(apiPath, spec);
         if (spec.get("processes") != null) {
             List<Map<String,Object>> processSpecs = (List<Map<String,Object>>) spec.get("processes");
             processSpecs.stream().map(processSpec -> processFactory.create(baseDir, processSpec)).forEach(flow::addProcess);
         }
+        FlowPlan plan = plan(flow.getProcesses());
+        flow.setPlan(plan, ioExecutor);
+        log.info("flow {} plan: {} processes in {} stages, concurrent={}", flow.getName(), flow.getProcesses().size(),
+            plan.getStages().size(), plan.isConcurrent());
         return flow;
     }
+
+    public String flowDir(String apiPath) {
+        return configDir + "/flow/" + apiPath + "/";
+    }
+
+    /**
+     * Builds the dependency DAG of the processes and groups them by depth into stages.
+     */
+    static FlowPlan plan(List<Process> processes) {
+        int[] depth = new int[processes.size()];
+        TreeMap<Integer, List<Process>> stages = new TreeMap<>();
+        for (int j = 0; j < processes.size(); j++) {
+            for (int i = 0; i < j; i++) {
+                if (dependsOn(processes.get(j), processes.get(i))) {
+                    depth[j] = Math.max(depth[j], depth[i] + 1);
+                }
+            }
+            stages.computeIfAbsent(depth[j], d -> new ArrayList<>()).add(processes.get(j));
+        }
+        return new FlowPlan(List.copyOf(processes), stages.values().stream().map(FlowPlan.Stage::new).toList());
+    }
+
+    /**
+     * Re-plans the flow from the recorded process stats; returns whether the process order changed.
+     */
+    public boolean replan(Flow flow, long minSamples) {
+        List<Process> order = order(flow.getProcesses(), minSamples);
+        FlowPlan current = flow.getPlan();
+        if (current != null && current.getOrder().equals(order)) return false;
+        flow.setPlan(plan(order), ioExecutor);
+        return true;
+    }
+
+    /**
+     * Orders the processes so that cheap, selective ones run first: repeatedly picks, among the processes whose
+     * data dependencies already ran, the one with the lowest {@link ProcessStats#rank} (alone or together with a
+     * direct dependent); ties keep declaration order. Filtering is per item, so filters commute with each other and
+     * with DERIVED steps they do not read from. Greedy with one step of lookahead, so not always optimal.
+     */
+    static List<Process> order(List<Process> processes, long minSamples) {
+        List<Process> remaining = new ArrayList<>(processes);
+        List<Process> order = new ArrayList<>(processes.size());
+        while (!remaining.isEmpty()) {
+            Process best = null;
+            double bestRank = 0;
+            for (int j = 0; j < remaining.size(); j++) {
+                Process candidate = remaining.get(j);
+                boolean ready = true;
+                for (int i = 0; i < j && ready; i++) {
+                    ready = !dataDependsOn(candidate, remaining.get(i));
+                }
+                if (!ready) continue;
+                // a step that drops nothing itself is worth running early when a selective process needs its output
+                double rank = candidate.getStats().rank(minSamples);
+                for (int k = j + 1; k < remaining.size(); k++) {
+                    if (dataDependsOn(remaining.get(k), candidate)) {
+                        rank = Math.min(rank, ProcessStats.rank(candidate.getStats(), remaining.get(k).getStats(), minSamples));
+                    }
+                }
+                if (best == null || rank < bestRank) {
+                    best = candidate;
+                    bestRank = rank;
+                }
+            }
+            order.add(best);
+            remaining.remove(best);
+        }
+        return order;
+    }
+
+    /**
+     * Whether {@code later} must wait for {@code earlier}: it follows a FILTER (control dependency), reads a field
+     * the earlier one writes (RAW), writes a field it reads (WAR) or writes (WAW). Unknown writes order everything.
+     */
+    static boolean dependsOn(Process later, Process earlier) {
+        return earlier.isFilter() || dataDependsOn(later, earlier);
+    }
+
+    private static boolean dataDependsOn(Process later, Process earlier) {
+        Set<String> earlierWrites = earlier.writeFields();
+        Set<String> laterWrites = later.writeFields();
+        if (earlierWrites == null || laterWrites == null) return true;
+        return !Collections.disjoint(later.readFields(), earlierWrites)
+            || !Collections.disjoint(laterWrites, earlier.readFields())
+            || !Collections.disjoint(laterWrites, earlierWrites);
+    }
 }
@@ -1,22 +1,34 @@
 package com.kbank.ams.featurestreamengine.application.factory;
 
+import com.kbank.ams.featurestreamengine.application.port.out.LoadApiPort;
 import com.kbank.ams.featurestreamengine.application.port.out.LoadJdbcPort;
 import com.kbank.ams.featurestreamengine.common.annotations.Factory;
 import com.kbank.ams.featurestreamengine.domain.flow.process.Process;
+import com.kbank.ams.featurestreamengine.domain.flow.process.attribute.ProcessOperatorAttribute;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 
 @Slf4j
 @Factory
 @RequiredArgsConstructor
 public class ProcessFactory {
     private final LoadJdbcPort loadJdbcPort;
+    private final LoadApiPort loadApiPort;
+
+    @Value("${ams.feature-stream-engine.flow.bytecode-expressions}")
+    private boolean bytecodeExpressions;
+
     public Process create(
         String baseDir,
         Map<String,Object> spec
     ){
-        return new Process(baseDir, spec, loadJdbcPort);
+        Process process = new Process(baseDir, spec, loadJdbcPort, loadApiPort);
+        if (bytecodeExpressions && process.getAttribute() instanceof ProcessOperatorAttribute operator) {
+            operator.generateEvaluators();
+        }
+        return process;
     }
 
 }
@@ -1,8 +1,17 @@
 package com.kbank.ams.featurestreamengine.application.port.in;
 
+import com.kbank.ams.featurestreamengine.domain.command.DetectionCommand;
+import com.kbank.ams.featurestreamengine.domain.detection.DetectionResult;
 import java.util.List;
 import java.util.Map;
 
 public interface DetectionUseCase {
-    void detect(List<Map<String,Object>> items);
+    DetectionResult detect(DetectionCommand command);
+
+    /**
+     * Detects events whose source topic is unknown (replay); topic routes then match any topic.
+     */
+    default DetectionResult detect(List<Map<String,Object>> items) {
+        return detect(DetectionCommand.builder().items(items).build());
+    }
 }
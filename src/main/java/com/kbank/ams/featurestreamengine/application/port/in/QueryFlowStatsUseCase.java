@@ -0,0 +1,8 @@
+package com.kbank.ams.featurestreamengine.application.port.in;
+
+import com.kbank.ams.featurestreamengine.domain.flow.FlowStats;
+import java.util.List;
+
+public interface QueryFlowStatsUseCase {
+    List<FlowStats> flowStats();
+}
@@ -0,0 +1,7 @@
+package com.kbank.ams.featurestreamengine.application.port.in;
+
+import com.kbank.ams.featurestreamengine.domain.flow.FlowReloadResult;
+
+public interface ReloadFlowUseCase {
+    FlowReloadResult reload();
+}
@@ -0,0 +1,18 @@
+package com.kbank.ams.featurestreamengine.application.port.out;
+
+import com.kbank.ams.featurestreamengine.domain.command.LoadApiCommand;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public interface LoadApiPort {
+    /**
+     * Posts the body and completes with the JSON object returned, or exceptionally on error, non-2xx or timeout.
+     */
+    CompletableFuture<Map<String,Object>> loadOne(LoadApiCommand command);
+
+    /**
+     * Posts the body and completes with the JSON array of objects returned.
+     */
+    CompletableFuture<List<Map<String,Object>>> load(LoadApiCommand command);
+}
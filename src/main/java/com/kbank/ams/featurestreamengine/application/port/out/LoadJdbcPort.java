@@ -1,9 +1,12 @@
 package com.kbank.ams.featurestreamengine.application.port.out;
 
+import com.kbank.ams.featurestreamengine.domain.command.LoadJdbcCommand;
 import com.kbank.ams.featurestreamengine.domain.command.LoadOneJdbcCommand;
+import java.util.List;
 import java.util.Map;
 
 public interface LoadJdbcPort {
     Map<String,Object> loadOne(LoadOneJdbcCommand command);
     Boolean loadBool(LoadOneJdbcCommand command);
+    List<Map<String,Object>> load(LoadJdbcCommand command);
 }
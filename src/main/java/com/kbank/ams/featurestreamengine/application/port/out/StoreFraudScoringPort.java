@@ -0,0 +1,9 @@
+package com.kbank.ams.featurestreamengine.application.port.out;
+
+import com.kbank.ams.featurestreamengine.domain.fraudscoring.FraudScoring;
+
+import java.util.List;
+
+public interface StoreFraudScoringPort {
+    int store(List<FraudScoring> fraudScorings);
+}
@@ -1,19 +1,31 @@
 package com.kbank.ams.featurestreamengine.application.service;
 
-import com.kbank.ams.featurestreamengine.application.factory.FlowFactory;
 import com.kbank.ams.featurestreamengine.application.port.in.DetectionUseCase;
 import com.kbank.ams.featurestreamengine.application.port.out.FraudScoringPort;
-import com.kbank.ams.featurestreamengine.application.port.out.StoreJdbcPort;
+import com.kbank.ams.featurestreamengine.application.port.out.StoreFraudScoringPort;
 import com.kbank.ams.featurestreamengine.common.annotations.UseCase;
+import com.kbank.ams.featurestreamengine.common.kafka.ProjectedEvent;
+import com.kbank.ams.featurestreamengine.domain.command.DetectionCommand;
 import com.kbank.ams.featurestreamengine.domain.command.FraudScoringCommand;
-import com.kbank.ams.featurestreamengine.domain.command.StoreJdbcCommand;
+import com.kbank.ams.featurestreamengine.domain.detection.DetectionResult;
 import com.kbank.ams.featurestreamengine.domain.flow.Flow;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowContext;
+import com.kbank.ams.featurestreamengine.domain.flow.record.FeatureRecord;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import com.kbank.ams.featurestreamengine.domain.fraudscoring.FraudScoring;
 import com.kbank.ams.featurestreamengine.domain.fraudscoring.FraudScoringIdentifier;
@@ -21,49 +33,161 @@ import com.kbank.ams.featurestreamengine.domain.fraudscoring.FraudScoringInput;
 import com.kbank.ams.featurestreamengine.domain.fraudscoring.FraudScoringOutput;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 
 @UseCase
 @Slf4j
 @RequiredArgsConstructor
 public class DetectionService<T> implements DetectionUseCase {
-    @Qualifier("flowNames")
-    private final List<String> flowNames;
-    private final FlowFactory flowFactory;
+    static final Set<String> IDENTIFIER_FIELDS = Set.of("uuid", "dt", "cust_id", "acct_nbr");
+
+    private final FlowRegistry flowRegistry;
+    private final EventDedupCache dedupCache;
     private final FraudScoringPort fraudScoringPort;
-    private final StoreJdbcPort storeJdbcPort;
+    private final List<StoreFraudScoringPort> storeFraudScoringPorts;
+    private final FlowMetrics flowMetrics;
 
-    private final Map<String, Flow> flowRepository = new HashMap<>();
     @Value("${ams.feature-stream-engine.exclude-from-features}")
     private String excludeFromFeaturesStr;
     private List<String> excludeFromFeatures;
+    @Value("${ams.feature-stream-engine.detection.parallelism}")
+    private int parallelism;
+    @Value("${ams.feature-stream-engine.latency.budget-ms}")
+    private long budgetMs;
+    @Value("${ams.feature-stream-engine.latency.reserve-ms}")
+    private long reserveMs;
+    @Value("${ams.feature-stream-engine.latency.min-process-timeout-ms}")
+    private long minProcessTimeoutMs;
 
     private ForkJoinPool pool;
+    private ExecutorService sinkExecutor;
+    private ExecutorService flowExecutor;
 
     @Override
-    public void detect(List<Map<String, Object>> items) {
+    public DetectionResult detect(DetectionCommand command) {
+        List<Map<String, Object>> items = command.getItems();
         if (items == null || items.isEmpty()) {
-            return;
+            return DetectionResult.empty(0);
         }
 
-        String DEFAULT_FLOW_NAME = "feature-stream";
-        Flow flow = flowRepository.get(DEFAULT_FLOW_NAME);
+        FlowContext context = flowContext(command);
 
-        List<Map<String, Object>> extractedFeatures = pool.submit(() ->
-            items.parallelStream()
-                .map(item -> {
-                    try {
-                        return flow.run(item);  // ← 여기서 에러나도
-                    } catch (Exception e) {
-                        // TODO: 로그 남기기 (어떤 item 에서 어떤 에러 났는지)
-                        // log.warn("Flow error for item: {}", item, e);
-                        return null;          // ← 해당 아이템만 버리고 계속
-                    }
-                })
-                .filter(Objects::nonNull)
-                .toList()
-        ).join();
+        // the flows of this call stay the same even if a reload swaps in a new version meanwhile
+        FlowVersion version = flowRegistry.acquire();
+        int duplicateCount;
+        List<DetectionResult> results;
+        try {
+            Map<Flow, List<Map<String, Object>>> routed = route(version, command.getTopic(), items);
+            // redelivered events were already scored and stored by the flows that ran them before
+            Map<Flow, List<Map<String, Object>>> unseen = new LinkedHashMap<>();
+            Set<Map<String, Object>> accepted = Collections.newSetFromMap(new IdentityHashMap<>());
+            Set<Map<String, Object>> fresh = Collections.newSetFromMap(new IdentityHashMap<>());
+            routed.forEach((flow, flowItems) -> {
+                List<Map<String, Object>> flowUnseen = dedupCache.filterUnseen(flow.getName(), flowItems);
+                accepted.addAll(flowItems);
+                fresh.addAll(flowUnseen);
+                if (!flowUnseen.isEmpty()) unseen.put(flow, flowUnseen);
+            });
+            duplicateCount = accepted.size() - fresh.size();
+            results = detect(unseen, context);
+        } finally {
+            flowRegistry.release(version);
+        }
+
+        // flows run side by side, so a stage takes as long as its slowest flow
+        int scoredCount = 0;
+        long flowNanos = 0, scoringNanos = 0, storeNanos = 0;
+        for (DetectionResult result : results) {
+            scoredCount += result.getScoredCount();
+            flowNanos = Math.max(flowNanos, result.getFlowNanos());
+            scoringNanos = Math.max(scoringNanos, result.getScoringNanos());
+            storeNanos = Math.max(storeNanos, result.getStoreNanos());
+        }
+        // a reload may swap in flows reading fields these events were read without only once they are done
+        ProjectedEvent.markDetected(items);
+
+        DetectionResult result = DetectionResult.builder()
+                .inputCount(items.size())
+                .scoredCount(scoredCount)
+                .duplicateCount(duplicateCount)
+                .flowNanos(flowNanos)
+                .scoringNanos(scoringNanos)
+                .storeNanos(storeNanos)
+                .skippedCount(context.skippedItems())
+                .timedOutCount(context.timedOutItems())
+                .build();
+        flowMetrics.record(result);
+        return result;
+    }
+
+    /**
+     * Lookups shared by the flows of this call, and the deadline: the oldest event's timestamp plus
+     * {@code latency.budget-ms}. The deadline holds for the whole batch, not per event, so events that
+     * arrived late (consumer lag) exhaust it for everything batched with them.
+     */
+    private FlowContext flowContext(DetectionCommand command) {
+        if (budgetMs <= 0) return new FlowContext();
+        long now = System.currentTimeMillis();
+        long eventTime = command.getEventTimeMillis() > 0 ? Math.min(command.getEventTimeMillis(), now) : now;
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(eventTime + budgetMs - now);
+        return new FlowContext(deadlineNanos, TimeUnit.MILLISECONDS.toNanos(reserveMs), TimeUnit.MILLISECONDS.toNanos(minProcessTimeoutMs));
+    }
+
+    /**
+     * Runs every routed flow over its events.
+     */
+    private List<DetectionResult> detect(Map<Flow, List<Map<String, Object>>> routed, FlowContext context) {
+        // flows share the lookups and budget of this call; each runs, scores and stores on its own, the first on this thread
+        List<Map.Entry<Flow, List<Map<String, Object>>>> runs = new ArrayList<>(routed.entrySet());
+        List<CompletableFuture<DetectionResult>> futures = new ArrayList<>(runs.size());
+        for (Map.Entry<Flow, List<Map<String, Object>>> run : runs.subList(Math.min(1, runs.size()), runs.size())) {
+            futures.add(CompletableFuture.supplyAsync(() -> detect(run.getKey(), run.getValue(), context), flowExecutor));
+        }
+        List<DetectionResult> results = new ArrayList<>(runs.size());
+        if (!runs.isEmpty()) {
+            results.add(detect(runs.get(0).getKey(), runs.get(0).getValue(), context));
+        }
+        for (CompletableFuture<DetectionResult> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Picks the events each flow accepts. Each flow runs on records of its own schema, copied from the events,
+     * so flows sharing events do not see each other's outputs.
+     */
+    private Map<Flow, List<Map<String, Object>>> route(FlowVersion version, String topic, List<Map<String, Object>> items) {
+        Map<Flow, List<Map<String, Object>>> routed = new LinkedHashMap<>();
+        for (Flow flow : version.all()) {
+            List<Map<String, Object>> accepted = new ArrayList<>(items.size());
+            for (Map<String, Object> item : items) {
+                if (flow.accepts(topic, item)) accepted.add(item);
+            }
+            if (!accepted.isEmpty()) routed.put(flow, accepted);
+        }
+        return routed;
+    }
+
+    /**
+     * Runs one flow over its events, then scores and stores its output. The events are remembered as done by this
+     * flow once stored, so a batch retried because another flow failed is not stored twice by this one.
+     */
+    private DetectionResult detect(Flow flow, List<Map<String, Object>> items, FlowContext context) {
+        // worker lanes already run one batch per core; the pool only fans out further when configured
+        long flowStart = System.nanoTime();
+        List<Map<String, Object>> extractedFeatures = runFlow(flow, items, context);
+        long flowNanos = System.nanoTime() - flowStart;
+        if (extractedFeatures.isEmpty()) {
+            dedupCache.markSeen(flow.getName(), items);
+            DetectionResult result = DetectionResult.builder().inputCount(items.size()).flowNanos(flowNanos).build();
+            flowMetrics.record(flow, result);
+            return result;
+        }
 
         /*
         *  EXCLUDE_FROM_FEATURES AND FRAUD_SCORING INPUT SETTING
@@ -72,14 +196,7 @@ public class DetectionService<T> implements DetectionUseCase {
         List<FraudScoringInput> inputs = extractedFeatures.stream()
                 .map(item -> {
                     String uuid = item.get("uuid").toString();
-                    Map<String,Object> features = item.entrySet().stream()
-                            .filter(e -> !excludeFromFeatures.contains(e.getKey()))
-                            .collect(Collectors.toMap(
-                                    Map.Entry::getKey,
-                                    Map.Entry::getValue,
-                                    (a, b) -> a,
-                                    LinkedHashMap::new
-                            ));
+                    Map<String,Object> features = FeatureRecord.without(item, excludeFromFeatures);
                     return FraudScoringInput.builder().uuid(uuid).features(features).build();
                 }).toList();
 
@@ -94,7 +211,7 @@ public class DetectionService<T> implements DetectionUseCase {
                     String dt = item.get("dt").toString();
                     String custId = item.get("cust_id").toString();
                     String acctNbr = item.get("acct_nbr").toString();
-                    String eventName = "raw-tx-log";
+                    String eventName = flow.getEventName();
                     return FraudScoringIdentifier.builder()
                             .uuid(uuid)
                             .eventName(eventName)
@@ -107,21 +224,67 @@ public class DetectionService<T> implements DetectionUseCase {
         /*
          *  FRAUD SCORING OUTPUTS
          */
+        long scoringStart = System.nanoTime();
         List<FraudScoringOutput> outputs = fraudScoringPort.score(inputs);
+        long scoringNanos = System.nanoTime() - scoringStart;
 
         List<FraudScoring> fraudScorings = outputs.stream().map(output -> new FraudScoring(identifierMap.get(output.getUuid()), output)).toList();
 
         log.info("fraudScorings : {}", fraudScorings);
-        storeJdbcPort.store(StoreJdbcCommand.<FraudScoring>builder().updateSql(INSERT_FRAUD_SCORING_SQL).items(fraudScorings).build());
+        long storeStart = System.nanoTime();
+        store(fraudScorings);
+        dedupCache.markSeen(flow.getName(), items);
+
+        DetectionResult result = DetectionResult.builder()
+                .inputCount(items.size())
+                .scoredCount(fraudScorings.size())
+                .flowNanos(flowNanos)
+                .scoringNanos(scoringNanos)
+                .storeNanos(System.nanoTime() - storeStart)
+                .build();
+        flowMetrics.record(flow, result);
+        return result;
     }
 
-    @PostConstruct
-    public void init(){
-        pool = new ForkJoinPool(4);
+    /**
+     * Writes to every enabled sink; with several sinks they are written in parallel and all must succeed.
+     */
+    private void store(List<FraudScoring> fraudScorings) {
+        if (sinkExecutor == null) {
+            storeFraudScoringPorts.forEach(port -> port.store(fraudScorings));
+            return;
+        }
+        CompletableFuture.allOf(storeFraudScoringPorts.stream()
+                .map(port -> CompletableFuture.runAsync(() -> port.store(fraudScorings), sinkExecutor))
+                .toArray(CompletableFuture[]::new))
+            .join();
+    }
 
-        for (String flowName : flowNames) {
-            flowRepository.put(flowName, flowFactory.create(flowName));
+    /**
+     * Runs the flow over the batch; with {@code detection.parallelism > 1} the batch is split into that many chunks.
+     */
+    private List<Map<String, Object>> runFlow(Flow flow, List<Map<String, Object>> items, FlowContext context) {
+        if (pool == null || items.size() < parallelism) {
+            return flow.runBatch(items, context);
         }
+        int chunkSize = (items.size() + parallelism - 1) / parallelism;
+        List<ForkJoinTask<List<Map<String, Object>>>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            List<Map<String, Object>> chunk = items.subList(from, Math.min(from + chunkSize, items.size()));
+            chunks.add(pool.submit(() -> flow.runBatch(chunk, context)));
+        }
+        List<Map<String, Object>> extracted = new ArrayList<>(items.size());
+        chunks.forEach(chunk -> extracted.addAll(chunk.join()));
+        return extracted;
+    }
+
+    @PostConstruct
+    public void init(){
+        pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        sinkExecutor = storeFraudScoringPorts.size() > 1 ? Executors.newCachedThreadPool(namedThreads("sink")) : null;
+        // flows can be added by a reload, so this is there even when a single flow is loaded
+        flowExecutor = Executors.newCachedThreadPool(namedThreads("flow"));
+        log.info("fraud scoring sinks={}", storeFraudScoringPorts.stream().map(p -> p.getClass().getSimpleName()).toList());
 
         this.excludeFromFeatures = Arrays.stream(excludeFromFeaturesStr.split(","))
                 .map(String::trim)
@@ -129,11 +292,19 @@ public class DetectionService<T> implements DetectionUseCase {
                 .toList();
     }
 
-    private static String INSERT_FRAUD_SCORING_SQL = """
-        INSERT INTO fraud_scoring_result (
-            created_at, uuid, event_name, dt, cust_id, acct_nbr, model_name, model_version, prediction, probability, threshold, features
-        ) VALUES (
-            now(), :uuid, :eventName, :dt, :custId, :acctNbr, :modelName, :modelVersion, :prediction, :probability, :threshold, :featuresJsonStr
-        )
-            """;
+    @PreDestroy
+    public void destroy() {
+        if (pool != null) pool.shutdown();
+        if (sinkExecutor != null) sinkExecutor.shutdown();
+        flowExecutor.shutdown();
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + seq.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
 }
@@ -0,0 +1,130 @@
+package com.kbank.ams.featurestreamengine.application.service;
+
+import com.kbank.ams.featurestreamengine.common.util.LongHashSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Time-windowed set of already processed event uuids, so redelivered events skip flow, scoring and store.
+ * Uuids are remembered per flow: when one flow fails a batch that others already stored, the retried batch
+ * only runs on the flows that did not store it.
+ *
+ * Two generations of 64-bit uuid hashes: lookups check both, inserts go to the current one, and the current one
+ * is rotated out once it is {@code window-ms} old (or holds {@code max-entries}). A uuid is therefore remembered
+ * for at least one window (unless max-entries rotates it out earlier).
+ *
+ * No exact check is kept: an unseen event is wrongly skipped only when its 64-bit hash equals one of the at most
+ * 2 * max-entries live hashes, a chance of about 2 * max-entries / 2^64 per event. With the default 1,000,000 that
+ * is ~1.1e-13, i.e. about one wrongly skipped event per 10^13 events. (The familiar ~2^32 birthday bound is the
+ * point where two remembered uuids likely share a hash with each other, which costs nothing.)
+ */
+@Slf4j
+@Component
+public class EventDedupCache {
+    private static final String UUID_FIELD = "uuid";
+    private static final int INITIAL_SIZE = 1 << 16;
+
+    private final boolean enabled;
+    private final long windowMs;
+    private final int maxEntries;
+
+    private LongHashSet current;
+    private LongHashSet previous;
+    private long rotatedAt;
+
+    public EventDedupCache(
+        @Value("${ams.feature-stream-engine.dedup.enabled}") boolean enabled,
+        @Value("${ams.feature-stream-engine.dedup.window-ms}") long windowMs,
+        @Value("${ams.feature-stream-engine.dedup.max-entries}") int maxEntries
+    ) {
+        this.enabled = enabled;
+        this.windowMs = windowMs;
+        this.maxEntries = maxEntries;
+        this.current = new LongHashSet(Math.min(maxEntries, INITIAL_SIZE));
+        this.previous = new LongHashSet(Math.min(maxEntries, INITIAL_SIZE));
+        this.rotatedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Items whose uuid has not been processed by {@code flow} yet, also dropping repeats within the batch.
+     * Items without uuid are kept.
+     */
+    public List<Map<String, Object>> filterUnseen(String flow, List<Map<String, Object>> items) {
+        if (!enabled) return items;
+        List<Map<String, Object>> unseen = new ArrayList<>(items.size());
+        LongHashSet inBatch = new LongHashSet(items.size());
+        synchronized (this) {
+            for (Map<String, Object> item : items) {
+                Object uuid = item.get(UUID_FIELD);
+                if (uuid == null) {
+                    unseen.add(item);
+                    continue;
+                }
+                long h = hash(flow, uuid.toString());
+                if (!current.contains(h) && !previous.contains(h) && inBatch.add(h)) {
+                    unseen.add(item);
+                }
+            }
+        }
+        return unseen;
+    }
+
+    /**
+     * Records the items as processed by {@code flow}; called only after its results are stored.
+     */
+    public synchronized void markSeen(String flow, List<Map<String, Object>> items) {
+        if (!enabled) return;
+        rotateIfDue();
+        for (Map<String, Object> item : items) {
+            Object uuid = item.get(UUID_FIELD);
+            if (uuid != null) current.add(hash(flow, uuid.toString()));
+        }
+    }
+
+    public synchronized int size() {
+        return current.size() + previous.size();
+    }
+
+    private void rotateIfDue() {
+        long now = System.currentTimeMillis();
+        boolean full = current.size() >= maxEntries;
+        if (now - rotatedAt < windowMs && !full) return;
+        if (full) {
+            log.warn("dedup generation reached max-entries {} after {}ms -> rotating early", maxEntries, now - rotatedAt);
+        }
+        LongHashSet recycled = previous;
+        recycled.clear();
+        previous = current;
+        current = recycled;
+        rotatedAt = now;
+    }
+
+    /**
+     * FNV-1a over the chars of the flow name, a separator and the uuid, finished with the murmur3 64-bit mixer.
+     */
+    static long hash(String flow, String uuid) {
+        long h = 0xcbf29ce484222325L;
+        h = fnv(h, flow);
+        h ^= 0xffff;
+        h *= 0x100000001b3L;
+        h = fnv(h, uuid);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long fnv(long h, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,142 @@
+package com.kbank.ams.featurestreamengine.application.service;
+
+import com.kbank.ams.featurestreamengine.common.kafka.FieldProjection;
+import com.kbank.ams.featurestreamengine.domain.flow.Flow;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Set of raw event fields that anything downstream of the deserializer actually reads:
+ * fields referenced by the loaded flows, the identifier fields, {@code exclude-from-features}
+ * and the configured {@code deserializer.projection.extra-fields}.
+ *
+ * Raw fields outside this set are not sent to the model as features when projection is enabled,
+ * so fields the model needs without any flow referencing them belong in extra-fields.
+ *
+ * Events queued in lanes or spilled keep the fields they were read with, so a reload first {@link #widen}s the
+ * set to cover the flows it swaps in and waits for events read without those fields to be detected; the set is
+ * narrowed again by {@link #refresh()} once the replaced flows are retired.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FlowFieldProjection {
+    private static final long DRAIN_POLL_MS = 10;
+
+    private final FlowRegistry flowRegistry;
+
+    @Value("${ams.feature-stream-engine.exclude-from-features}")
+    private String excludeFromFeaturesStr;
+    @Value("${ams.feature-stream-engine.deserializer.projection.extra-fields}")
+    private String extraFieldsStr;
+
+    private volatile FieldProjection current = new FieldProjection(0, Set.of());
+    // replaced generations that may still have events in flight
+    private final List<FieldProjection> previous = new ArrayList<>();
+    // flows being swapped in by a reload, not yet in the registry
+    private Collection<Flow> incoming = List.of();
+
+    @PostConstruct
+    public synchronized void refresh() {
+        Set<String> projected = new LinkedHashSet<>(DetectionService.IDENTIFIER_FIELDS);
+        projected.addAll(split(excludeFromFeaturesStr));
+        projected.addAll(split(extraFieldsStr));
+        projected.addAll(readFields(flowRegistry.all()));
+        projected.addAll(readFields(incoming));
+        publish(projected);
+    }
+
+    /**
+     * Adds the fields read by {@code flows}, which a reload is about to swap in, to the current set.
+     */
+    public synchronized void widen(Collection<Flow> flows) {
+        incoming = List.copyOf(flows);
+        Set<String> projected = new LinkedHashSet<>(current.getFields());
+        projected.addAll(readFields(incoming));
+        publish(projected);
+    }
+
+    /**
+     * The widened flows are in the registry now; {@link #refresh()} reads their fields from there.
+     */
+    public synchronized void swapped() {
+        incoming = List.of();
+    }
+
+    /**
+     * Waits until every event read with a projection lacking some field {@code flows} read has been detected.
+     *
+     * @return false if such events were still in flight after {@code timeoutMs}
+     */
+    public boolean awaitDrained(Collection<Flow> flows, long timeoutMs) throws InterruptedException {
+        Set<String> required = readFields(flows);
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (true) {
+            List<FieldProjection> lacking = lacking(required);
+            if (lacking.isEmpty()) return true;
+            if (System.currentTimeMillis() >= deadline) {
+                log.warn("events read without fields {} still in flight after {}ms: {}", required, timeoutMs, lacking);
+                return false;
+            }
+            Thread.sleep(DRAIN_POLL_MS);
+        }
+    }
+
+    public Set<String> fields() {
+        return current.getFields();
+    }
+
+    /**
+     * The current projection, acquired for one event; like {@link FlowRegistry#acquire()} it is re-checked so an
+     * event is never counted on a generation {@link #awaitDrained} already found drained.
+     */
+    public FieldProjection acquire() {
+        while (true) {
+            FieldProjection projection = current;
+            projection.acquire();
+            if (projection == current) return projection;
+            projection.release();
+        }
+    }
+
+    private synchronized List<FieldProjection> lacking(Set<String> required) {
+        previous.removeIf(projection -> projection.pending() == 0);
+        List<FieldProjection> lacking = new ArrayList<>();
+        for (FieldProjection projection : previous) {
+            if (!projection.getFields().containsAll(required)) lacking.add(projection);
+        }
+        return lacking;
+    }
+
+    private void publish(Set<String> projected) {
+        FieldProjection replaced = current;
+        if (replaced.getFields().equals(projected)) return;
+        current = new FieldProjection(replaced.getGeneration() + 1, projected);
+        previous.add(replaced);
+        log.info("raw event projection generation={} fields={}", current.getGeneration(), current.getFields());
+    }
+
+    private static Set<String> readFields(Collection<Flow> flows) {
+        Set<String> fields = new LinkedHashSet<>();
+        for (Flow flow : flows) {
+            fields.addAll(flow.readFields());
+        }
+        return fields;
+    }
+
+    private static Set<String> split(String csv) {
+        Set<String> out = new LinkedHashSet<>();
+        if (csv == null) return out;
+        Arrays.stream(csv.split(",")).map(String::trim).filter(s -> !s.isEmpty()).forEach(out::add);
+        return out;
+    }
+}
@@ -0,0 +1,169 @@
+package com.kbank.ams.featurestreamengine.application.service;
+
+import com.kbank.ams.featurestreamengine.domain.detection.DetectionResult;
+import com.kbank.ams.featurestreamengine.domain.flow.Flow;
+import com.kbank.ams.featurestreamengine.domain.flow.process.Process;
+import com.kbank.ams.featurestreamengine.domain.flow.process.ProcessRecorder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+
+/**
+ * Latency histograms and counters of the detection pipeline, exported through Actuator
+ * ({@code /actuator/prometheus}).
+ *
+ * Meters are resolved once (per flow, per process when a flow version is swapped in) and then only recorded to,
+ * so the hot path is a few {@code LongAdder} updates without allocation.
+ */
+@Component
+public class FlowMetrics {
+    private static final Duration MIN_EXPECTED = Duration.ofNanos(10_000);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(30);
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, StageMeters> stages = new ConcurrentHashMap<>();
+    private final Map<List<String>, ProcessMeters> processes = new HashMap<>();
+    private final Counter items;
+    private final Counter duplicates;
+
+    public FlowMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.items = meterRegistry.counter("fse.detection.items");
+        this.duplicates = meterRegistry.counter("fse.detection.duplicates");
+    }
+
+    /**
+     * Points the stats of every process to its meters; meters of flows and processes no longer loaded are removed.
+     */
+    public synchronized void bind(Collection<Flow> flows) {
+        Map<List<String>, ProcessMeters> bound = new HashMap<>();
+        for (Flow flow : flows) {
+            for (Process process : flow.getProcesses()) {
+                List<String> key = List.of(flow.getName(), process.getName(), process.getDetailType().toString());
+                ProcessMeters meters = processes.containsKey(key) ? processes.get(key) : new ProcessMeters(flow, process);
+                process.getStats().setRecorder(meters);
+                bound.put(key, meters);
+            }
+        }
+        processes.forEach((key, meters) -> {
+            if (!bound.containsKey(key)) meters.remove();
+        });
+        processes.clear();
+        processes.putAll(bound);
+
+        Set<String> names = flows.stream().map(Flow::getName).collect(Collectors.toSet());
+        stages.entrySet().removeIf(entry -> {
+            if (names.contains(entry.getKey())) return false;
+            entry.getValue().remove();
+            return true;
+        });
+    }
+
+    /**
+     * Stage timings of one flow run (flow, scoring, store) and the events it scored.
+     */
+    public void record(Flow flow, DetectionResult result) {
+        StageMeters meters = stages.computeIfAbsent(flow.getName(), StageMeters::new);
+        meters.flow.record(result.getFlowNanos(), TimeUnit.NANOSECONDS);
+        if (result.getScoredCount() == 0) return;
+        meters.scoring.record(result.getScoringNanos(), TimeUnit.NANOSECONDS);
+        meters.store.record(result.getStoreNanos(), TimeUnit.NANOSECONDS);
+        meters.scored.increment(result.getScoredCount());
+    }
+
+    /**
+     * Events of one detect call and how many of them were redelivered duplicates.
+     */
+    public void record(DetectionResult result) {
+        items.increment(result.getInputCount());
+        if (result.getDuplicateCount() > 0) duplicates.increment(result.getDuplicateCount());
+    }
+
+    private Timer timer(String name, String... tags) {
+        return Timer.builder(name)
+            .tags(tags)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(MIN_EXPECTED)
+            .maximumExpectedValue(MAX_EXPECTED)
+            .register(meterRegistry);
+    }
+
+    private final class StageMeters {
+        final Timer flow;
+        final Timer scoring;
+        final Timer store;
+        final Counter scored;
+
+        StageMeters(String flowName) {
+            flow = timer("fse.detection.stage", "flow", flowName, "stage", "flow");
+            scoring = timer("fse.detection.stage", "flow", flowName, "stage", "scoring");
+            store = timer("fse.detection.stage", "flow", flowName, "stage", "store");
+            scored = meterRegistry.counter("fse.detection.scored", "flow", flowName);
+        }
+
+        void remove() {
+            for (Meter meter : List.of(flow, scoring, store, scored)) {
+                meterRegistry.remove(meter);
+            }
+        }
+    }
+
+    private final class ProcessMeters implements ProcessRecorder {
+        final Timer latency;
+        final Counter items;
+        final Counter dropped;
+        final Counter skipped;
+        final Counter timedOut;
+        final Counter failed;
+
+        ProcessMeters(Flow flow, Process process) {
+            String[] tags = {"flow", flow.getName(), "process", process.getName(), "type", process.getDetailType().toString()};
+            latency = timer("fse.process.latency", tags);
+            items = meterRegistry.counter("fse.process.items", tags);
+            dropped = meterRegistry.counter("fse.process.dropped", tags);
+            skipped = meterRegistry.counter("fse.process.skipped", tags);
+            timedOut = meterRegistry.counter("fse.process.timed.out", tags);
+            failed = meterRegistry.counter("fse.process.failed", tags);
+        }
+
+        @Override
+        public void record(int in, int out, long elapsedNanos) {
+            latency.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            items.increment(in);
+            if (in > out) dropped.increment(in - out);
+        }
+
+        @Override
+        public void recordSkipped(int in) {
+            skipped.increment(in);
+        }
+
+        @Override
+        public void recordTimedOut(int in) {
+            timedOut.increment(in);
+        }
+
+        @Override
+        public void recordFailed(int in) {
+            failed.increment(in);
+        }
+
+        void remove() {
+            for (Meter meter : List.of(latency, items, dropped, skipped, timedOut, failed)) {
+                meterRegistry.remove(meter);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.kbank.ams.featurestreamengine.application.service;
+
+import com.kbank.ams.featurestreamengine.application.factory.FlowFactory;
+import com.kbank.ams.featurestreamengine.domain.flow.Flow;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the compiled flows listed in {@code flow.list} as the current {@link FlowVersion}.
+ *
+ * Reloads swap in a whole new version; detect calls {@link #acquire()} the version they run on.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FlowRegistry {
+    @Qualifier("flowNames")
+    private final List<String> flowNames;
+    private final FlowFactory flowFactory;
+    private final FlowMetrics flowMetrics;
+
+    private volatile FlowVersion current;
+
+    @PostConstruct
+    public void init() {
+        Map<String, Flow> flows = new LinkedHashMap<>();
+        for (String flowName : flowNames) {
+            flows.put(flowName, flowFactory.create(flowName));
+        }
+        current = new FlowVersion(1, flows);
+        flowMetrics.bind(current.all());
+    }
+
+    public Flow get(String flowName) {
+        return current.get(flowName);
+    }
+
+    public Collection<Flow> all() {
+        return current.all();
+    }
+
+    public FlowVersion current() {
+        return current;
+    }
+
+    /**
+     * The current version, held until {@link #release(FlowVersion)}.
+     */
+    public FlowVersion acquire() {
+        while (true) {
+            FlowVersion version = current;
+            version.acquire();
+            if (version == current) return version;
+            version.release();  // swapped in between, take the new one
+        }
+    }
+
+    public void release(FlowVersion version) {
+        version.release();
+    }
+
+    /**
+     * Atomically replaces the current flows; batches still running on the old version finish on it.
+     */
+    public synchronized FlowVersion swap(Map<String, Flow> flows) {
+        FlowVersion previous = current;
+        FlowVersion next = new FlowVersion(previous.getNumber() + 1, flows);
+        current = next;
+        flowMetrics.bind(next.all());
+        previous.replace();
+        log.info("flow version {} -> {} flows={} (previous in flight={})", previous.getNumber(), next.getNumber(),
+            flows.keySet(), previous.inFlight());
+        return next;
+    }
+}
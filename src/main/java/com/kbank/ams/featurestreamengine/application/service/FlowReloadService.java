@@ -0,0 +1,263 @@
+package com.kbank.ams.featurestreamengine.application.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.kbank.ams.featurestreamengine.application.factory.FlowFactory;
+import com.kbank.ams.featurestreamengine.application.port.in.ReloadFlowUseCase;
+import com.kbank.ams.featurestreamengine.application.specrepo.ProcessSpecRepoConfig;
+import com.kbank.ams.featurestreamengine.common.annotations.UseCase;
+import com.kbank.ams.featurestreamengine.common.util.JsonUtil;
+import com.kbank.ams.featurestreamengine.common.util.ResourceFileUtil;
+import com.kbank.ams.featurestreamengine.domain.flow.Flow;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowContext;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowReloadResult;
+import com.kbank.ams.featurestreamengine.domain.flow.process.Process;
+import com.kbank.ams.featurestreamengine.domain.flow.process.attribute.ProcessDbQueryAttribute;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Reloads flows from the config dir while consumers keep running: on a change under {@code config-dir}
+ * (when {@code flow.reload.watch} is on) or on the admin trigger.
+ *
+ * Flows whose spec.json or query files changed are compiled, validated and warmed with their {@code sample.json}
+ * on the reloading thread, then swapped in together as a new {@link FlowVersion}. A flow that fails any step keeps
+ * its previous version. Unchanged flows keep their compiled (and JIT-warm) instances.
+ *
+ * Before the swap the raw field projection is widened to the fields the new flows read, and the swap waits (up to
+ * {@code projection-drain-timeout-ms}) for events read without them, queued or spilled, to be detected on the old
+ * flows. The projection is narrowed again once the old version retires.
+ */
+@Slf4j
+@UseCase
+@RequiredArgsConstructor
+public class FlowReloadService implements ReloadFlowUseCase {
+    private static final String SPEC_FILE = "spec.json";
+    private static final String SAMPLE_FILE = "sample.json";
+
+    private final FlowRegistry flowRegistry;
+    private final FlowFactory flowFactory;
+    private final FlowFieldProjection flowFieldProjection;
+
+    @Value("${ams.feature-stream-engine.config-dir}")
+    private String configDir;
+    @Value("${ams.feature-stream-engine.flow-list-path}")
+    private String flowListPath;
+    @Value("${ams.feature-stream-engine.flow.reload.watch}")
+    private boolean watch;
+    @Value("${ams.feature-stream-engine.flow.reload.debounce-ms}")
+    private long debounceMs;
+    @Value("${ams.feature-stream-engine.flow.reload.warmup-iterations}")
+    private int warmupIterations;
+    @Value("${ams.feature-stream-engine.flow.reload.projection-drain-timeout-ms}")
+    private long projectionDrainTimeoutMs;
+
+    // source (spec.json + queries) each loaded flow was compiled from
+    private final Map<String, String> sources = new HashMap<>();
+    private Thread watcher;
+
+    @PostConstruct
+    public void init() {
+        for (Map.Entry<String, Flow> entry : flowRegistry.current().getFlows().entrySet()) {
+            sources.put(entry.getKey(), source(ResourceFileUtil.load(flowFactory.flowDir(entry.getKey()) + SPEC_FILE), entry.getValue()));
+        }
+        if (!watch) return;
+        if (!Files.isDirectory(Paths.get(configDir))) {
+            log.info("config dir {} is not a directory -> flows reload on admin trigger only", configDir);
+            return;
+        }
+        watcher = new Thread(this::watch, "flow-reload");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (watcher != null) watcher.interrupt();
+    }
+
+    @Override
+    public synchronized FlowReloadResult reload() {
+        FlowVersion current = flowRegistry.current();
+        List<String> flowNames = ProcessSpecRepoConfig.parseFlowList(ResourceFileUtil.load(flowListPath));
+
+        Map<String, Flow> flows = new LinkedHashMap<>();
+        Map<String, String> changedSources = new HashMap<>();
+        List<String> reloaded = new ArrayList<>();
+        List<String> unchanged = new ArrayList<>();
+        Map<String, String> failed = new LinkedHashMap<>();
+        for (String flowName : flowNames) {
+            Flow previous = current.get(flowName);
+            try {
+                String specJson = ResourceFileUtil.load(flowFactory.flowDir(flowName) + SPEC_FILE);
+                if (specJson == null) throw new IllegalStateException(SPEC_FILE + " not found");
+                Flow candidate = flowFactory.create(flowName, specJson);
+                String source = source(specJson, candidate);
+                if (previous != null && source.equals(sources.get(flowName))) {
+                    flows.put(flowName, previous);
+                    unchanged.add(flowName);
+                    continue;
+                }
+                validate(candidate);
+                warm(flowName, candidate);
+                flows.put(flowName, candidate);
+                changedSources.put(flowName, source);
+                reloaded.add(flowName);
+            } catch (Exception e) {
+                log.warn("flow {} rejected, keeping {}", flowName, previous != null ? "previous version" : "it unloaded", e);
+                failed.put(flowName, e.toString());
+                if (previous != null) flows.put(flowName, previous);
+            }
+        }
+        List<String> removed = current.getFlows().keySet().stream().filter(name -> !flows.containsKey(name)).toList();
+
+        long version = current.getNumber();
+        if (!reloaded.isEmpty() || !removed.isEmpty()) {
+            flowFieldProjection.widen(flows.values());
+            awaitProjectionDrained(flows.values());
+            version = flowRegistry.swap(flows).getNumber();
+            flowFieldProjection.swapped();
+            // batches still on the old flows may read fields only those flows need
+            current.whenRetired(flowFieldProjection::refresh);
+            sources.putAll(changedSources);
+            sources.keySet().retainAll(flows.keySet());
+        }
+        FlowReloadResult result = FlowReloadResult.builder()
+            .version(version)
+            .reloaded(reloaded)
+            .unchanged(unchanged)
+            .removed(removed)
+            .failed(failed)
+            .build();
+        log.info("flow reload {}", result);
+        return result;
+    }
+
+    private void awaitProjectionDrained(Collection<Flow> flows) {
+        try {
+            if (!flowFieldProjection.awaitDrained(flows, projectionDrainTimeoutMs)) {
+                log.warn("swapping flows while events without some of their fields are in flight; those run without them");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("interrupted waiting for projected events to drain -> swapping now");
+        }
+    }
+
+    private static void validate(Flow flow) {
+        for (Process process : flow.getProcesses()) {
+            if (process.getAttribute() instanceof ProcessDbQueryAttribute dbQuery) {
+                if (dbQuery.getQuery() == null) {
+                    throw new IllegalStateException("query file not found: " + dbQuery.getQueryFilePath());
+                }
+                if (dbQuery.getBatch() != null && dbQuery.getBatch().getQuery() == null) {
+                    throw new IllegalStateException("batch query file not found: " + dbQuery.getBatch().getQueryFilePath());
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the flow's sample events through it, so a broken spec fails here and the hot paths are compiled
+     * before live events arrive. Sample lookups go to the real databases.
+     */
+    @SneakyThrows
+    private void warm(String flowName, Flow flow) {
+        Path samplePath = Paths.get(flowFactory.flowDir(flowName) + SAMPLE_FILE);
+        if (!Files.exists(samplePath)) {
+            log.info("flow {} has no {} -> swapped in without warm-up", flowName, SAMPLE_FILE);
+            return;
+        }
+        JsonNode sample = JsonUtil.om.readTree(Files.readString(samplePath));
+        List<Map<String, Object>> events = new ArrayList<>();
+        for (JsonNode event : sample.isArray() ? sample : List.of(sample)) {
+            events.add(JsonUtil.om.convertValue(event, new TypeReference<Map<String, Object>>() {}));
+        }
+        long start = System.nanoTime();
+        int passed = 0;
+        for (int i = 0; i < warmupIterations; i++) {
+            List<Map<String, Object>> copies = new ArrayList<>(events.size());
+            for (Map<String, Object> event : events) {
+                if (flow.accepts(null, event)) copies.add(new HashMap<>(event));
+            }
+            passed = flow.runBatch(copies, new FlowContext()).size();
+        }
+        log.info("flow {} warmed: {} sample events x {} in {}ms, {} passed", flowName, events.size(), warmupIterations,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), passed);
+    }
+
+    private static String source(String specJson, Flow flow) {
+        StringBuilder sb = new StringBuilder(String.valueOf(specJson));
+        for (Process process : flow.getProcesses()) {
+            if (process.getAttribute() instanceof ProcessDbQueryAttribute dbQuery) {
+                sb.append('\0').append(dbQuery.getQuery());
+                if (dbQuery.getBatch() != null) sb.append('\0').append(dbQuery.getBatch().getQuery());
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reloads once the config dir has been quiet for {@code debounce-ms}, since editors and deploys write in steps.
+     */
+    private void watch() {
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            register(watchService);
+            while (!Thread.currentThread().isInterrupted()) {
+                drain(watchService.take());
+                WatchKey more;
+                while ((more = watchService.poll(debounceMs, TimeUnit.MILLISECONDS)) != null) {
+                    drain(more);
+                }
+                try {
+                    reload();
+                    register(watchService);  // picks up directories of newly added flows
+                } catch (Exception e) {
+                    log.error("flow reload failed", e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("flow config watch stopped. dir={}", configDir, e);
+        }
+    }
+
+    private void register(WatchService watchService) throws IOException {
+        List<Path> dirs = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(Paths.get(configDir))) {
+            paths.filter(Files::isDirectory).forEach(dirs::add);
+        }
+        Path flowListDir = Paths.get(flowListPath).toAbsolutePath().getParent();
+        if (flowListDir != null && Files.isDirectory(flowListDir)) dirs.add(flowListDir);
+        for (Path dir : dirs) {
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+        }
+    }
+
+    private static void drain(WatchKey key) {
+        key.pollEvents();
+        key.reset();
+    }
+}
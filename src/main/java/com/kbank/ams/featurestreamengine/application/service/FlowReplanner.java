@@ -0,0 +1,97 @@
+package com.kbank.ams.featurestreamengine.application.service;
+
+import com.kbank.ams.featurestreamengine.application.factory.FlowFactory;
+import com.kbank.ams.featurestreamengine.application.port.in.QueryFlowStatsUseCase;
+import com.kbank.ams.featurestreamengine.common.annotations.UseCase;
+import com.kbank.ams.featurestreamengine.domain.flow.Flow;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowPlan;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowStats;
+import com.kbank.ams.featurestreamengine.domain.flow.process.Process;
+import com.kbank.ams.featurestreamengine.domain.flow.process.ProcessStats;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Periodically re-orders the processes of every loaded flow by their recorded cost and pass rate
+ * ({@code flow.reorder.*}), and reports the stats behind the current order.
+ */
+@Slf4j
+@UseCase
+@RequiredArgsConstructor
+public class FlowReplanner implements QueryFlowStatsUseCase {
+    private final FlowRegistry flowRegistry;
+    private final FlowFactory flowFactory;
+
+    @Value("${ams.feature-stream-engine.flow.reorder.enabled}")
+    private boolean enabled;
+    @Value("${ams.feature-stream-engine.flow.reorder.interval-ms}")
+    private long intervalMs;
+    @Value("${ams.feature-stream-engine.flow.reorder.min-samples}")
+    private long minSamples;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "flow-replan");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::replan, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    void replan() {
+        try {
+            for (Flow flow : flowRegistry.all()) {
+                if (flowFactory.replan(flow, minSamples)) {
+                    log.info("flow {} reordered: {}", flow.getName(), stats(flow));
+                } else {
+                    log.debug("flow {} order kept: {}", flow.getName(), stats(flow));
+                }
+            }
+        } catch (Exception e) {
+            log.error("flow replan failed", e);
+        }
+    }
+
+    @Override
+    public List<FlowStats> flowStats() {
+        return flowRegistry.all().stream().map(this::stats).toList();
+    }
+
+    private FlowStats stats(Flow flow) {
+        FlowPlan plan = flow.getPlan();
+        List<Process> order = plan != null ? plan.getOrder() : flow.getProcesses();
+        return FlowStats.builder()
+            .flowName(flow.getName())
+            .declaredOrder(flow.getProcesses().stream().map(Process::getName).toList())
+            .order(order.stream().map(Process::getName).toList())
+            .processes(flow.getProcesses().stream().map(process -> {
+                ProcessStats stats = process.getStats();
+                return FlowStats.ProcessStatsView.builder()
+                    .name(process.getName())
+                    .items(stats.items())
+                    .passRate(stats.passRate())
+                    .costMicrosPerItem(stats.costNanosPerItem() / 1000.0)
+                    .rank(stats.rank(minSamples))
+                    .skipped(stats.skipped())
+                    .timedOut(stats.timedOut())
+                    .build();
+            }).toList())
+            .build();
+    }
+}
@@ -0,0 +1,100 @@
+package com.kbank.ams.featurestreamengine.application.service;
+
+import com.kbank.ams.featurestreamengine.domain.flow.Flow;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An immutable set of compiled flows. Detect calls hold the version they started with until they finish,
+ * so a reload never changes flows under an in-flight batch; a replaced version is retired once it drains.
+ */
+@Slf4j
+@ToString(onlyExplicitlyIncluded = true)
+public class FlowVersion {
+    @Getter
+    @ToString.Include
+    private final long number;
+    @Getter
+    private final Map<String, Flow> flows;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean replaced;
+    private final AtomicBoolean retired = new AtomicBoolean();
+    private final List<Runnable> onRetired = new ArrayList<>();
+
+    public FlowVersion(long number, Map<String, Flow> flows) {
+        this.number = number;
+        this.flows = Collections.unmodifiableMap(new LinkedHashMap<>(flows));
+    }
+
+    public Flow get(String flowName) {
+        return flows.get(flowName);
+    }
+
+    public Collection<Flow> all() {
+        return flows.values();
+    }
+
+    void acquire() {
+        inFlight.incrementAndGet();
+    }
+
+    void release() {
+        if (inFlight.decrementAndGet() == 0 && replaced) retire();
+    }
+
+    void replace() {
+        replaced = true;
+        if (inFlight.get() == 0) retire();
+    }
+
+    /**
+     * Runs the action once the version is retired, on the thread that releases its last batch;
+     * right away if it is retired already.
+     */
+    void whenRetired(Runnable action) {
+        synchronized (onRetired) {
+            if (!retired.get()) {
+                onRetired.add(action);
+                return;
+            }
+        }
+        run(action);
+    }
+
+    private void retire() {
+        if (retired.compareAndSet(false, true)) {
+            log.info("flow version {} retired", number);
+            List<Runnable> actions;
+            synchronized (onRetired) {
+                actions = new ArrayList<>(onRetired);
+                onRetired.clear();
+            }
+            actions.forEach(this::run);
+        }
+    }
+
+    private void run(Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            log.warn("flow version {} retire action failed", number, e);
+        }
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public boolean isRetired() {
+        return retired.get();
+    }
+}
@@ -21,13 +21,8 @@ public class ProcessSpecRepoConfig {
         @Value("${ams.feature-stream-engine.config-dir}") String configDir,
         @Value("${ams.feature-stream-engine.flow-list-path}") String flowListPath
     ){
-        // 1) 태스크 목록 읽기: CRLF 정리, trim, 공백/주석 제거
-        List<String> names = Arrays.stream(ResourceFileUtil.load(flowListPath)
-                .replace("\r", "")
-                .split("\n"))
-            .map(String::trim)
-            .filter(s -> !s.isEmpty() && !s.startsWith("#"))
-            .toList();
+        // 1) 태스크 목록 읽기
+        List<String> names = parseFlowList(ResourceFileUtil.load(flowListPath));
 
         // 2) key=태스크명, value=spec.json 내용 으로 맵 구성
         return IntStream.range(0, names.size())
@@ -45,7 +40,14 @@ public class ProcessSpecRepoConfig {
     public List<String> flowNames(
         @Value("${ams.feature-stream-engine.flow-list-path}") String flowListPath
     ){
-        return Arrays.stream(ResourceFileUtil.load(flowListPath)
+        return parseFlowList(ResourceFileUtil.load(flowListPath));
+    }
+
+    /**
+     * flow.list 의 flow 이름 목록: CRLF 정리, trim, 공백/주석 제거.
+     */
+    public static List<String> parseFlowList(String text) {
+        return Arrays.stream(text
                 .replace("\r", "")
                 .split("\n"))
             .map(String::trim)
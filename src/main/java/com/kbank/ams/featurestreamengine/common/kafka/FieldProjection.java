@@ -0,0 +1,46 @@
+package com.kbank.ams.featurestreamengine.common.kafka;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * One generation of the raw fields {@link RawTxLogDeserializer} materializes, counting the events read with it
+ * that have not been detected yet. A reload waits for older generations to drain before new flows see events.
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class FieldProjection {
+    @Getter
+    @ToString.Include
+    private final long generation;
+    @Getter
+    @ToString.Include
+    private final Set<String> fields;
+    private final AtomicLong pending = new AtomicLong();
+
+    public FieldProjection(long generation, Set<String> fields) {
+        this.generation = generation;
+        this.fields = Collections.unmodifiableSet(new LinkedHashSet<>(fields));
+    }
+
+    /**
+     * Counts an event about to be read with this projection.
+     */
+    public void acquire() {
+        pending.incrementAndGet();
+    }
+
+    /**
+     * The event is detected, or was never produced (tombstone, deserialization failure).
+     */
+    public void release() {
+        pending.decrementAndGet();
+    }
+
+    public long pending() {
+        return pending.get();
+    }
+}
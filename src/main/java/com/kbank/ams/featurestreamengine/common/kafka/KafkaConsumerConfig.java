@@ -2,28 +2,46 @@ package com.kbank.ams.featurestreamengine.common.kafka;
 
 import java.util.HashMap;
 import java.util.Map;
+import com.kbank.ams.featurestreamengine.application.service.FlowFieldProjection;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
 import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.backoff.ExponentialBackOff;
 
+@Slf4j
 @Configuration
+@RequiredArgsConstructor
 public class KafkaConsumerConfig {
+    private final FlowFieldProjection flowFieldProjection;
+    private final MeterRegistry meterRegistry;
+
     @Value("${ams.feature-stream-engine.bootstrap-servers}")
     public String bootstrapServers;
     @Value("${ams.feature-stream-engine.group-id}")
     public String groupId;
     @Value("${ams.feature-stream-engine.max-poll-records}")
     public Integer maxPollRecords;
+    @Value("${ams.feature-stream-engine.ingestion.batch-concurrency}")
+    public Integer batchConcurrency;
+    @Value("${ams.feature-stream-engine.deserializer.projection.enabled}")
+    public boolean projectionEnabled;
 
     @Bean
+    @SuppressWarnings({"unchecked", "rawtypes"})
     public ConsumerFactory<String, Object> consumerFactory() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
@@ -32,9 +50,19 @@ public class KafkaConsumerConfig {
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
         props.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
         props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, "java.util.Map");
-        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
         props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
-        return new DefaultKafkaConsumerFactory<>(props);
+        DefaultKafkaConsumerFactory<String, Object> factory;
+        if (projectionEnabled) {
+            // only fields read by flows / identifiers / configured extras are materialized
+            Deserializer<Object> valueDeserializer = (Deserializer) new RawTxLogDeserializer(flowFieldProjection::acquire);
+            factory = new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), valueDeserializer);
+        } else {
+            factory = new DefaultKafkaConsumerFactory<>(props);
+        }
+        // kafka.consumer.* client metrics, incl. records-lag-max per partition
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
@@ -45,24 +73,27 @@ public class KafkaConsumerConfig {
         factory.setConcurrency(1);
         factory.setCommonErrorHandler(new DefaultErrorHandler());
         ContainerProperties props = factory.getContainerProperties();
-        props.setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        // acks arrive from the micro-batch worker thread; MANUAL queues them and commits on the next poll
+        props.setAckMode(ContainerProperties.AckMode.MANUAL);
         return factory;
     }
 
-//    @Bean
-//    public ConcurrentKafkaListenerContainerFactory<String, Object> batchKafkaListenerContainerFactory() {
-//        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
-//        factory.setConsumerFactory(consumerFactory());
-//
-//        // ✅ batch 모드
-//        factory.setBatchListener(true);
-//
-//        // 필요하면 concurrency 조절 (파티션 수보다 크지 않게)
-//        factory.setConcurrency(3);
-//
-//        // batch 단위로 커밋
-//        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
-//
-//        return factory;
-//    }
+    /**
+     * Batch ingestion mode: one listener call per poll, committed per batch. Runs {@code batch-concurrency}
+     * consumers as configured; consumers beyond the topic's partition count stay idle, so keep it at or below it.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "ams.feature-stream-engine.ingestion.mode", havingValue = "batch")
+    public ConcurrentKafkaListenerContainerFactory<String, Map<String,Object>> batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Map<String,Object>> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setBatchListener(true);
+        factory.setConcurrency(batchConcurrency);
+        // a failed batch is retried with backoff and never skipped; its offsets stay uncommitted until it succeeds
+        ExponentialBackOff backOff = new ExponentialBackOff(100, 2.0);
+        backOff.setMaxInterval(10_000);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(backOff));
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        return factory;
+    }
 }
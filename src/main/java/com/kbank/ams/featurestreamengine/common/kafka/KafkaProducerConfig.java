@@ -0,0 +1,52 @@
+package com.kbank.ams.featurestreamengine.common.kafka;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+/**
+ * Producer for the scoring result sink (sink.kafka). Records are batched by the producer itself:
+ * {@code linger-ms} and {@code batch-size} trade a little latency for fewer, larger and compressed requests.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ams.feature-stream-engine.sink.kafka.enabled", havingValue = "true")
+public class KafkaProducerConfig {
+    @Value("${ams.feature-stream-engine.bootstrap-servers}")
+    public String bootstrapServers;
+    @Value("${ams.feature-stream-engine.sink.kafka.linger-ms}")
+    public Integer lingerMs;
+    @Value("${ams.feature-stream-engine.sink.kafka.batch-size}")
+    public Integer batchSize;
+    @Value("${ams.feature-stream-engine.sink.kafka.compression-type}")
+    public String compressionType;
+    @Value("${ams.feature-stream-engine.sink.kafka.acks}")
+    public String acks;
+
+    @Bean
+    public ProducerFactory<String, String> producerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        props.put(ProducerConfig.ACKS_CONFIG, acks);
+        // the producer rejects idempotence unless every in-sync replica acknowledges
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "all".equals(acks) || "-1".equals(acks));
+        return new DefaultKafkaProducerFactory<>(props);
+    }
+
+    @Bean
+    public KafkaTemplate<String, String> kafkaTemplate() {
+        return new KafkaTemplate<>(producerFactory());
+    }
+}
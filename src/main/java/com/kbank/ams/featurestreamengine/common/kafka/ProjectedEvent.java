@@ -0,0 +1,45 @@
+package com.kbank.ams.featurestreamengine.common.kafka;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A raw event holding only the fields of its {@link FieldProjection}, released from it once detected.
+ */
+public class ProjectedEvent extends LinkedHashMap<String, Object> {
+    private final transient FieldProjection projection;
+    private transient boolean detected;
+
+    public ProjectedEvent(FieldProjection projection, int initialCapacity) {
+        super(initialCapacity);
+        this.projection = projection;
+    }
+
+    public ProjectedEvent(FieldProjection projection, Map<String, Object> fields) {
+        super(fields);
+        this.projection = projection;
+    }
+
+    public FieldProjection projection() {
+        return projection;
+    }
+
+    /**
+     * Releases the event from its projection; later calls (a retried batch) do nothing. Called by the thread
+     * that detected it.
+     */
+    public void markDetected() {
+        if (detected) return;
+        detected = true;
+        projection.release();
+    }
+
+    /**
+     * Marks every projected event of the batch as detected.
+     */
+    public static void markDetected(Iterable<Map<String, Object>> items) {
+        for (Map<String, Object> item : items) {
+            if (item instanceof ProjectedEvent event) event.markDetected();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.kbank.ams.featurestreamengine.common.kafka;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kbank.ams.featurestreamengine.common.util.JsonUtil;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Streaming deserializer for raw.tx.log that only materializes projected top-level fields.
+ *
+ * Values are typed exactly like an untyped Jackson Map (Integer/Long/BigInteger, Double, String,
+ * Boolean, LinkedHashMap, ArrayList); fields outside the projection are skipped without being built.
+ * Events are {@link ProjectedEvent}s holding the projection they were read with until they are detected.
+ */
+public class RawTxLogDeserializer implements Deserializer<Map<String, Object>> {
+    private final ObjectMapper om;
+    private final JsonFactory jsonFactory;
+    private final Supplier<FieldProjection> projection;
+
+    /**
+     * @param projection the current projection, already {@link FieldProjection#acquire() acquired} for one event
+     */
+    public RawTxLogDeserializer(Supplier<FieldProjection> projection) {
+        this.om = JsonUtil.om;
+        this.jsonFactory = om.getFactory();
+        this.projection = projection;
+    }
+
+    @Override
+    public Map<String, Object> deserialize(String topic, byte[] data) {
+        if (data == null) return null;
+        try (JsonParser p = jsonFactory.createParser(data)) {
+            return read(p);
+        } catch (IOException e) {
+            throw new SerializationException("Can't deserialize data from topic [" + topic + "]", e);
+        }
+    }
+
+    private Map<String, Object> read(JsonParser p) throws IOException {
+        JsonToken token = p.nextToken();
+        if (token == null || token == JsonToken.VALUE_NULL) return null;
+        if (token != JsonToken.START_OBJECT) {
+            throw new SerializationException("Expected a JSON object but got " + token);
+        }
+
+        FieldProjection acquired = projection.get();
+        try {
+            Set<String> fields = acquired.getFields();
+            ProjectedEvent out = new ProjectedEvent(acquired, Math.max(16, fields.size() * 2));
+            String name;
+            while ((name = p.nextFieldName()) != null) {
+                token = p.nextToken();
+                if (fields.contains(name)) {
+                    out.put(name, readValue(p, token));
+                } else {
+                    p.skipChildren();
+                }
+            }
+            return out;
+        } catch (IOException | RuntimeException e) {
+            acquired.release();
+            throw e;
+        }
+    }
+
+    private Object readValue(JsonParser p, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_STRING: return p.getText();
+            case VALUE_NUMBER_INT: return p.getNumberValue();
+            case VALUE_NUMBER_FLOAT: return p.getDoubleValue();
+            case VALUE_TRUE: return Boolean.TRUE;
+            case VALUE_FALSE: return Boolean.FALSE;
+            case VALUE_NULL: return null;
+            default: return om.readValue(p, Object.class);
+        }
+    }
+}
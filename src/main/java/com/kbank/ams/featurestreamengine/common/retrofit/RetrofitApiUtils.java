@@ -3,6 +3,8 @@ package com.kbank.ams.featurestreamengine.common.retrofit;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
 import org.springframework.stereotype.Component;
 import retrofit2.Call;
@@ -18,23 +20,51 @@ import java.util.concurrent.TimeUnit;
 @Component
 public class RetrofitApiUtils {
 
-    private static final OkHttpClient.Builder httpClient = new OkHttpClient.Builder()
+    private static final int MAX_REQUESTS = 256;
+    private static final int MAX_REQUESTS_PER_HOST = 64;
+    private static final int MAX_IDLE_CONNECTIONS = 64;
+
+    // one connection pool + dispatcher for every api; clients with a per-process timeout are derived from it
+    private static final OkHttpClient httpClient = new OkHttpClient.Builder()
             .connectTimeout(1, TimeUnit.SECONDS)
             .readTimeout(1,TimeUnit.SECONDS)
-            .writeTimeout(1,TimeUnit.SECONDS);
+            .writeTimeout(1,TimeUnit.SECONDS)
+            .dispatcher(dispatcher())
+            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, 5, TimeUnit.MINUTES))
+            .build();
 
     private static final Gson gson = new GsonBuilder()
             .setLenient()
             .create();
 
     public static Retrofit initRetrofit(String baseUrl) {
+        return initRetrofit(baseUrl, 0);
+    }
+
+    /**
+     * @param timeoutMs read/write timeout of the calls, instead of the shared client's 1s when positive
+     */
+    public static Retrofit initRetrofit(String baseUrl, long timeoutMs) {
+        OkHttpClient client = timeoutMs > 0
+                ? httpClient.newBuilder()
+                    .readTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                    .writeTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                    .build()
+                : httpClient;
         return new Retrofit.Builder()
                 .baseUrl(baseUrl)
                 .addConverterFactory(GsonConverterFactory.create(gson))
-                .client(httpClient.build())
+                .client(client)
                 .build();
     }
 
+    private static Dispatcher dispatcher() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+        return dispatcher;
+    }
+
     public <T> Optional<T> responseSync(Call<T> call) {
         Response<T> response = null;
 
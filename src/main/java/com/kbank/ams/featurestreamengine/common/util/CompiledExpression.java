@@ -0,0 +1,18 @@
+package com.kbank.ams.featurestreamengine.common.util;
+
+import java.util.Map;
+
+/**
+ * An expression parsed once by {@link ExpressionCompiler}; evaluating it does no parsing.
+ */
+@FunctionalInterface
+public interface CompiledExpression {
+    Object evaluate(Map<String, Object> record);
+
+    /**
+     * Truthiness of the value, as {@link ExpressionEvaluator#matches} interprets a condition's result.
+     */
+    default boolean matches(Map<String, Object> record) {
+        return ExpressionEvaluator.toBoolean(evaluate(record));
+    }
+}
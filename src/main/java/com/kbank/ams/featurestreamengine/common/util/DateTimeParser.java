@@ -0,0 +1,204 @@
+package com.kbank.ams.featurestreamengine.common.util;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.ZoneOffset;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Date/time conversions of {@link ExpressionEvaluator} without exceptions or per-call formatters on the hot path.
+ *
+ * Fixed-width text (the compact {@code dt} of raw.tx.log, ISO instants with second or millisecond precision) is
+ * parsed by hand when every field is in range; anything else goes to {@link Instant#parse} or the pattern's
+ * formatter, so results and exceptions are those of the JDK parsers.
+ */
+final class DateTimeParser {
+    private static final int MAX_CACHED_FORMATS = 256;
+    private static final Map<String, Format> FORMATS = new ConcurrentHashMap<>();
+
+    private DateTimeParser() {
+    }
+
+    /**
+     * The cached format of a {@code TO_LOCAL_DATETIME} pattern.
+     *
+     * @throws IllegalArgumentException if the pattern is invalid, as {@link DateTimeFormatter#ofPattern} does
+     */
+    static Format format(String pattern) {
+        Format format = FORMATS.get(pattern);
+        if (format != null) return format;
+        format = new Format(DateTimeFormatter.ofPattern(pattern), Layout.of(pattern));
+        if (FORMATS.size() < MAX_CACHED_FORMATS) FORMATS.putIfAbsent(pattern, format);
+        return format;
+    }
+
+    /**
+     * The ISO-8601 instant the text is, or null; only text shaped like one reaches {@link Instant#parse}.
+     */
+    static Instant instant(String s) {
+        Instant parsed = fixedWidthInstant(s);
+        if (parsed != null || !mayBeInstant(s)) return parsed;
+        try {
+            return Instant.parse(s);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Epoch millis if the value has 13 or more characters, epoch seconds otherwise.
+     */
+    static Instant epoch(long value) {
+        return value >= 1_000_000_000_000L || value <= -100_000_000_000L
+            ? Instant.ofEpochMilli(value)
+            : Instant.ofEpochSecond(value);
+    }
+
+    /**
+     * A pattern's formatter and, for the fixed-width patterns, its hand parser; {@link #conversion} is the same
+     * function for every use of the pattern, so records can cache what it converted.
+     */
+    static final class Format {
+        private final DateTimeFormatter formatter;
+        private final Layout layout;
+        private final Function<Object, Object> conversion = this::toLocalDateTime;
+
+        private Format(DateTimeFormatter formatter, Layout layout) {
+            this.formatter = formatter;
+            this.layout = layout;
+        }
+
+        Function<Object, Object> conversion() {
+            return conversion;
+        }
+
+        LocalDateTime toLocalDateTime(Object raw) {
+            if (raw == null) return null;
+            if (raw instanceof LocalDateTime ldt) return ldt;
+            if (raw instanceof Instant i) return LocalDateTime.ofInstant(i, ExpressionEvaluator.ZONE);
+            if (raw instanceof String s) {
+                LocalDateTime parsed = layout != null ? layout.parse(s) : null;
+                return parsed != null ? parsed : LocalDateTime.parse(s, formatter);
+            }
+            if (raw instanceof Number n) return LocalDateTime.ofInstant(epoch(n.longValue()), ExpressionEvaluator.ZONE);
+            throw new IllegalArgumentException("TO_LOCAL_DATETIME unsupported type: " + raw.getClass());
+        }
+    }
+
+    /**
+     * Fixed-width patterns parsed by hand; {@code template} is the pattern without quotes, letters standing for digits.
+     */
+    private enum Layout {
+        COMPACT("yyyyMMddHHmmss", "yyyyMMddHHmmss"),
+        COMPACT_MILLIS("yyyyMMddHHmmssSSS", "yyyyMMddHHmmssSSS"),
+        DASHED("yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd HH:mm:ss"),
+        DASHED_MILLIS("yyyy-MM-dd HH:mm:ss.SSS", "yyyy-MM-dd HH:mm:ss.SSS"),
+        ISO_LOCAL("yyyy-MM-dd'T'HH:mm:ss", "yyyy-MM-ddTHH:mm:ss");
+
+        private final String pattern;
+        private final String template;
+        private final int month;
+        private final int day;
+        private final int hour;
+        private final int minute;
+        private final int second;
+        private final int millis;
+
+        Layout(String pattern, String template) {
+            this.pattern = pattern;
+            this.template = template;
+            this.month = template.indexOf("MM");
+            this.day = template.indexOf("dd");
+            this.hour = template.indexOf("HH");
+            this.minute = template.indexOf("mm");
+            this.second = template.indexOf("ss");
+            this.millis = template.indexOf("SSS");
+        }
+
+        static Layout of(String pattern) {
+            for (Layout layout : values()) {
+                if (layout.pattern.equals(pattern)) return layout;
+            }
+            return null;
+        }
+
+        /**
+         * The date-time, or null when the text does not fit the template or a field is out of range (the formatter
+         * then decides: it rejects or resolves it).
+         */
+        LocalDateTime parse(String s) {
+            if (s.length() != template.length()) return null;
+            for (int i = 0; i < s.length(); i++) {
+                char t = template.charAt(i);
+                char c = s.charAt(i);
+                if (Character.isLetter(t) ? c < '0' || c > '9' : c != t) return null;
+            }
+            int y = digits(s, 0, 4);
+            if (y == 0) return null;    // year-of-era 0 does not exist
+            LocalDateTime parsed = dateTime(y, digits(s, month, 2), digits(s, day, 2), digits(s, hour, 2),
+                digits(s, minute, 2), digits(s, second, 2));
+            return parsed != null && millis >= 0 ? parsed.withNano(digits(s, millis, 3) * 1_000_000) : parsed;
+        }
+    }
+
+    /**
+     * {@code yyyy-MM-ddTHH:mm:ssZ} and {@code yyyy-MM-ddTHH:mm:ss.SSSZ}, the forms instants are usually written in.
+     */
+    private static Instant fixedWidthInstant(String s) {
+        int length = s.length();
+        if (length != 20 && length != 24) return null;
+        if (s.charAt(4) != '-' || s.charAt(7) != '-' || (s.charAt(10) | 0x20) != 't' || s.charAt(13) != ':'
+            || s.charAt(16) != ':' || (s.charAt(length - 1) | 0x20) != 'z') {
+            return null;
+        }
+        if (length == 24 && s.charAt(19) != '.') return null;
+        int y = digits(s, 0, 4);
+        int mo = digits(s, 5, 2);
+        int d = digits(s, 8, 2);
+        int h = digits(s, 11, 2);
+        int mi = digits(s, 14, 2);
+        int sec = digits(s, 17, 2);
+        int ms = length == 24 ? digits(s, 20, 3) : 0;
+        if ((y | mo | d | h | mi | sec | ms) < 0) return null;
+        LocalDateTime dateTime = dateTime(y, mo, d, h, mi, sec);
+        return dateTime != null ? Instant.ofEpochSecond(dateTime.toEpochSecond(ZoneOffset.UTC), ms * 1_000_000L) : null;
+    }
+
+    /**
+     * Necessary for {@link Instant#parse}: a date, a {@code T}, then at least {@code HH:mm:ss} and an offset.
+     */
+    private static boolean mayBeInstant(String s) {
+        int t = 0;
+        while (t < s.length() && (s.charAt(t) | 0x20) != 't') t++;
+        return t >= 10 && s.length() >= t + 10 && s.charAt(t - 3) == '-' && s.charAt(t - 6) == '-'
+            && s.charAt(t + 3) == ':' && s.charAt(t + 6) == ':';
+    }
+
+    /**
+     * The date-time if every field is in range (seconds up to 59), otherwise null.
+     */
+    private static LocalDateTime dateTime(int y, int mo, int d, int h, int mi, int s) {
+        if (mo < 1 || mo > 12 || d < 1 || h > 23 || mi > 59 || s > 59) return null;
+        if (d > 28 && d > Month.of(mo).length(Year.isLeap(y))) return null;
+        return LocalDateTime.of(y, mo, d, h, mi, s);
+    }
+
+    /**
+     * The non-negative number in {@code s[from, from + count)}, or -1 if a character is not an ASCII digit.
+     */
+    private static int digits(String s, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,344 @@
+package com.kbank.ams.featurestreamengine.common.util;
+
+import static org.springframework.asm.Opcodes.AALOAD;
+import static org.springframework.asm.Opcodes.ACC_FINAL;
+import static org.springframework.asm.Opcodes.ACC_PRIVATE;
+import static org.springframework.asm.Opcodes.ACC_PUBLIC;
+import static org.springframework.asm.Opcodes.ACC_STATIC;
+import static org.springframework.asm.Opcodes.ACONST_NULL;
+import static org.springframework.asm.Opcodes.ALOAD;
+import static org.springframework.asm.Opcodes.ARETURN;
+import static org.springframework.asm.Opcodes.ASTORE;
+import static org.springframework.asm.Opcodes.CHECKCAST;
+import static org.springframework.asm.Opcodes.DUP;
+import static org.springframework.asm.Opcodes.GETSTATIC;
+import static org.springframework.asm.Opcodes.GOTO;
+import static org.springframework.asm.Opcodes.ICONST_0;
+import static org.springframework.asm.Opcodes.ICONST_1;
+import static org.springframework.asm.Opcodes.IFEQ;
+import static org.springframework.asm.Opcodes.IFGE;
+import static org.springframework.asm.Opcodes.IFGT;
+import static org.springframework.asm.Opcodes.IFLE;
+import static org.springframework.asm.Opcodes.IFLT;
+import static org.springframework.asm.Opcodes.IFNE;
+import static org.springframework.asm.Opcodes.IFNONNULL;
+import static org.springframework.asm.Opcodes.IFNULL;
+import static org.springframework.asm.Opcodes.INVOKEINTERFACE;
+import static org.springframework.asm.Opcodes.INVOKESPECIAL;
+import static org.springframework.asm.Opcodes.INVOKESTATIC;
+import static org.springframework.asm.Opcodes.INVOKEVIRTUAL;
+import static org.springframework.asm.Opcodes.IRETURN;
+import static org.springframework.asm.Opcodes.IXOR;
+import static org.springframework.asm.Opcodes.NEW;
+import static org.springframework.asm.Opcodes.POP;
+import static org.springframework.asm.Opcodes.PUTSTATIC;
+import static org.springframework.asm.Opcodes.RETURN;
+import static org.springframework.asm.Opcodes.V17;
+
+import com.kbank.ams.featurestreamengine.common.util.ExpressionCompiler.AllOf;
+import com.kbank.ams.featurestreamengine.common.util.ExpressionCompiler.AnyOf;
+import com.kbank.ams.featurestreamengine.common.util.ExpressionCompiler.Coalesce;
+import com.kbank.ams.featurestreamengine.common.util.ExpressionCompiler.Compare;
+import com.kbank.ams.featurestreamengine.common.util.ExpressionCompiler.Concat;
+import com.kbank.ams.featurestreamengine.common.util.ExpressionCompiler.Const;
+import com.kbank.ams.featurestreamengine.common.util.ExpressionCompiler.ConstLike;
+import com.kbank.ams.featurestreamengine.common.util.ExpressionCompiler.FieldRef;
+import com.kbank.ams.featurestreamengine.common.util.ExpressionCompiler.If;
+import com.kbank.ams.featurestreamengine.common.util.ExpressionCompiler.IsNull;
+import com.kbank.ams.featurestreamengine.common.util.ExpressionCompiler.Like;
+import com.kbank.ams.featurestreamengine.common.util.ExpressionCompiler.Sum;
+import com.kbank.ams.featurestreamengine.common.util.ExpressionCompiler.Truthy;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Type;
+
+/**
+ * Turns an {@link ExpressionCompiler} tree into a hidden class whose {@code evaluate} / {@code matches} are the
+ * whole tree as straight-line bytecode: no virtual call per node, conditions as primitive booleans, and the
+ * constants (literals, LIKE matchers, field references) in static final fields the JIT folds.
+ *
+ * Nodes without code generation here (TIMEDIFF, TO_LOCAL_DATETIME, syntax errors) stay tree nodes the generated
+ * code calls.
+ */
+@Slf4j
+final class ExpressionClassGenerator {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final String CLASS_NAME = Type.getInternalName(ExpressionClassGenerator.class).replace("ExpressionClassGenerator", "GeneratedExpression");
+    private static final String EVALUATOR = Type.getInternalName(ExpressionEvaluator.class);
+    private static final String COMPILER = Type.getInternalName(ExpressionCompiler.class);
+    private static final String OBJECT = Type.getInternalName(Object.class);
+    private static final String BIG_DECIMAL = Type.getInternalName(BigDecimal.class);
+    private static final String STRING_BUILDER = Type.getInternalName(StringBuilder.class);
+    private static final String EXPRESSION = Type.getInternalName(CompiledExpression.class);
+    private static final String EVALUATE = Type.getMethodDescriptor(Type.getType(Object.class), Type.getType(Map.class));
+    private static final String MATCHES = Type.getMethodDescriptor(Type.BOOLEAN_TYPE, Type.getType(Map.class));
+
+    private final List<Object> constants = new ArrayList<>();
+    private final List<String> constantTypes = new ArrayList<>();
+    private final Map<Object, Integer> constantIndex = new IdentityHashMap<>();
+
+    private ExpressionClassGenerator() {
+    }
+
+    static CompiledExpression generate(CompiledExpression expression) {
+        if (!isTree(expression)) return expression;
+        try {
+            ExpressionClassGenerator generator = new ExpressionClassGenerator();
+            byte[] bytes = generator.classBytes(expression);
+            MethodHandles.Lookup hidden = LOOKUP.defineHiddenClassWithClassData(bytes, generator.constants.toArray(), true);
+            return (CompiledExpression) hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (Throwable e) {
+            log.warn("expression class generation failed, evaluating the tree. expression={}", expression, e);
+            return expression;
+        }
+    }
+
+    private static boolean isTree(CompiledExpression expression) {
+        return expression.getClass().getEnclosingClass() == ExpressionCompiler.class;
+    }
+
+    private byte[] classBytes(CompiledExpression root) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                return OBJECT;    // only values typed as Object meet at branch joins
+            }
+        };
+        cw.visit(V17, ACC_PUBLIC | ACC_FINAL, CLASS_NAME, null, OBJECT, new String[] {EXPRESSION});
+
+        MethodVisitor init = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(ALOAD, 0);
+        init.visitMethodInsn(INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+        init.visitInsn(RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        MethodVisitor evaluate = cw.visitMethod(ACC_PUBLIC, "evaluate", EVALUATE, null, null);
+        evaluate.visitCode();
+        value(evaluate, root);
+        evaluate.visitInsn(ARETURN);
+        evaluate.visitMaxs(0, 0);
+        evaluate.visitEnd();
+
+        MethodVisitor matches = cw.visitMethod(ACC_PUBLIC, "matches", MATCHES, null, null);
+        matches.visitCode();
+        test(matches, root);
+        matches.visitInsn(IRETURN);
+        matches.visitMaxs(0, 0);
+        matches.visitEnd();
+
+        // constants come in as class data: static final fields, filled once
+        MethodVisitor clinit = cw.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+        clinit.visitCode();
+        clinit.visitMethodInsn(INVOKESTATIC, Type.getInternalName(MethodHandles.class), "lookup",
+            Type.getMethodDescriptor(Type.getType(MethodHandles.Lookup.class)), false);
+        clinit.visitLdcInsn("_");
+        clinit.visitLdcInsn(Type.getType(Object[].class));
+        clinit.visitMethodInsn(INVOKESTATIC, Type.getInternalName(MethodHandles.class), "classData",
+            Type.getMethodDescriptor(Type.getType(Object.class), Type.getType(MethodHandles.Lookup.class), Type.getType(String.class),
+                Type.getType(Class.class)), false);
+        clinit.visitTypeInsn(CHECKCAST, Type.getInternalName(Object[].class));
+        clinit.visitVarInsn(ASTORE, 0);
+        for (int i = 0; i < constants.size(); i++) {
+            cw.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, "c" + i, "L" + constantTypes.get(i) + ";", null, null).visitEnd();
+            clinit.visitVarInsn(ALOAD, 0);
+            clinit.visitLdcInsn(i);
+            clinit.visitInsn(AALOAD);
+            clinit.visitTypeInsn(CHECKCAST, constantTypes.get(i));
+            clinit.visitFieldInsn(PUTSTATIC, CLASS_NAME, "c" + i, "L" + constantTypes.get(i) + ";");
+        }
+        clinit.visitInsn(RETURN);
+        clinit.visitMaxs(0, 0);
+        clinit.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /**
+     * Code leaving the node's value on the stack.
+     */
+    private void value(MethodVisitor mv, CompiledExpression node) {
+        if (node instanceof Const c) {
+            if (c.value() == null) {
+                mv.visitInsn(ACONST_NULL);
+            } else {
+                constant(mv, c.value(), OBJECT);
+            }
+        } else if (node instanceof FieldRef) {
+            constant(mv, node, Type.getInternalName(FieldRef.class));
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(FieldRef.class), "evaluate", EVALUATE, false);
+        } else if (node instanceof Sum sum && sum.plus().length < sum.operands().length) {
+            value(mv, sum.operands()[0]);
+            number(mv);
+            for (int i = 0; i < sum.plus().length; i++) {
+                value(mv, sum.operands()[i + 1]);
+                number(mv);
+                mv.visitInsn(sum.plus()[i] ? ICONST_1 : ICONST_0);
+                mv.visitMethodInsn(INVOKESTATIC, EVALUATOR, "sum", "(Ljava/lang/Object;Ljava/lang/Object;Z)Ljava/lang/Object;", false);
+            }
+            toBigDecimal(mv);
+        } else if (node instanceof Concat concat) {
+            mv.visitTypeInsn(NEW, STRING_BUILDER);
+            mv.visitInsn(DUP);
+            mv.visitMethodInsn(INVOKESPECIAL, STRING_BUILDER, "<init>", "()V", false);
+            for (CompiledExpression arg : concat.args()) {
+                value(mv, arg);
+                mv.visitMethodInsn(INVOKESTATIC, COMPILER, "text", "(Ljava/lang/Object;)Ljava/lang/String;", false);
+                mv.visitMethodInsn(INVOKEVIRTUAL, STRING_BUILDER, "append", "(Ljava/lang/String;)L" + STRING_BUILDER + ";", false);
+            }
+            mv.visitMethodInsn(INVOKEVIRTUAL, STRING_BUILDER, "toString", "()Ljava/lang/String;", false);
+        } else if (node instanceof If branch) {
+            Label otherwise = new Label();
+            Label end = new Label();
+            test(mv, branch.condition());
+            mv.visitJumpInsn(IFEQ, otherwise);
+            value(mv, branch.whenTrue());
+            mv.visitJumpInsn(GOTO, end);
+            mv.visitLabel(otherwise);
+            value(mv, branch.whenFalse());
+            mv.visitLabel(end);
+        } else if (node instanceof Coalesce coalesce) {
+            Label end = new Label();
+            CompiledExpression[] values = coalesce.values();
+            for (int i = 0; i < values.length; i++) {
+                value(mv, values[i]);
+                if (i < values.length - 1) {
+                    mv.visitInsn(DUP);
+                    mv.visitJumpInsn(IFNONNULL, end);
+                    mv.visitInsn(POP);
+                }
+            }
+            mv.visitLabel(end);
+        } else if (isCondition(node)) {
+            test(mv, node);
+            mv.visitMethodInsn(INVOKESTATIC, "java/lang/Boolean", "valueOf", "(Z)Ljava/lang/Boolean;", false);
+        } else {
+            constant(mv, node, EXPRESSION);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitMethodInsn(INVOKEINTERFACE, EXPRESSION, "evaluate", EVALUATE, true);
+        }
+    }
+
+    /**
+     * Code leaving the node's truthiness on the stack as an int (0/1).
+     */
+    private void test(MethodVisitor mv, CompiledExpression node) {
+        if (node instanceof Const c) {
+            mv.visitInsn(ExpressionEvaluator.toBoolean(c.value()) ? ICONST_1 : ICONST_0);
+        } else if (node instanceof AnyOf any) {
+            Label matched = new Label();
+            Label end = new Label();
+            for (CompiledExpression part : any.parts()) {
+                test(mv, part);
+                mv.visitJumpInsn(IFNE, matched);
+            }
+            bool(mv, ICONST_0, ICONST_1, matched, end);
+        } else if (node instanceof AllOf all) {
+            Label failed = new Label();
+            Label end = new Label();
+            for (CompiledExpression part : all.parts()) {
+                test(mv, part);
+                mv.visitJumpInsn(IFEQ, failed);
+            }
+            bool(mv, ICONST_1, ICONST_0, failed, end);
+        } else if (node instanceof ConstLike like) {
+            if (like.matcher() == null) {
+                value(mv, like.value());
+                mv.visitInsn(POP);
+                mv.visitInsn(like.negate() ? ICONST_1 : ICONST_0);
+                return;
+            }
+            constant(mv, like.matcher(), Type.getInternalName(LikeMatcher.class));
+            value(mv, like.value());
+            mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(LikeMatcher.class), "matches", "(Ljava/lang/Object;)Z", false);
+            negate(mv, like.negate());
+        } else if (node instanceof Like like) {
+            value(mv, like.value());
+            value(mv, like.pattern());
+            mv.visitInsn(ICONST_1);
+            mv.visitMethodInsn(INVOKESTATIC, EVALUATOR, "like", "(Ljava/lang/Object;Ljava/lang/Object;Z)Z", false);
+            negate(mv, like.negate());
+        } else if (node instanceof Compare compare) {
+            Label failed = new Label();
+            Label end = new Label();
+            value(mv, compare.left());
+            value(mv, compare.right());
+            mv.visitMethodInsn(INVOKESTATIC, EVALUATOR, "compareSmart", "(Ljava/lang/Object;Ljava/lang/Object;)I", false);
+            int jumpIfFailed = switch (compare.op()) {
+                case NE -> IFEQ;
+                case GE -> IFLT;
+                case LE -> IFGT;
+                case EQ -> IFNE;
+                case GT -> IFLE;
+                case LT -> IFGE;
+            };
+            mv.visitJumpInsn(jumpIfFailed, failed);
+            bool(mv, ICONST_1, ICONST_0, failed, end);
+        } else if (node instanceof IsNull isNull) {
+            Label failed = new Label();
+            Label end = new Label();
+            value(mv, isNull.value());
+            mv.visitJumpInsn(isNull.negate() ? IFNULL : IFNONNULL, failed);
+            bool(mv, ICONST_1, ICONST_0, failed, end);
+        } else if (node instanceof Truthy truthy) {
+            value(mv, truthy.value());
+            mv.visitMethodInsn(INVOKESTATIC, EVALUATOR, "toBoolean", "(Ljava/lang/Object;)Z", false);
+        } else {
+            value(mv, node);
+            mv.visitMethodInsn(INVOKESTATIC, EVALUATOR, "toBoolean", "(Ljava/lang/Object;)Z", false);
+        }
+    }
+
+    private static boolean isCondition(CompiledExpression node) {
+        return node instanceof AnyOf || node instanceof AllOf || node instanceof ConstLike || node instanceof Like
+            || node instanceof Compare || node instanceof IsNull || node instanceof Truthy;
+    }
+
+    /**
+     * {@code fallThrough} when control reaches here, {@code jumped} at the label.
+     */
+    private static void bool(MethodVisitor mv, int fallThrough, int jumped, Label label, Label end) {
+        mv.visitInsn(fallThrough);
+        mv.visitJumpInsn(GOTO, end);
+        mv.visitLabel(label);
+        mv.visitInsn(jumped);
+        mv.visitLabel(end);
+    }
+
+    private static void negate(MethodVisitor mv, boolean negate) {
+        if (!negate) return;
+        mv.visitInsn(ICONST_1);
+        mv.visitInsn(IXOR);
+    }
+
+    private static void number(MethodVisitor mv) {
+        mv.visitMethodInsn(INVOKESTATIC, EVALUATOR, "number", "(Ljava/lang/Object;)Ljava/lang/Object;", false);
+    }
+
+    private static void toBigDecimal(MethodVisitor mv) {
+        mv.visitMethodInsn(INVOKESTATIC, EVALUATOR, "toBigDecimal", "(Ljava/lang/Object;)L" + BIG_DECIMAL + ";", false);
+    }
+
+    private void constant(MethodVisitor mv, Object value, String type) {
+        Integer index = constantIndex.get(value);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantTypes.add(type);
+            constantIndex.put(value, index);
+        }
+        mv.visitFieldInsn(GETSTATIC, CLASS_NAME, "c" + index, "L" + constantTypes.get(index) + ";");
+    }
+}
@@ -0,0 +1,474 @@
+package com.kbank.ams.featurestreamengine.common.util;
+
+import static com.kbank.ams.featurestreamengine.common.util.ExpressionEvaluator.compareSmart;
+import static com.kbank.ams.featurestreamengine.common.util.ExpressionEvaluator.extractCallArgs;
+import static com.kbank.ams.featurestreamengine.common.util.ExpressionEvaluator.indexOfTopLevelComparator;
+import static com.kbank.ams.featurestreamengine.common.util.ExpressionEvaluator.indexOfTopLevelWordOp;
+import static com.kbank.ams.featurestreamengine.common.util.ExpressionEvaluator.isNumber;
+import static com.kbank.ams.featurestreamengine.common.util.ExpressionEvaluator.isQuotedString;
+import static com.kbank.ams.featurestreamengine.common.util.ExpressionEvaluator.like;
+import static com.kbank.ams.featurestreamengine.common.util.ExpressionEvaluator.number;
+import static com.kbank.ams.featurestreamengine.common.util.ExpressionEvaluator.splitArgsTopLevel;
+import static com.kbank.ams.featurestreamengine.common.util.ExpressionEvaluator.splitTopLevelByPlusMinus;
+import static com.kbank.ams.featurestreamengine.common.util.ExpressionEvaluator.splitTopLevelByWord;
+import static com.kbank.ams.featurestreamengine.common.util.ExpressionEvaluator.stripOuterParens;
+import static com.kbank.ams.featurestreamengine.common.util.ExpressionEvaluator.sum;
+import static com.kbank.ams.featurestreamengine.common.util.ExpressionEvaluator.toBigDecimal;
+import static com.kbank.ams.featurestreamengine.common.util.ExpressionEvaluator.toBoolean;
+import static com.kbank.ams.featurestreamengine.common.util.ExpressionEvaluator.unquote;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Compiles {@link ExpressionEvaluator} expressions once into a tree of nodes, so evaluating them per event
+ * does no string splitting, upper-casing or regex matching.
+ *
+ * Parsing follows the interpreter step by step (same split helpers, same precedence and fallbacks), so a compiled
+ * expression yields what {@link ExpressionEvaluator#evaluate} / {@link ExpressionEvaluator#matches} would. Syntax
+ * errors the interpreter raises while evaluating are raised when the compiled node is evaluated, not at compile
+ * time, so a broken branch that is never taken still does not fail.
+ *
+ * A tree can further be {@link #generate generated} into a class of its own.
+ */
+public final class ExpressionCompiler {
+    private static final CompiledExpression TRUE = new Const(Boolean.TRUE);
+    private static final Function<Object, Object> TO_INSTANT = ExpressionEvaluator::toInstant;
+
+    private ExpressionCompiler() {
+    }
+
+    /**
+     * A value expression, as {@link ExpressionEvaluator#evaluate(String, Map)} interprets it.
+     */
+    public static CompiledExpression compile(String expr) {
+        final String trimmed = expr.trim();
+
+        // ── 1) Top-level arithmetic (+ / -) ──
+        List<String> terms = new ArrayList<>();
+        List<Character> ops = new ArrayList<>();
+        splitTopLevelByPlusMinus(trimmed, terms, ops);
+
+        if (terms.size() > 1) {
+            boolean[] plus = new boolean[ops.size()];
+            for (int i = 0; i < plus.length; i++) plus[i] = ops.get(i) == '+';
+            return new Sum(atoms(terms), plus);
+        }
+
+        // ── 2) Functions ──
+        try {
+            if (trimmed.regionMatches(true, 0, "CONCAT(", 0, 7)) {
+                return new Concat(atoms(splitArgsTopLevel(extractCallArgs(trimmed, "CONCAT"))));
+            }
+
+            if (trimmed.regionMatches(true, 0, "TIMEDIFF(", 0, 9)) {
+                List<String> args = splitArgsTopLevel(extractCallArgs(trimmed, "TIMEDIFF"));
+                if (args.size() != 3) return fail(new IllegalArgumentException("TIMEDIFF(dt1, dt2, UNIT)"));
+                CompiledExpression unit = atom(args.get(2));
+                ChronoUnit constUnit = unit instanceof Const c ? chronoUnitOrNull(c.value) : null;
+                return new TimeDiff(atom(args.get(0)), atom(args.get(1)), unit, constUnit);
+            }
+
+            if (trimmed.regionMatches(true, 0, "TO_LOCAL_DATETIME(", 0, 18)) {
+                List<String> args = splitArgsTopLevel(extractCallArgs(trimmed, "TO_LOCAL_DATETIME"));
+                if (args.size() != 2) return fail(new IllegalArgumentException("TO_LOCAL_DATETIME(value, 'pattern')"));
+                CompiledExpression pattern = atom(args.get(1));
+                DateTimeParser.Format constFormat = pattern instanceof Const c ? formatOrNull(c.value) : null;
+                return new ToLocalDateTime(atom(args.get(0)), pattern, constFormat);
+            }
+
+            if (trimmed.regionMatches(true, 0, "IF(", 0, 3)) {
+                List<String> args = splitArgsTopLevel(extractCallArgs(trimmed, "IF"));
+                if (args.size() != 3) return fail(new IllegalArgumentException("IF(condition, trueValue, falseValue)"));
+                return new If(condition(args.get(0).trim()), atom(args.get(1).trim()), atom(args.get(2).trim()));
+            }
+
+            if (trimmed.regionMatches(true, 0, "NVL(", 0, 4)) {
+                List<String> args = splitArgsTopLevel(extractCallArgs(trimmed, "NVL"));
+                if (args.size() != 2) return fail(new IllegalArgumentException("NVL(value, defaultValue)"));
+                return new Coalesce(atoms(args));
+            }
+
+            if (trimmed.regionMatches(true, 0, "COALESCE(", 0, 9)) {
+                List<String> args = splitArgsTopLevel(extractCallArgs(trimmed, "COALESCE"));
+                if (args.isEmpty()) return fail(new IllegalArgumentException("COALESCE requires at least one argument"));
+                return new Coalesce(atoms(args));
+            }
+        } catch (IllegalArgumentException e) {
+            return fail(e);    // call syntax error
+        }
+
+        return fail(new UnsupportedOperationException("Unsupported expression: " + trimmed));
+    }
+
+    /**
+     * A condition, as {@link ExpressionEvaluator#matches(String, Map)} interprets it; null or blank always matches.
+     */
+    public static CompiledExpression compileCondition(String conditionExpr) {
+        if (conditionExpr == null || conditionExpr.isBlank()) return TRUE;
+        return condition(conditionExpr);
+    }
+
+    /**
+     * Matches when all the conditions match, checked in order.
+     */
+    public static CompiledExpression allOf(List<CompiledExpression> conditions) {
+        return conditions.isEmpty() ? TRUE : new AllOf(conditions.toArray(new CompiledExpression[0]));
+    }
+
+    /**
+     * The expression as a class generated for it, which the JIT can inline into straight-line code; parts it
+     * does not generate code for are evaluated by their tree node. Returns the expression itself when it is not a
+     * tree of this compiler or the class cannot be defined.
+     */
+    public static CompiledExpression generate(CompiledExpression expression) {
+        return ExpressionClassGenerator.generate(expression);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────────
+    // Conditions (AND / OR / LIKE / comparisons)
+    // ─────────────────────────────────────────────────────────────────────────────
+
+    private static CompiledExpression condition(String condExpr) {
+        final String cond = stripOuterParens(condExpr.trim());
+
+        List<String> orParts = splitTopLevelByWord(cond, "OR");
+        if (orParts.size() > 1) {
+            return new AnyOf(orParts.stream().map(p -> condition(p.trim())).toArray(CompiledExpression[]::new));
+        }
+
+        List<String> andParts = splitTopLevelByWord(cond, "AND");
+        if (andParts.size() > 1) {
+            return new AllOf(andParts.stream().map(p -> condition(p.trim())).toArray(CompiledExpression[]::new));
+        }
+
+        // NOT LIKE (must be before LIKE)
+        int idxNotLike = indexOfTopLevelWordOp(cond, "NOT LIKE");
+        if (idxNotLike > 0) {
+            return likeNode(atom(cond.substring(0, idxNotLike)), atom(cond.substring(idxNotLike + "NOT LIKE".length())), true);
+        }
+
+        int idxLike = indexOfTopLevelWordOp(cond, "LIKE");
+        if (idxLike > 0) {
+            return likeNode(atom(cond.substring(0, idxLike)), atom(cond.substring(idxLike + "LIKE".length())), false);
+        }
+
+        for (Comparison op : Comparison.values()) {
+            int idx = indexOfTopLevelComparator(cond, op.symbol);
+            if (idx > 0) {
+                return new Compare(atom(cond.substring(0, idx)), atom(cond.substring(idx + op.symbol.length())), op);
+            }
+        }
+
+        // IS NOT NULL (must be before IS NULL)
+        int idxIsNotNull = indexOfTopLevelWordOp(cond, "IS NOT NULL");
+        if (idxIsNotNull > 0) {
+            return new IsNull(atom(cond.substring(0, idxIsNotNull)), true);
+        }
+
+        int idxIsNull = indexOfTopLevelWordOp(cond, "IS NULL");
+        if (idxIsNull > 0) {
+            return new IsNull(atom(cond.substring(0, idxIsNull)), false);
+        }
+
+        return new Truthy(atom(cond));
+    }
+
+    /**
+     * LIKE with a literal pattern compiles the pattern once.
+     */
+    private static CompiledExpression likeNode(CompiledExpression left, CompiledExpression right, boolean negate) {
+        if (right instanceof Const c) {
+            LikeMatcher matcher = c.value != null ? likeMatcher(String.valueOf(c.value)) : null;
+            if (c.value == null || matcher != null) return new ConstLike(left, matcher, negate);
+        }
+        return new Like(left, right, negate);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────────
+    // Atoms: literals, field references, nested functions
+    // ─────────────────────────────────────────────────────────────────────────────
+
+    private static CompiledExpression atom(String expr) {
+        expr = expr.trim();
+
+        if (isQuotedString(expr)) return new Const(unquote(expr));
+        if (isNumber(expr)) return new Const(new BigDecimal(expr));
+        if (expr.startsWith(":")) return new FieldRef(expr.substring(1));
+
+        String u = expr.toUpperCase();
+        if (u.startsWith("CONCAT(") || u.startsWith("TIMEDIFF(") || u.startsWith("TO_LOCAL_DATETIME(") || u.startsWith("IF(") || u.startsWith("NVL(") || u.startsWith("COALESCE(")) {
+            return compile(expr);
+        }
+
+        return new Const(null);
+    }
+
+    private static CompiledExpression[] atoms(List<String> exprs) {
+        return exprs.stream().map(ExpressionCompiler::atom).toArray(CompiledExpression[]::new);
+    }
+
+    private static CompiledExpression fail(RuntimeException e) {
+        return record -> {
+            throw e;
+        };
+    }
+
+    private static ChronoUnit chronoUnit(String unitStr) {
+        return switch (unitStr) {
+            case "SECOND", "SECONDS" -> ChronoUnit.SECONDS;
+            case "MINUTE", "MINUTES" -> ChronoUnit.MINUTES;
+            case "HOUR", "HOURS" -> ChronoUnit.HOURS;
+            case "DAY", "DAYS" -> ChronoUnit.DAYS;
+            default -> throw new IllegalArgumentException("Unsupported unit: " + unitStr);
+        };
+    }
+
+    private static ChronoUnit chronoUnitOrNull(Object unit) {
+        try {
+            return chronoUnit(String.valueOf(unit).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;    // fails on evaluation, after the operands
+        }
+    }
+
+    private static DateTimeParser.Format formatOrNull(Object pattern) {
+        try {
+            return DateTimeParser.format(String.valueOf(pattern));
+        } catch (IllegalArgumentException e) {
+            return null;    // fails on evaluation, after the value
+        }
+    }
+
+    private static LikeMatcher likeMatcher(String pattern) {
+        if (isQuotedString(pattern)) pattern = unquote(pattern);
+        try {
+            return LikeMatcher.compile(pattern);
+        } catch (IllegalArgumentException e) {
+            return null;    // fails on evaluation, like the interpreter
+        }
+    }
+
+    /**
+     * The operand passed through {@code conversion}; a field of an {@link IndexedRecord} is converted once per
+     * record, so expressions reading the same timestamp share the parsed value.
+     */
+    private static Object converted(CompiledExpression operand, Function<Object, Object> conversion,
+        Map<String, Object> record) {
+        if (operand instanceof FieldRef field && record instanceof IndexedRecord indexed) {
+            int slot = field.slot(indexed);
+            if (slot >= 0) return indexed.converted(slot, conversion);
+        }
+        return conversion.apply(operand.evaluate(record));
+    }
+
+    // ── helpers shared with generated classes ──
+
+    static String text(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    static boolean likeMatches(Object value, LikeMatcher matcher) {
+        return matcher != null && matcher.matches(value);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────────
+    // Nodes; condition nodes evaluate to Boolean
+    // ─────────────────────────────────────────────────────────────────────────────
+
+    record Const(Object value) implements CompiledExpression {
+        @Override
+        public Object evaluate(Map<String, Object> record) {
+            return value;
+        }
+    }
+
+    /**
+     * {@code :name}; on {@link IndexedRecord}s read by slot, resolved once per layout.
+     */
+    static final class FieldRef implements CompiledExpression {
+        private final String name;
+        private volatile Binding binding;
+
+        FieldRef(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Object evaluate(Map<String, Object> record) {
+            if (record instanceof IndexedRecord indexed) {
+                int slot = slot(indexed);
+                if (slot >= 0) return indexed.get(slot);
+            }
+            return record.getOrDefault(name, null);
+        }
+
+        int slot(IndexedRecord record) {
+            Object layout = record.layout();
+            Binding b = binding;
+            if (b == null || b.layout != layout) {
+                b = new Binding(layout, record.slot(name));
+                binding = b;
+            }
+            return b.slot;
+        }
+
+        private record Binding(Object layout, int slot) {
+        }
+    }
+
+    record Sum(CompiledExpression[] operands, boolean[] plus) implements CompiledExpression {
+        @Override
+        public Object evaluate(Map<String, Object> record) {
+            Object acc = number(operands[0].evaluate(record));
+            for (int i = 0; i < plus.length; i++) {
+                Object rhs = number(operands[Objects.checkIndex(i + 1, operands.length)].evaluate(record));
+                acc = sum(acc, rhs, plus[i]);
+            }
+            return toBigDecimal(acc);
+        }
+    }
+
+    record Concat(CompiledExpression[] args) implements CompiledExpression {
+        @Override
+        public Object evaluate(Map<String, Object> record) {
+            StringBuilder sb = new StringBuilder();
+            for (CompiledExpression arg : args) {
+                sb.append(text(arg.evaluate(record)));
+            }
+            return sb.toString();
+        }
+    }
+
+    record TimeDiff(CompiledExpression dt1, CompiledExpression dt2, CompiledExpression unit, ChronoUnit constUnit)
+        implements CompiledExpression {
+        @Override
+        public Object evaluate(Map<String, Object> record) {
+            Instant t1 = (Instant) converted(dt1, TO_INSTANT, record);
+            Instant t2 = (Instant) converted(dt2, TO_INSTANT, record);
+            ChronoUnit u = constUnit != null ? constUnit : chronoUnit(String.valueOf(unit.evaluate(record)).toUpperCase());
+            return (t1 != null && t2 != null) ? u.between(t2, t1) : null;
+        }
+    }
+
+    record ToLocalDateTime(CompiledExpression value, CompiledExpression pattern, DateTimeParser.Format constFormat)
+        implements CompiledExpression {
+        @Override
+        public Object evaluate(Map<String, Object> record) {
+            if (constFormat != null) return converted(value, constFormat.conversion(), record);
+            Object raw = value.evaluate(record);
+            return DateTimeParser.format(String.valueOf(pattern.evaluate(record))).toLocalDateTime(raw);
+        }
+    }
+
+    record If(CompiledExpression condition, CompiledExpression whenTrue, CompiledExpression whenFalse)
+        implements CompiledExpression {
+        @Override
+        public Object evaluate(Map<String, Object> record) {
+            return toBoolean(condition.evaluate(record)) ? whenTrue.evaluate(record) : whenFalse.evaluate(record);
+        }
+    }
+
+    /**
+     * COALESCE, and NVL as its two-argument form.
+     */
+    record Coalesce(CompiledExpression[] values) implements CompiledExpression {
+        @Override
+        public Object evaluate(Map<String, Object> record) {
+            for (CompiledExpression value : values) {
+                Object v = value.evaluate(record);
+                if (v != null) return v;
+            }
+            return null;
+        }
+    }
+
+    record AnyOf(CompiledExpression[] parts) implements CompiledExpression {
+        @Override
+        public Object evaluate(Map<String, Object> record) {
+            for (CompiledExpression part : parts) {
+                if (toBoolean(part.evaluate(record))) return Boolean.TRUE;
+            }
+            return Boolean.FALSE;
+        }
+    }
+
+    record AllOf(CompiledExpression[] parts) implements CompiledExpression {
+        @Override
+        public Object evaluate(Map<String, Object> record) {
+            for (CompiledExpression part : parts) {
+                if (!toBoolean(part.evaluate(record))) return Boolean.FALSE;
+            }
+            return Boolean.TRUE;
+        }
+    }
+
+    /**
+     * LIKE against a literal pattern; a null pattern matches nothing.
+     */
+    record ConstLike(CompiledExpression value, LikeMatcher matcher, boolean negate) implements CompiledExpression {
+        @Override
+        public Object evaluate(Map<String, Object> record) {
+            return negate != likeMatches(value.evaluate(record), matcher);
+        }
+    }
+
+    record Like(CompiledExpression value, CompiledExpression pattern, boolean negate) implements CompiledExpression {
+        @Override
+        public Object evaluate(Map<String, Object> record) {
+            Object v = value.evaluate(record);
+            return negate != like(v, pattern.evaluate(record), true);
+        }
+    }
+
+    /**
+     * Comparators in the order the interpreter looks for them.
+     */
+    enum Comparison {
+        NE("!="), GE(">="), LE("<="), EQ("="), GT(">"), LT("<");
+
+        final String symbol;
+
+        Comparison(String symbol) {
+            this.symbol = symbol;
+        }
+
+        boolean test(int cmp) {
+            return switch (this) {
+                case NE -> cmp != 0;
+                case GE -> cmp >= 0;
+                case LE -> cmp <= 0;
+                case EQ -> cmp == 0;
+                case GT -> cmp > 0;
+                case LT -> cmp < 0;
+            };
+        }
+    }
+
+    record Compare(CompiledExpression left, CompiledExpression right, Comparison op) implements CompiledExpression {
+        @Override
+        public Object evaluate(Map<String, Object> record) {
+            return op.test(compareSmart(left.evaluate(record), right.evaluate(record)));
+        }
+    }
+
+    record IsNull(CompiledExpression value, boolean negate) implements CompiledExpression {
+        @Override
+        public Object evaluate(Map<String, Object> record) {
+            return negate != (value.evaluate(record) == null);
+        }
+    }
+
+    record Truthy(CompiledExpression value) implements CompiledExpression {
+        @Override
+        public Object evaluate(Map<String, Object> record) {
+            return toBoolean(value.evaluate(record));
+        }
+    }
+}
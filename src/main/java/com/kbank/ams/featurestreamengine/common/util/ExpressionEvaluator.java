@@ -6,7 +6,6 @@ import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
@@ -15,6 +14,9 @@ import java.util.Map;
 /**
  * Lightweight expression evaluator for Map-based records.
  *
+ * Parses the expression on every call; flows evaluate {@link ExpressionCompiler compiled} expressions instead,
+ * which yield the same results.
+ *
  * Supported:
  * - Arithmetic: +, - (top-level only; handles unary +/-)
  * - Functions: CONCAT, TIMEDIFF, TO_LOCAL_DATETIME, IF
@@ -26,7 +28,7 @@ import java.util.Map;
  * - Comparator attempts numeric and Instant comparisons before string compare
  */
 public class ExpressionEvaluator {
-    private static final ZoneId ZONE = ZoneId.of("Asia/Seoul");
+    static final ZoneId ZONE = ZoneId.of("Asia/Seoul");
 
     public static Object evaluate(String expr, Map<String, Object> record) {
         expr = expr.trim();
@@ -37,12 +39,12 @@ public class ExpressionEvaluator {
         splitTopLevelByPlusMinus(expr, terms, ops);
 
         if (terms.size() > 1) {
-            BigDecimal acc = toBigDecimal(resolveAtomicOrFuncValue(terms.get(0), record));
+            Object acc = number(resolveAtomicOrFuncValue(terms.get(0), record));
             for (int i = 0; i < ops.size(); i++) {
-                BigDecimal rhs = toBigDecimal(resolveAtomicOrFuncValue(terms.get(i + 1), record));
-                acc = (ops.get(i) == '+') ? acc.add(rhs) : acc.subtract(rhs);
+                Object rhs = number(resolveAtomicOrFuncValue(terms.get(i + 1), record));
+                acc = sum(acc, rhs, ops.get(i) == '+');
             }
-            return acc;
+            return toBigDecimal(acc);
         }
 
         // ── 2) Functions ──
@@ -78,20 +80,7 @@ public class ExpressionEvaluator {
             if (args.size() != 2) throw new IllegalArgumentException("TO_LOCAL_DATETIME(value, 'pattern')");
             Object raw = resolveAtomicOrFuncValue(args.get(0), record);
             String pattern = String.valueOf(resolveAtomicOrFuncValue(args.get(1), record));
-            DateTimeFormatter fmt = DateTimeFormatter.ofPattern(pattern);
-
-            if (raw == null) return null;
-            if (raw instanceof LocalDateTime ldt) return ldt;
-            if (raw instanceof Instant i) return LocalDateTime.ofInstant(i, ZONE);
-            if (raw instanceof String s) return LocalDateTime.parse(s, fmt);
-            if (raw instanceof Number n) {
-                long v = n.longValue();
-                Instant i = (String.valueOf(v).length() >= 13)
-                        ? Instant.ofEpochMilli(v)
-                        : Instant.ofEpochSecond(v);
-                return LocalDateTime.ofInstant(i, ZONE);
-            }
-            throw new IllegalArgumentException("TO_LOCAL_DATETIME unsupported type: " + raw.getClass());
+            return DateTimeParser.format(pattern).toLocalDateTime(raw);
         }
 
         if (expr.regionMatches(true, 0, "IF(", 0, 3)) {
@@ -275,7 +264,7 @@ public class ExpressionEvaluator {
     /**
      * Split expression by top-level + / -, supporting unary +/-.
      */
-    private static void splitTopLevelByPlusMinus(String expr, List<String> terms, List<Character> ops) {
+    static void splitTopLevelByPlusMinus(String expr, List<String> terms, List<Character> ops) {
         int depth = 0;
         boolean inStr = false;
         char prev = 0;
@@ -325,14 +314,14 @@ public class ExpressionEvaluator {
         if (!last.isEmpty()) terms.add(last);
     }
 
-    private static String extractCallArgs(String expr, String name) {
+    static String extractCallArgs(String expr, String name) {
         String prefix = name + "(";
         if (!expr.regionMatches(true, 0, prefix, 0, prefix.length()) || !expr.endsWith(")"))
             throw new IllegalArgumentException("Call syntax error: " + expr);
         return expr.substring(prefix.length(), expr.length() - 1);
     }
 
-    private static List<String> splitArgsTopLevel(String s) {
+    static List<String> splitArgsTopLevel(String s) {
         List<String> args = new ArrayList<>();
         int depth = 0;
         boolean inStr = false;
@@ -373,7 +362,7 @@ public class ExpressionEvaluator {
         return args;
     }
 
-    private static List<String> splitTopLevelByWord(String s, String token) {
+    static List<String> splitTopLevelByWord(String s, String token) {
         List<String> parts = new ArrayList<>();
         int depth = 0;
         boolean inStr = false;
@@ -422,7 +411,7 @@ public class ExpressionEvaluator {
         return !(Character.isLetterOrDigit(ch) || ch == '_');
     }
 
-    private static String stripOuterParens(String s) {
+    static String stripOuterParens(String s) {
         s = s.trim();
         if (s.length() >= 2 && s.charAt(0) == '(' && s.charAt(s.length() - 1) == ')') {
             int depth = 0;
@@ -448,7 +437,7 @@ public class ExpressionEvaluator {
         return s;
     }
 
-    private static int indexOfTopLevelComparator(String s, String op) {
+    static int indexOfTopLevelComparator(String s, String op) {
         int depth = 0;
         boolean inStr = false;
         char prev = 0;
@@ -477,7 +466,7 @@ public class ExpressionEvaluator {
         return -1;
     }
 
-    private static int indexOfTopLevelWordOp(String s, String opWord) {
+    static int indexOfTopLevelWordOp(String s, String opWord) {
         int depth = 0;
         boolean inStr = false;
         char prev = 0;
@@ -516,7 +505,7 @@ public class ExpressionEvaluator {
     // LIKE support
     // ─────────────────────────────────────────────────────────────────────────────
 
-    private static boolean like(Object value, Object patternObj, boolean caseInsensitive) {
+    static boolean like(Object value, Object patternObj, boolean caseInsensitive) {
         if (value == null || patternObj == null) return false;
 
         String text = String.valueOf(value);
@@ -524,13 +513,9 @@ public class ExpressionEvaluator {
 
         if (isQuotedString(pattern)) pattern = unquote(pattern);
 
-        String regex = sqlLikeToRegex(pattern);
+        if (caseInsensitive) return LikeMatcher.matches(text, pattern);
 
-        int flags = caseInsensitive
-                ? java.util.regex.Pattern.CASE_INSENSITIVE | java.util.regex.Pattern.UNICODE_CASE
-                : 0;
-
-        return java.util.regex.Pattern.compile(regex, flags).matcher(text).matches();
+        return java.util.regex.Pattern.compile(sqlLikeToRegex(pattern)).matcher(text).matches();
     }
 
     /**
@@ -539,7 +524,7 @@ public class ExpressionEvaluator {
      * - _ => .
      * - \% and \_ are treated as literals
      */
-    private static String sqlLikeToRegex(String likePattern) {
+    static String sqlLikeToRegex(String likePattern) {
         StringBuilder sb = new StringBuilder();
         sb.append("^");
         boolean escape = false;
@@ -572,50 +557,58 @@ public class ExpressionEvaluator {
     // Type conversion helpers
     // ─────────────────────────────────────────────────────────────────────────────
 
-    private static boolean isQuotedString(String s) {
+    static boolean isQuotedString(String s) {
         return s.length() >= 2 && s.charAt(0) == '\'' && s.charAt(s.length() - 1) == '\'';
     }
 
-    private static String unquote(String s) {
+    static String unquote(String s) {
         return s.substring(1, s.length() - 1).replace("\\'", "'");
     }
 
-    private static boolean isNumber(String s) {
-        return s.matches("[+-]?\\d+(?:\\.\\d+)?");
+    /**
+     * {@code [+-]?\d+(?:\.\d+)?}, scanned rather than matched since it runs on every string compared.
+     */
+    static boolean isNumber(String s) {
+        int i = !s.isEmpty() && (s.charAt(0) == '+' || s.charAt(0) == '-') ? 1 : 0;
+        int digits = skipDigits(s, i);
+        if (digits == i) return false;
+        if (digits == s.length()) return true;
+        return s.charAt(digits) == '.' && skipDigits(s, digits + 1) == s.length() && digits + 1 < s.length();
+    }
+
+    private static int skipDigits(String s, int from) {
+        int i = from;
+        while (i < s.length() && s.charAt(i) >= '0' && s.charAt(i) <= '9') i++;
+        return i;
     }
 
-    private static BigDecimal toBigDecimal(Object v) {
+    static BigDecimal toBigDecimal(Object v) {
         if (v == null) return BigDecimal.ZERO;
         if (v instanceof BigDecimal bd) return bd;
+        if (v instanceof Long || v instanceof Integer || v instanceof Short || v instanceof Byte) {
+            return BigDecimal.valueOf(((Number) v).longValue());
+        }
         if (v instanceof Number n) return new BigDecimal(n.toString());
         if (v instanceof String s && isNumber(s)) return new BigDecimal(s);
         throw new IllegalArgumentException("Not a number: " + v);
     }
 
-    private static Instant toInstant(Object v) {
+    static Instant toInstant(Object v) {
         if (v == null) return null;
         if (v instanceof Instant i) return i;
         if (v instanceof LocalDateTime ldt) return ldt.atZone(ZONE).toInstant();
         if (v instanceof ZonedDateTime zdt) return zdt.toInstant();
         if (v instanceof OffsetDateTime odt) return odt.toInstant();
 
-        if (v instanceof Number n) {
-            long val = n.longValue();
-            return (String.valueOf(val).length() >= 13)
-                    ? Instant.ofEpochMilli(val)
-                    : Instant.ofEpochSecond(val);
-        }
+        if (v instanceof Number n) return DateTimeParser.epoch(n.longValue());
 
         if (v instanceof String s) {
-            // ISO-8601 Instant
-            try { return Instant.parse(s); } catch (Exception ignore) {}
+            // ISO-8601 Instant, parsed only if it is shaped like one
+            Instant parsed = DateTimeParser.instant(s);
+            if (parsed != null) return parsed;
             // epoch seconds/millis as string
-            if (isNumber(s)) {
-                long val = new BigDecimal(s).longValue();
-                return (String.valueOf(val).length() >= 13)
-                        ? Instant.ofEpochMilli(val)
-                        : Instant.ofEpochSecond(val);
-            }
+            if (isLong(s)) return DateTimeParser.epoch(Long.parseLong(s));
+            if (isNumber(s)) return DateTimeParser.epoch(new BigDecimal(s).longValue());
         }
 
         return null;
@@ -628,10 +621,14 @@ public class ExpressionEvaluator {
      * - instant comparison if both convertible to Instant
      * - otherwise string compare
      */
-    private static int compareSmart(Object a, Object b) {
+    static int compareSmart(Object a, Object b) {
         if (a == null || b == null) return (a == b) ? 0 : (a == null ? -1 : 1);
 
-        // numeric
+        // numeric: integral values as longs, finite doubles as doubles, anything else as BigDecimal
+        if (isLong(a) && isLong(b)) return Long.compare(longValue(a), longValue(b));
+        if (a instanceof Double x && b instanceof Double y && Double.isFinite(x) && Double.isFinite(y)) {
+            return x < y ? -1 : (x > y ? 1 : 0);
+        }
         BigDecimal na = tryBigDecimal(a);
         BigDecimal nb = tryBigDecimal(b);
         if (na != null && nb != null) return na.compareTo(nb);
@@ -652,7 +649,56 @@ public class ExpressionEvaluator {
         return null;
     }
 
-    private static boolean toBoolean(Object v) {
+    // ─────────────────────────────────────────────────────────────────────────────
+    // Arithmetic
+    // Terms that are integral (null as 0) are added as longs, and BigDecimal is only built for fractional terms or
+    // on overflow. The result is the same BigDecimal, scale included, as adding them all as BigDecimals.
+    // ─────────────────────────────────────────────────────────────────────────────
+
+    /**
+     * An arithmetic term as {@link #sum} takes it: itself if it adds as a long, otherwise its BigDecimal.
+     *
+     * @throws IllegalArgumentException if it is not a number, as {@link #toBigDecimal} does
+     */
+    static Object number(Object v) {
+        return isLong(v) ? v : toBigDecimal(v);
+    }
+
+    /**
+     * {@code a + b} or {@code a - b} of two {@link #number} terms, as a Long while it fits, otherwise a BigDecimal.
+     */
+    static Object sum(Object a, Object b, boolean plus) {
+        if (isLong(a) && isLong(b)) {
+            long x = longValue(a);
+            long y = longValue(b);
+            long r = plus ? x + y : x - y;
+            // overflow checks of Math.addExact / subtractExact
+            if (plus ? ((x ^ r) & (y ^ r)) >= 0 : ((x ^ y) & (x ^ r)) >= 0) return r;
+        }
+        return plus ? toBigDecimal(a).add(toBigDecimal(b)) : toBigDecimal(a).subtract(toBigDecimal(b));
+    }
+
+    /**
+     * Integral boxes, scale-0 BigDecimals and integer strings of up to 18 digits; their BigDecimals all have scale 0.
+     */
+    private static boolean isLong(Object v) {
+        if (v == null || v instanceof Long || v instanceof Integer || v instanceof Short || v instanceof Byte) return true;
+        if (v instanceof BigDecimal bd) return bd.scale() == 0 && bd.precision() <= 18;
+        if (v instanceof String s) {
+            int sign = !s.isEmpty() && (s.charAt(0) == '+' || s.charAt(0) == '-') ? 1 : 0;
+            int end = skipDigits(s, sign);
+            return end == s.length() && end > sign && end - sign <= 18;
+        }
+        return false;
+    }
+
+    private static long longValue(Object v) {
+        if (v == null) return 0;
+        if (v instanceof String s) return Long.parseLong(s);
+        return ((Number) v).longValue();
+    }
+
+    static boolean toBoolean(Object v) {
         if (v == null) return false;
         if (v instanceof Boolean b) return b;
         if (v instanceof Number n) return n.doubleValue() != 0;
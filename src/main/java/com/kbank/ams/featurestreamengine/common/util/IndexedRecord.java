@@ -0,0 +1,23 @@
+package com.kbank.ams.featurestreamengine.common.util;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A record whose fields can also be read by slot; slots are only valid for records with the same {@link #layout()}.
+ */
+public interface IndexedRecord extends Map<String, Object> {
+    Object layout();
+
+    /**
+     * Slot of the field in this layout, or -1.
+     */
+    int slot(String name);
+
+    Object get(int slot);
+
+    /**
+     * The slot's value passed through {@code conversion}; converted once and reused until the slot is written again.
+     */
+    Object converted(int slot, Function<Object, Object> conversion);
+}
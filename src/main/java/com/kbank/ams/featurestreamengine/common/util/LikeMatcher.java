@@ -0,0 +1,181 @@
+package com.kbank.ams.featurestreamengine.common.util;
+
+import java.util.regex.Pattern;
+
+/**
+ * Case-insensitive SQL LIKE as {@link ExpressionEvaluator#like} defines it, without building a regex: {@code %}
+ * matches any run and {@code _} one character, neither across a line terminator, {@code \} escapes the next
+ * character. Characters compare the way {@link Pattern#CASE_INSENSITIVE} | {@link Pattern#UNICODE_CASE} does,
+ * by {@code toLowerCase(toUpperCase(c))}.
+ *
+ * A compiled pattern of a common shape (exact, {@code abc%}, {@code %abc}, {@code %abc%}) is a single region
+ * check; other patterns are matched by a wildcard scan over the pattern string, which is also how patterns built
+ * per event are matched, without allocating. The few patterns whose regex semantics differ from that (line
+ * terminators, surrogates, a lone {@code ß}) still go through the regex.
+ */
+final class LikeMatcher {
+    private enum Shape { EXACT, PREFIX, SUFFIX, CONTAINS, ANY, WILDCARD, REGEX }
+
+    private final Shape shape;
+    private final String pattern;
+    private final char[] literal;    // folded, for the region shapes
+    private final Pattern regex;
+
+    private LikeMatcher(Shape shape, String pattern, char[] literal, Pattern regex) {
+        this.shape = shape;
+        this.pattern = pattern;
+        this.literal = literal;
+        this.regex = regex;
+    }
+
+    /**
+     * @param pattern the LIKE pattern, unquoted
+     */
+    static LikeMatcher compile(String pattern) {
+        if (needsRegex(pattern)) return new LikeMatcher(Shape.REGEX, pattern, null, regex(pattern));
+
+        int start = 0;
+        int end = pattern.length();
+        while (start < end && pattern.charAt(start) == '%') start++;
+        if (start == end) return new LikeMatcher(start == 0 ? Shape.EXACT : Shape.ANY, pattern, new char[0], null);
+        while (end > start && pattern.charAt(end - 1) == '%' && !isEscaped(pattern, end - 1)) end--;
+
+        for (int i = start; i < end; i++) {
+            char c = pattern.charAt(i);
+            if (c == '%' || c == '_' || c == '\\') return new LikeMatcher(Shape.WILDCARD, pattern, null, null);
+        }
+        char[] literal = new char[end - start];
+        for (int i = 0; i < literal.length; i++) literal[i] = fold(pattern.charAt(start + i));
+
+        boolean leading = start > 0;
+        boolean trailing = end < pattern.length();
+        Shape shape = leading ? (trailing ? Shape.CONTAINS : Shape.SUFFIX) : (trailing ? Shape.PREFIX : Shape.EXACT);
+        return new LikeMatcher(shape, pattern, literal, null);
+    }
+
+    boolean matches(Object value) {
+        if (value == null) return false;
+        String text = String.valueOf(value);
+        return switch (shape) {
+            case EXACT -> text.length() == literal.length && regionMatches(text, 0, literal);
+            case PREFIX -> text.length() >= literal.length && regionMatches(text, 0, literal) && !hasLineTerminator(text);
+            case SUFFIX -> text.length() >= literal.length && regionMatches(text, text.length() - literal.length, literal)
+                && !hasLineTerminator(text);
+            case CONTAINS -> indexOf(text, literal) >= 0 && !hasLineTerminator(text);
+            case ANY -> !hasLineTerminator(text);
+            case WILDCARD -> wildcardMatches(text, pattern);
+            case REGEX -> regex.matcher(text).matches();
+        };
+    }
+
+    /**
+     * Matches a pattern that is not known up front (e.g. built by CONCAT per event).
+     *
+     * @param pattern the LIKE pattern, unquoted
+     */
+    static boolean matches(String text, String pattern) {
+        if (needsRegex(pattern)) return regex(pattern).matcher(text).matches();
+        return wildcardMatches(text, pattern);
+    }
+
+    private static Pattern regex(String pattern) {
+        return Pattern.compile(ExpressionEvaluator.sqlLikeToRegex(pattern), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    }
+
+    /**
+     * Patterns the scan would not match like the regex: literal line terminators or surrogates, and {@code ß}
+     * which the regex matches case-insensitively within a run of literals but not on its own.
+     */
+    private static boolean needsRegex(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (isLineTerminator(c) || Character.isSurrogate(c) || c == 'ß') return true;
+        }
+        return false;
+    }
+
+    /**
+     * Wildcard scan with backtracking to the last {@code %}; text positions advance by code point like the regex.
+     */
+    private static boolean wildcardMatches(String text, String pattern) {
+        if (hasLineTerminator(text)) return false;
+        int t = 0;
+        int p = 0;
+        int star = -1;      // pattern position after the last %
+        int mark = 0;       // text position the last % currently extends to
+        int tLen = text.length();
+        int pLen = pattern.length();
+        while (t < tLen) {
+            if (p < pLen) {
+                char pc = pattern.charAt(p);
+                if (pc == '%') {
+                    star = ++p;
+                    mark = t;
+                    continue;
+                }
+                if (pc == '_') {
+                    t += Character.charCount(text.codePointAt(t));
+                    p++;
+                    continue;
+                }
+                int literalAt = pc == '\\' ? p + 1 : p;
+                if (literalAt < pLen && sameChar(text.charAt(t), fold(pattern.charAt(literalAt)))) {
+                    t++;
+                    p = literalAt + 1;
+                    continue;
+                }
+                if (literalAt == pLen) {    // a trailing \ matches nothing, like the regex
+                    p = pLen;
+                    continue;
+                }
+            }
+            if (star < 0) return false;
+            mark += Character.charCount(text.codePointAt(mark));
+            t = mark;
+            p = star;
+        }
+        while (p < pLen && (pattern.charAt(p) == '%' || (pattern.charAt(p) == '\\' && p == pLen - 1))) p++;
+        return p == pLen;
+    }
+
+    private static boolean regionMatches(String text, int offset, char[] literal) {
+        for (int i = 0; i < literal.length; i++) {
+            if (!sameChar(text.charAt(offset + i), literal[i])) return false;
+        }
+        return true;
+    }
+
+    private static int indexOf(String text, char[] literal) {
+        for (int i = 0, last = text.length() - literal.length; i <= last; i++) {
+            if (regionMatches(text, i, literal)) return i;
+        }
+        return -1;
+    }
+
+    private static boolean sameChar(char c, char folded) {
+        return c == folded || fold(c) == folded;
+    }
+
+    private static char fold(char c) {
+        if (c < 128) return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static boolean isEscaped(String pattern, int index) {
+        int backslashes = 0;
+        for (int i = index - 1; i >= 0 && pattern.charAt(i) == '\\'; i--) backslashes++;
+        return backslashes % 2 == 1;
+    }
+
+    private static boolean hasLineTerminator(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (isLineTerminator(text.charAt(i))) return true;
+        }
+        return false;
+    }
+
+    private static boolean isLineTerminator(char c) {
+        // what the regex '.' does not match: \n \r U+0085 U+2028 U+2029
+        return c == '\n' || c == '\r' || c == 0x85 || (c | 1) == 0x2029;
+    }
+}
@@ -0,0 +1,80 @@
+package com.kbank.ams.featurestreamengine.common.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing set of primitive longs (linear probing, no boxing). Not thread-safe.
+ *
+ * {@code 0} is used as the empty-slot marker and is stored in a separate flag.
+ */
+public class LongHashSet {
+    private static final float MAX_LOAD = 0.5f;
+
+    private long[] table;
+    private int mask;
+    private int size;
+    private boolean hasZero;
+
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / MAX_LOAD)) - 1) << 1;
+        this.table = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public boolean contains(long value) {
+        if (value == 0) return hasZero;
+        for (int i = slot(value); ; i = (i + 1) & mask) {
+            long cur = table[i];
+            if (cur == value) return true;
+            if (cur == 0) return false;
+        }
+    }
+
+    /**
+     * @return true if the value was not present
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            if (hasZero) return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+        for (int i = slot(value); ; i = (i + 1) & mask) {
+            long cur = table[i];
+            if (cur == value) return false;
+            if (cur == 0) {
+                table[i] = value;
+                if (++size > table.length * MAX_LOAD) grow();
+                return true;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        hasZero = false;
+        size = 0;
+    }
+
+    private int slot(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void grow() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        mask = table.length - 1;
+        for (long v : old) {
+            if (v == 0) continue;
+            int i = slot(v);
+            while (table[i] != 0) i = (i + 1) & mask;
+            table[i] = v;
+        }
+    }
+}
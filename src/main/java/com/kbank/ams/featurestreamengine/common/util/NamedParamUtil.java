@@ -0,0 +1,63 @@
+package com.kbank.ams.featurestreamengine.common.util;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Extracts {@code :name} references from SQL statements and flow expressions.
+ *
+ * Skips quoted literals ('...' and "..."), SQL comments (-- and block comments) and {@code ::} casts.
+ */
+public class NamedParamUtil {
+    public static Set<String> paramNames(String text) {
+        Set<String> names = new LinkedHashSet<>();
+        if (text == null) return names;
+
+        final int n = text.length();
+        int i = 0;
+        while (i < n) {
+            char c = text.charAt(i);
+            if (c == '\'' || c == '"') {
+                i = skipQuoted(text, i, c);
+                continue;
+            }
+            if (c == '-' && i + 1 < n && text.charAt(i + 1) == '-') {
+                int eol = text.indexOf('\n', i);
+                i = eol < 0 ? n : eol + 1;
+                continue;
+            }
+            if (c == '/' && i + 1 < n && text.charAt(i + 1) == '*') {
+                int end = text.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 2;
+                continue;
+            }
+            if (c == ':') {
+                if (i + 1 < n && text.charAt(i + 1) == ':') {
+                    i += 2;
+                    continue;
+                }
+                int j = i + 1;
+                while (j < n && isNameChar(text.charAt(j))) j++;
+                if (j > i + 1) names.add(text.substring(i + 1, j));
+                i = j;
+                continue;
+            }
+            i++;
+        }
+        return names;
+    }
+
+    private static int skipQuoted(String text, int start, char quote) {
+        char prev = 0;
+        for (int i = start + 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == quote && prev != '\\') return i + 1;
+            prev = c;
+        }
+        return text.length();
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+}
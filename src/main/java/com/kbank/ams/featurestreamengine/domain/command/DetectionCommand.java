@@ -0,0 +1,24 @@
+package com.kbank.ams.featurestreamengine.domain.command;
+
+import java.util.List;
+import java.util.Map;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public final class DetectionCommand {
+    private final String topic;
+    // timestamp of the oldest event (epoch ms) the latency budget counts from; 0 = from when detection starts
+    private final long eventTimeMillis;
+    @ToString.Exclude
+    private final List<Map<String,Object>> items;
+
+    @Builder
+    public DetectionCommand(String topic, long eventTimeMillis, List<Map<String,Object>> items) {
+        this.topic = topic;
+        this.eventTimeMillis = eventTimeMillis;
+        this.items = items;
+    }
+}
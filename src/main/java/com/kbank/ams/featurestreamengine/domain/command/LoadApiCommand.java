@@ -0,0 +1,22 @@
+package com.kbank.ams.featurestreamengine.domain.command;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public final class LoadApiCommand implements LoadCommand {
+    private final String baseUrl;
+    private final String path;
+    private final Object body;
+    private final long timeoutMs;
+
+    @Builder
+    public LoadApiCommand(String baseUrl, String path, Object body, long timeoutMs) {
+        this.baseUrl = baseUrl;
+        this.path = path;
+        this.body = body;
+        this.timeoutMs = timeoutMs;
+    }
+}
@@ -1,4 +1,4 @@
 package com.kbank.ams.featurestreamengine.domain.command;
 
-public sealed interface LoadCommand permits LoadJdbcCommand, LoadOneJdbcCommand {
+public sealed interface LoadCommand permits LoadApiCommand, LoadJdbcCommand, LoadOneJdbcCommand {
 }
@@ -3,6 +3,7 @@ package com.kbank.ams.featurestreamengine.domain.command;
 import com.kbank.ams.featurestreamengine.domain.flow.FlowEnum;
 import com.kbank.ams.featurestreamengine.domain.flow.FlowModel;
 import java.util.List;
+import java.util.Map;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.ToString;
@@ -15,11 +16,13 @@ public final class LoadJdbcCommand implements LoadCommand {
     private FlowEnum.Database database;
     private String query;
     private List<FlowModel.FieldSpec> fieldSpecs;
+    private Map<String,Object> params;
 
     @Builder
-    public LoadJdbcCommand(FlowEnum.Database database, String query, List<FlowModel.FieldSpec> fieldSpecs) {
+    public LoadJdbcCommand(FlowEnum.Database database, String query, List<FlowModel.FieldSpec> fieldSpecs, Map<String,Object> params) {
         this.database = database;
         this.query = query;
         this.fieldSpecs = fieldSpecs;
+        this.params = params;
     }
 }
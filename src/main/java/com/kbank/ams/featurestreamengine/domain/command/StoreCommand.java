@@ -1,4 +0,0 @@
-package com.kbank.ams.featurestreamengine.domain.command;
-
-public sealed interface StoreCommand permits StoreJdbcCommand {
-}
@@ -0,0 +1,52 @@
+package com.kbank.ams.featurestreamengine.domain.detection;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Outcome and per-stage timings of one {@code detect} call.
+ */
+@Getter
+@ToString
+public class DetectionResult {
+    private final int inputCount;
+    private final int scoredCount;
+    private final int duplicateCount;
+    private final long flowNanos;
+    private final long scoringNanos;
+    private final long storeNanos;
+    // items optional processes were skipped for / processes did not finish for within the latency budget
+    private final long skippedCount;
+    private final long timedOutCount;
+
+    @Builder
+    public DetectionResult(int inputCount, int scoredCount, int duplicateCount, long flowNanos, long scoringNanos, long storeNanos,
+                           long skippedCount, long timedOutCount) {
+        this.inputCount = inputCount;
+        this.scoredCount = scoredCount;
+        this.duplicateCount = duplicateCount;
+        this.flowNanos = flowNanos;
+        this.scoringNanos = scoringNanos;
+        this.storeNanos = storeNanos;
+        this.skippedCount = skippedCount;
+        this.timedOutCount = timedOutCount;
+    }
+
+    public static DetectionResult empty(int inputCount) {
+        return new DetectionResult(inputCount, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Combines the results of detect calls made one after another.
+     */
+    public DetectionResult plus(DetectionResult other) {
+        return new DetectionResult(inputCount + other.inputCount, scoredCount + other.scoredCount,
+            duplicateCount + other.duplicateCount, flowNanos + other.flowNanos, scoringNanos + other.scoringNanos,
+            storeNanos + other.storeNanos, skippedCount + other.skippedCount, timedOutCount + other.timedOutCount);
+    }
+
+    public long totalNanos() {
+        return flowNanos + scoringNanos + storeNanos;
+    }
+}
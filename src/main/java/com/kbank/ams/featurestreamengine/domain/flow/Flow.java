@@ -1,35 +1,272 @@
 package com.kbank.ams.featurestreamengine.domain.flow;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import lombok.Getter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import com.kbank.ams.featurestreamengine.domain.flow.process.Process;
+import com.kbank.ams.featurestreamengine.domain.flow.record.FeatureRecord;
+import com.kbank.ams.featurestreamengine.domain.flow.record.FeatureSchema;
 
 @Slf4j
 @Getter
 @ToString
 public class Flow {
+    private static final String DEFAULT_EVENT_NAME = "raw-tx-log";
+
     private final String apiPath;
     private final String name;
+    private final String eventName;
+    private final FlowRoute route;
     private final List<Process> processes = new ArrayList<>();
+    private volatile FlowPlan plan;
+    @ToString.Exclude
+    private Executor ioExecutor;
+    @ToString.Exclude
+    private FeatureSchema schema;
 
     public Flow(String apiPath,Map<String,Object> spec) {
         this.apiPath = apiPath;
         this.name = spec.get("name").toString();
+        this.eventName = spec.get("eventName") != null ? spec.get("eventName").toString() : DEFAULT_EVENT_NAME;
+        this.route = new FlowRoute((Map<String,Object>) spec.get("route"));
+        this.schema = schema();
     }
 
     public void addProcess(Process process){
+        if (process.getName() == null) {
+            process.setName(processes.size() + ":" + process.getType() + "/" + process.getDetailType());
+        }
         this.processes.add(process);
+        this.schema = schema();
+    }
+
+    /**
+     * Slot layout of the items: every field the route or a process reads or writes, typed by the fieldSpecs.
+     */
+    private FeatureSchema schema() {
+        Map<String, FlowEnum.FieldType> fields = new LinkedHashMap<>();
+        readFields().forEach(field -> fields.put(field, null));
+        for (Process process : processes) {
+            Set<String> writeFields = process.writeFields();
+            if (writeFields != null) writeFields.forEach(field -> fields.putIfAbsent(field, null));
+            process.fieldSpecs().forEach(fieldSpec -> fields.put(fieldSpec.getName(), fieldSpec.getType()));
+        }
+        return FeatureSchema.of(fields);
+    }
+
+    public void setPlan(FlowPlan plan, Executor ioExecutor) {
+        this.plan = plan;
+        this.ioExecutor = ioExecutor;
+    }
+
+    /**
+     * Union of the item fields read by the route and any process of this flow.
+     */
+    public Set<String> readFields() {
+        Set<String> fields = new LinkedHashSet<>(route.readFields());
+        processes.forEach(process -> fields.addAll(process.getAttribute().readFields()));
+        return fields;
+    }
+
+    /**
+     * Whether events of {@code topic} matching the route condition run through this flow.
+     */
+    public boolean accepts(String topic, Map<String,Object> item) {
+        return route.matchesTopic(topic) && route.matches(item);
     }
 
     public Map<String,Object> run(Map<String,Object> item){
-        for (Process process : this.processes) {
-            item = process.getHandler().handle(item, process.getAttribute());
-            if (item == null) return null;
+        List<Map<String,Object>> results = runBatch(List.of(item));
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    public List<Map<String,Object>> runBatch(List<Map<String,Object>> items){
+        return runBatch(items, new FlowContext());
+    }
+
+    /**
+     * Runs a micro-batch through the flow, process by process (or stage by stage), so handlers can work set-based.
+     * Returns the surviving items in input order; filtered out and failed items are dropped.
+     */
+    public List<Map<String,Object>> runBatch(List<Map<String,Object>> items, FlowContext context){
+        // items become records of this flow's schema; other maps are copied, so callers' maps stay untouched
+        List<Map<String,Object>> alive = new ArrayList<>(items.size());
+        for (Map<String,Object> item : items) {
+            alive.add(schema.wrap(item));
+        }
+        FlowPlan plan = this.plan;  // may be replaced while the batch runs
+        if (plan == null) {
+            return compact(runSequentially(this.processes, alive, context));
+        }
+        if (!plan.isConcurrent()) {
+            return compact(runSequentially(plan.getOrder(), alive, context));
+        }
+        for (FlowPlan.Stage stage : plan.getStages()) {
+            alive = compact(stage.isConcurrent() ? runConcurrently(stage, alive, context) : runSequentially(stage.getProcesses(), alive, context));
+            if (alive.isEmpty()) break;
+        }
+        return alive;
+    }
+
+    /**
+     * Applies the processes in order; the result stays aligned with {@code items} (null = dropped).
+     */
+    private List<Map<String,Object>> runSequentially(List<Process> processes, List<Map<String,Object>> items, FlowContext context) {
+        List<Map<String,Object>> aligned = new ArrayList<>(items);
+        for (Process process : processes) {
+            List<Integer> indexes = new ArrayList<>(aligned.size());
+            List<Map<String,Object>> alive = new ArrayList<>(aligned.size());
+            for (int i = 0; i < aligned.size(); i++) {
+                if (aligned.get(i) == null) continue;
+                indexes.add(i);
+                alive.add(aligned.get(i));
+            }
+            if (alive.isEmpty()) break;
+            List<Map<String,Object>> results = runProcess(process, alive, context);
+            for (int i = 0; i < indexes.size(); i++) {
+                aligned.set(indexes.get(i), results.get(i));
+            }
+        }
+        return aligned;
+    }
+
+    /**
+     * Runs the IO processes of the stage concurrently, each on its own copies of the items, while the operators of
+     * the stage run inline; the fields each IO process writes are merged back afterwards. Processes of a stage are
+     * independent, so this yields the same items as running them one after another.
+     */
+    private List<Map<String,Object>> runConcurrently(FlowPlan.Stage stage, List<Map<String,Object>> items, FlowContext context) {
+        List<CompletableFuture<List<Map<String,Object>>>> futures = new ArrayList<>(stage.getIoProcesses().size());
+        for (Process process : stage.getIoProcesses()) {
+            List<Map<String,Object>> copies = copies(items);
+            futures.add(process.isOptional() && context.isBudgetLow()
+                ? CompletableFuture.completedFuture(skip(process, copies, context))
+                : CompletableFuture.supplyAsync(() -> handleBatch(process, copies, context), ioExecutor));
+        }
+
+        List<Map<String,Object>> aligned = runSequentially(stage.getInlineProcesses(), items, context);
+
+        for (int p = 0; p < futures.size(); p++) {
+            Process process = stage.getIoProcesses().get(p);
+            List<Map<String,Object>> results = await(process, futures.get(p), aligned, context);
+            for (int i = 0; i < aligned.size(); i++) {
+                if (aligned.get(i) != null) aligned.set(i, merge(process, aligned.get(i), results.get(i)));
+            }
+        }
+        return aligned;
+    }
+
+    /**
+     * Runs one process within the latency budget: optional processes are skipped once the budget runs low,
+     * IO processes are bounded by what is left of it (when there is a deadline).
+     */
+    private List<Map<String,Object>> runProcess(Process process, List<Map<String,Object>> items, FlowContext context) {
+        if (process.isOptional() && context.isBudgetLow()) {
+            return skip(process, items, context);
+        }
+        if (!context.hasDeadline() || !process.isIo() || ioExecutor == null) {
+            return handleBatch(process, items, context);
+        }
+        // a call past its timeout keeps running in the background, so it works on copies the flow never reads
+        List<Map<String,Object>> copies = copies(items);
+        List<Map<String,Object>> results = await(process,
+            CompletableFuture.supplyAsync(() -> handleBatch(process, copies, context), ioExecutor), items, context);
+        List<Map<String,Object>> merged = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            merged.add(merge(process, items.get(i), results.get(i)));
+        }
+        return merged;
+    }
+
+    /**
+     * Waits for a process up to its timeout. Past it, the call is abandoned (it finishes in the background on its
+     * copies) and the {@code items} it was called for are degraded when the process is optional, dropped otherwise.
+     */
+    private static List<Map<String,Object>> await(Process process, CompletableFuture<List<Map<String,Object>>> future,
+                                                  List<Map<String,Object>> items, FlowContext context) {
+        try {
+            return context.hasDeadline()
+                ? future.get(context.timeoutNanos(process.isOptional()), TimeUnit.NANOSECONDS)
+                : future.join();
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            context.onTimedOut(items.size());
+            process.getStats().recordTimedOut(items.size());
+            log.debug("process {} timed out. items={}, optional={}", process.getName(), items.size(), process.isOptional());
+            List<Map<String,Object>> results = new ArrayList<>(items.size());
+            for (Map<String,Object> item : items) {
+                results.add(item != null && process.isOptional() ? process.degrade(item) : null);
+            }
+            return results;
+        } catch (CompletionException | ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for process " + process.getName(), e);
+        }
+    }
+
+    private static List<Map<String,Object>> skip(Process process, List<Map<String,Object>> items, FlowContext context) {
+        context.onSkipped(items.size());
+        process.getStats().recordSkipped(items.size());
+        List<Map<String,Object>> results = new ArrayList<>(items.size());
+        for (Map<String,Object> item : items) {
+            results.add(process.degrade(item));
+        }
+        return results;
+    }
+
+    private static List<Map<String,Object>> handleBatch(Process process, List<Map<String,Object>> items, FlowContext context) {
+        long start = System.nanoTime();
+        List<Map<String,Object>> results = process.getHandler().handleBatch(items, process.getAttribute(), context);
+        int passed = 0;
+        for (Map<String,Object> result : results) {
+            if (result != null) passed++;
+        }
+        process.getStats().record(items.size(), passed, System.nanoTime() - start);
+        return results;
+    }
+
+    private static List<Map<String,Object>> copies(List<Map<String,Object>> items) {
+        List<Map<String,Object>> copies = new ArrayList<>(items.size());
+        items.forEach(item -> copies.add(FeatureRecord.copyOf(item)));
+        return copies;
+    }
+
+    /**
+     * The item with the fields the process wrote on its copy of it; null when the process dropped the copy.
+     */
+    private static Map<String,Object> merge(Process process, Map<String,Object> item, Map<String,Object> result) {
+        if (result == null) return null;
+        if (result == item) return item;
+        Set<String> writeFields = process.writeFields();
+        if (writeFields == null) {
+            item.putAll(result);
+            return item;
+        }
+        for (String field : writeFields) {
+            if (result.containsKey(field)) item.put(field, result.get(field));
         }
         return item;
     }
+
+    private static List<Map<String,Object>> compact(List<Map<String,Object>> aligned) {
+        List<Map<String,Object>> alive = new ArrayList<>(aligned.size());
+        for (Map<String,Object> item : aligned) {
+            if (item != null) alive.add(item);
+        }
+        return alive;
+    }
 }
@@ -0,0 +1,151 @@
+package com.kbank.ams.featurestreamengine.domain.flow;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * State shared by all flows running over one detect call: a memo of external lookups, so flows issuing the same
+ * query with the same parameters (concurrently or not) trigger a single round trip, and the latency budget.
+ *
+ * A key is claimed by the first caller, which loads it and publishes the result (or failure) to everyone waiting.
+ */
+public class FlowContext {
+    private final ConcurrentMap<List<Object>, CompletableFuture<Object>> lookups = new ConcurrentHashMap<>();
+    private final long deadlineNanos;
+    private final long reserveNanos;
+    private final long minTimeoutNanos;
+    private final LongAdder skippedItems = new LongAdder();
+    private final LongAdder timedOutItems = new LongAdder();
+
+    public FlowContext() {
+        this(Long.MAX_VALUE, 0, 0);
+    }
+
+    /**
+     * @param deadlineNanos   {@link System#nanoTime()} by which the events should be done, or Long.MAX_VALUE
+     * @param reserveNanos    optional processes are skipped once less than this is left
+     * @param minTimeoutNanos required processes get at least this long, even past the deadline
+     */
+    public FlowContext(long deadlineNanos, long reserveNanos, long minTimeoutNanos) {
+        this.deadlineNanos = deadlineNanos;
+        this.reserveNanos = reserveNanos;
+        this.minTimeoutNanos = minTimeoutNanos;
+    }
+
+    public boolean hasDeadline() {
+        return deadlineNanos != Long.MAX_VALUE;
+    }
+
+    public long remainingNanos() {
+        return hasDeadline() ? deadlineNanos - System.nanoTime() : Long.MAX_VALUE;
+    }
+
+    /**
+     * Whether an optional process should be skipped rather than started.
+     */
+    public boolean isBudgetLow() {
+        return remainingNanos() < reserveNanos;
+    }
+
+    /**
+     * How long a process may take: what is left of the budget, but at least the minimum for required ones.
+     */
+    public long timeoutNanos(boolean optional) {
+        long remaining = remainingNanos();
+        return optional ? Math.max(remaining, 0) : Math.max(remaining, minTimeoutNanos);
+    }
+
+    public void onSkipped(int items) {
+        skippedItems.add(items);
+    }
+
+    public void onTimedOut(int items) {
+        timedOutItems.add(items);
+    }
+
+    public long skippedItems() {
+        return skippedItems.sum();
+    }
+
+    public long timedOutItems() {
+        return timedOutItems.sum();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T lookup(List<Object> key, Supplier<T> loader) {
+        CompletableFuture<Object> claim = new CompletableFuture<>();
+        CompletableFuture<Object> existing = lookups.putIfAbsent(key, claim);
+        if (existing != null) return (T) join(existing);
+        try {
+            T value = loader.get();
+            claim.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // errors too, or every flow waiting on this key would hang
+            claim.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Looks up many keys of one query at once: keys not yet claimed are loaded together by {@code bulkLoader}
+     * (keys missing from its result resolve to null), keys claimed by others are awaited afterwards.
+     */
+    public Map<Object, Object> lookupAll(List<Object> prefix, Collection<?> keys,
+                                         Function<List<Object>, Map<Object, Object>> bulkLoader) {
+        Map<Object, CompletableFuture<Object>> claimed = new HashMap<>();
+        Map<Object, CompletableFuture<Object>> awaited = new HashMap<>();
+        for (Object key : keys) {
+            CompletableFuture<Object> claim = new CompletableFuture<>();
+            CompletableFuture<Object> existing = lookups.putIfAbsent(memoKey(prefix, key), claim);
+            if (existing == null) {
+                claimed.put(key, claim);
+            } else {
+                awaited.put(key, existing);
+            }
+        }
+
+        Map<Object, Object> values = new HashMap<>();
+        if (!claimed.isEmpty()) {
+            try {
+                Map<Object, Object> loaded = bulkLoader.apply(List.copyOf(claimed.keySet()));
+                claimed.forEach((key, claim) -> {
+                    Object value = loaded.get(key);
+                    claim.complete(value);
+                    values.put(key, value);
+                });
+            } catch (Throwable e) {
+                // errors too, or every flow waiting on these keys would hang; completed claims stay as they are
+                claimed.values().forEach(claim -> claim.completeExceptionally(e));
+                throw e;
+            }
+        }
+        // own claims are completed before waiting on others, so flows cannot wait on each other in a cycle
+        awaited.forEach((key, future) -> values.put(key, join(future)));
+        return values;
+    }
+
+    private static List<Object> memoKey(List<Object> prefix, Object key) {
+        Object[] parts = prefix.toArray(new Object[prefix.size() + 1]);
+        parts[prefix.size()] = key;
+        return Arrays.asList(parts);
+    }
+
+    private static Object join(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+    }
+}
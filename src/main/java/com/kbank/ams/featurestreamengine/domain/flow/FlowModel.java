@@ -1,5 +1,7 @@
 package com.kbank.ams.featurestreamengine.domain.flow;
 
+import com.kbank.ams.featurestreamengine.common.util.CompiledExpression;
+import com.kbank.ams.featurestreamengine.common.util.ExpressionCompiler;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
@@ -29,6 +31,34 @@ public class FlowModel {
             }
         }
 
+        /**
+         * Converts a value decoded from JSON (api responses) to this field's type.
+         */
+        public Object convertValue(Object value) {
+            if (value == null) return null;
+            switch (type) {
+                case STRING -> {
+                    String text = value.toString().trim();
+                    return text.isEmpty() ? null : text;
+                }
+                case INTEGER -> {
+                    return value instanceof Number n ? n.intValue() : Integer.valueOf(value.toString().trim());
+                }
+                case LONG -> {
+                    return value instanceof Number n ? n.longValue() : Long.valueOf(value.toString().trim());
+                }
+                case FLOAT -> {
+                    return value instanceof Number n ? n.floatValue() : Float.valueOf(value.toString().trim());
+                }
+                case DOUBLE -> {
+                    return value instanceof Number n ? n.doubleValue() : Double.valueOf(value.toString().trim());
+                }
+                default -> {
+                    return value;
+                }
+            }
+        }
+
         @SneakyThrows
         public Object extractValue(ResultSet rs) {
             try {
@@ -86,15 +116,65 @@ public class FlowModel {
     public static class Expr {
         private final String expr;
         private final String as;
+        // parsed once: as a DERIVED value and as a FILTER condition
+        @ToString.Exclude
+        private final CompiledExpression value;
+        @ToString.Exclude
+        private final CompiledExpression condition;
 
         public Expr(String expr, String as) {
             this.expr = expr;
             this.as = as;
+            this.value = ExpressionCompiler.compile(expr);
+            this.condition = ExpressionCompiler.compileCondition(expr);
         }
 
         public Expr(Map<String, Object> spec) {
-            this.expr = spec.get("expr").toString();
-            this.as = spec.get("as").toString();
+            this(spec.get("expr").toString(), spec.get("as").toString());
+        }
+    }
+
+    /**
+     * Set-based variant of a DB_QUERY: one query per micro-batch with the distinct {@code keyField} values bound
+     * to {@code :keys} (e.g. {@code WHERE cust_id IN (:keys)}); each result row is matched back by {@code keyColumn}.
+     * Both sides are converted with the key column's field spec (STRING unless the column is one of the fieldSpecs),
+     * so a numeric key column is declared in fieldSpecs with its type.
+     */
+    @Getter
+    @ToString
+    public static class BatchLookup {
+        private static final int DEFAULT_MAX_KEYS = 1000;
+
+        private final String keyField;
+        private final String keyColumn;
+        private final String queryFilePath;
+        private final int maxKeys;
+        @ToString.Exclude
+        private final String query;
+
+        public BatchLookup(Map<String, Object> spec, String query) {
+            this.keyField = spec.get("keyField").toString();
+            this.keyColumn = spec.get("keyColumn") != null ? spec.get("keyColumn").toString() : this.keyField;
+            this.queryFilePath = spec.get("queryFilePath").toString();
+            this.maxKeys = spec.get("maxKeys") != null ? Integer.parseInt(spec.get("maxKeys").toString()) : DEFAULT_MAX_KEYS;
+            this.query = query;
+        }
+    }
+
+    /**
+     * Aggregated variant of a REQ_API: up to {@code maxItems} requests per call to {@code path}.
+     */
+    @Getter
+    @ToString
+    public static class ApiBatch {
+        private static final int DEFAULT_MAX_ITEMS = 100;
+
+        private final String path;
+        private final int maxItems;
+
+        public ApiBatch(Map<String, Object> spec) {
+            this.path = spec.get("path").toString();
+            this.maxItems = spec.get("maxItems") != null ? Integer.parseInt(spec.get("maxItems").toString()) : DEFAULT_MAX_ITEMS;
         }
     }
 }
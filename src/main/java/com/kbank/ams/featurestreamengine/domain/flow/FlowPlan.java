@@ -0,0 +1,52 @@
+package com.kbank.ams.featurestreamengine.domain.flow;
+
+import com.kbank.ams.featurestreamengine.domain.flow.process.Process;
+import java.util.List;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Execution plan of a flow: processes grouped into stages of the dependency DAG.
+ *
+ * Processes of one stage neither read nor write each other's fields and do not follow a FILTER of the same stage,
+ * so they may run in any order or concurrently; stages run in order.
+ */
+@Getter
+@ToString
+public class FlowPlan {
+    private final List<Process> order;
+    private final List<Stage> stages;
+
+    /**
+     * @param order the processes in the order they run when executed one after another
+     */
+    public FlowPlan(List<Process> order, List<Stage> stages) {
+        this.order = order;
+        this.stages = stages;
+    }
+
+    /**
+     * Whether any stage has more than one IO process, i.e. whether concurrent execution can save anything.
+     */
+    public boolean isConcurrent() {
+        return stages.stream().anyMatch(Stage::isConcurrent);
+    }
+
+    @Getter
+    @ToString
+    public static class Stage {
+        private final List<Process> processes;
+        private final List<Process> ioProcesses;
+        private final List<Process> inlineProcesses;
+
+        public Stage(List<Process> processes) {
+            this.processes = processes;
+            this.ioProcesses = processes.stream().filter(Process::isIo).toList();
+            this.inlineProcesses = processes.stream().filter(process -> !process.isIo()).toList();
+        }
+
+        public boolean isConcurrent() {
+            return ioProcesses.size() > 1;
+        }
+    }
+}
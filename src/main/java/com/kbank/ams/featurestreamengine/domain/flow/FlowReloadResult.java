@@ -0,0 +1,30 @@
+package com.kbank.ams.featurestreamengine.domain.flow;
+
+import java.util.List;
+import java.util.Map;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Outcome of one reload: which flows were swapped in, kept as they were, removed, or rejected (kept on their
+ * previous version) with the reason.
+ */
+@Getter
+@ToString
+public class FlowReloadResult {
+    private final long version;
+    private final List<String> reloaded;
+    private final List<String> unchanged;
+    private final List<String> removed;
+    private final Map<String, String> failed;
+
+    @Builder
+    public FlowReloadResult(long version, List<String> reloaded, List<String> unchanged, List<String> removed, Map<String, String> failed) {
+        this.version = version;
+        this.reloaded = reloaded;
+        this.unchanged = unchanged;
+        this.removed = removed;
+        this.failed = failed;
+    }
+}
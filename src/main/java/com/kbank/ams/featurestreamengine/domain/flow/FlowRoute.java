@@ -0,0 +1,44 @@
+package com.kbank.ams.featurestreamengine.domain.flow;
+
+import com.kbank.ams.featurestreamengine.common.util.CompiledExpression;
+import com.kbank.ams.featurestreamengine.common.util.ExpressionCompiler;
+import com.kbank.ams.featurestreamengine.common.util.NamedParamUtil;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Which events a flow runs on ({@code route} in spec.json): source topics and/or a condition on the event,
+ * e.g. {@code {"topics": ["raw.tx.log"], "when": ":tx_tp = 'TRANSFER'"}}. A flow without route gets every event.
+ */
+@Getter
+@ToString
+public class FlowRoute {
+    private final Set<String> topics;
+    private final String when;
+    @ToString.Exclude
+    private final CompiledExpression condition;
+
+    public FlowRoute(Map<String, Object> spec) {
+        this.topics = spec != null && spec.get("topics") != null ? Set.copyOf((List<String>) spec.get("topics")) : Set.of();
+        this.when = spec != null && spec.get("when") != null ? spec.get("when").toString() : null;
+        this.condition = ExpressionCompiler.compileCondition(when);
+    }
+
+    /**
+     * @param topic source topic, or null when unknown (replay) which matches any topic
+     */
+    public boolean matchesTopic(String topic) {
+        return topics.isEmpty() || topic == null || topics.contains(topic);
+    }
+
+    public Set<String> readFields() {
+        return NamedParamUtil.paramNames(when);
+    }
+
+    public boolean matches(Map<String, Object> item) {
+        return condition.matches(item);
+    }
+}
@@ -0,0 +1,50 @@
+package com.kbank.ams.featurestreamengine.domain.flow;
+
+import java.util.List;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Snapshot of a flow's current process order and the per-process stats it was derived from.
+ */
+@Getter
+@ToString
+public class FlowStats {
+    private final String flowName;
+    private final List<String> declaredOrder;
+    private final List<String> order;
+    private final List<ProcessStatsView> processes;
+
+    @Builder
+    public FlowStats(String flowName, List<String> declaredOrder, List<String> order, List<ProcessStatsView> processes) {
+        this.flowName = flowName;
+        this.declaredOrder = declaredOrder;
+        this.order = order;
+        this.processes = processes;
+    }
+
+    @Getter
+    @ToString
+    public static class ProcessStatsView {
+        private final String name;
+        private final long items;
+        private final double passRate;
+        private final double costMicrosPerItem;
+        private final double rank;
+        private final long skipped;
+        private final long timedOut;
+
+        @Builder
+        public ProcessStatsView(String name, long items, double passRate, double costMicrosPerItem, double rank,
+                                long skipped, long timedOut) {
+            this.name = name;
+            this.items = items;
+            this.passRate = passRate;
+            this.costMicrosPerItem = costMicrosPerItem;
+            this.rank = rank;
+            this.skipped = skipped;
+            this.timedOut = timedOut;
+        }
+    }
+}
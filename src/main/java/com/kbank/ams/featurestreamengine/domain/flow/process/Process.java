@@ -1,15 +1,25 @@
 package com.kbank.ams.featurestreamengine.domain.flow.process;
 
+import com.kbank.ams.featurestreamengine.application.port.out.LoadApiPort;
 import com.kbank.ams.featurestreamengine.application.port.out.LoadJdbcPort;
 import com.kbank.ams.featurestreamengine.domain.flow.FlowEnum;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowModel;
 import com.kbank.ams.featurestreamengine.domain.flow.process.attribute.ProcessAttribute;
 import com.kbank.ams.featurestreamengine.domain.flow.process.attribute.ProcessDbQueryAttribute;
 import com.kbank.ams.featurestreamengine.domain.flow.process.attribute.ProcessOperatorAttribute;
+import com.kbank.ams.featurestreamengine.domain.flow.process.attribute.ProcessReqApiAttribute;
 import com.kbank.ams.featurestreamengine.domain.flow.process.handler.ProcessDbQueryHandler;
 import com.kbank.ams.featurestreamengine.domain.flow.process.handler.ProcessHandler;
 import com.kbank.ams.featurestreamengine.domain.flow.process.handler.ProcessOperatorHandler;
+import com.kbank.ams.featurestreamengine.domain.flow.process.handler.ProcessReqApiHandler;
+import com.kbank.ams.featurestreamengine.domain.flow.record.FeatureRecord;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 
@@ -17,30 +27,108 @@ import lombok.extern.slf4j.Slf4j;
 @ToString
 @Slf4j
 public class Process {
+    @Setter
+    private String name;
     private final FlowEnum.ProcessType type;
     private final FlowEnum.ProcessDetailType detailType;
+    private final boolean optional;
+    private final Map<String, Object> defaults;
     private ProcessAttribute attribute;
     private ProcessHandler handler;
     private final LoadJdbcPort loadJdbcPort;
+    private final LoadApiPort loadApiPort;
+    @ToString.Exclude
+    private final ProcessStats stats = new ProcessStats();
 
     public Process(
         String baseDir,
         Map<String,Object> spec,
-        LoadJdbcPort loadJdbcPort
+        LoadJdbcPort loadJdbcPort,
+        LoadApiPort loadApiPort
     ) {
+        this.name = spec.get("name") != null ? spec.get("name").toString() : null;
         this.type = FlowEnum.ProcessType.valueOf(spec.get("type").toString());
         this.detailType = FlowEnum.ProcessDetailType.valueOf(spec.get("detailType").toString());
+        this.optional = Boolean.parseBoolean(String.valueOf(spec.get("optional")));
+        this.defaults = spec.get("defaults") != null ? new HashMap<>((Map<String, Object>) spec.get("defaults")) : Map.of();
         this.loadJdbcPort = loadJdbcPort;
+        this.loadApiPort = loadApiPort;
 
         switch (detailType) {
             case DB_QUERY -> {
                 this.attribute = new ProcessDbQueryAttribute(baseDir, (Map<String, Object>) spec.get("attribute"));
-                this.handler = new ProcessDbQueryHandler(loadJdbcPort, type);
+                this.handler = new ProcessDbQueryHandler(loadJdbcPort, type, stats);
+            }
+            case REQ_API -> {
+                ProcessReqApiAttribute reqApiAttribute = new ProcessReqApiAttribute((Map<String, Object>) spec.get("attribute"));
+                this.attribute = reqApiAttribute;
+                this.handler = new ProcessReqApiHandler(loadApiPort, type, reqApiAttribute, stats);
             }
             case OPERATOR -> {
                 this.attribute = new ProcessOperatorAttribute((Map<String, Object>) spec.get("attribute"));
-                this.handler = new ProcessOperatorHandler(type);
+                this.handler = new ProcessOperatorHandler(type, stats);
             }
         }
     }
+
+    /**
+     * Item fields this process reads.
+     */
+    public Set<String> readFields() {
+        return attribute.readFields();
+    }
+
+    /**
+     * Item fields this process adds or overwrites, or null when they cannot be known up front
+     * (a DERIVED query without fieldSpecs merges whatever columns it returns).
+     */
+    public Set<String> writeFields() {
+        if (type == FlowEnum.ProcessType.FILTER) return Set.of();
+        Set<String> fields = new LinkedHashSet<>();
+        if (attribute instanceof ProcessDbQueryAttribute dbQuery) {
+            if (dbQuery.getFieldSpecs() == null) return null;
+            dbQuery.getFieldSpecs().forEach(fieldSpec -> fields.add(fieldSpec.getName()));
+        } else if (attribute instanceof ProcessReqApiAttribute reqApi) {
+            reqApi.getFieldSpecs().forEach(fieldSpec -> fields.add(fieldSpec.getName()));
+        } else if (attribute instanceof ProcessOperatorAttribute operator) {
+            operator.getExprs().forEach(expr -> fields.add(expr.getAs()));
+        }
+        return fields;
+    }
+
+    /**
+     * Typed fields the process writes (DB_QUERY / REQ_API fieldSpecs).
+     */
+    public List<FlowModel.FieldSpec> fieldSpecs() {
+        if (type == FlowEnum.ProcessType.FILTER) return List.of();
+        if (attribute instanceof ProcessDbQueryAttribute dbQuery && dbQuery.getFieldSpecs() != null) return dbQuery.getFieldSpecs();
+        if (attribute instanceof ProcessReqApiAttribute reqApi) return reqApi.getFieldSpecs();
+        return List.of();
+    }
+
+    /**
+     * What an optional process yields when it is skipped or times out: DERIVED returns a copy with its
+     * {@code defaults} (missing ones as null), FILTER lets the item pass.
+     */
+    public Map<String, Object> degrade(Map<String, Object> item) {
+        if (type == FlowEnum.ProcessType.FILTER) return item;
+        Map<String, Object> degraded = FeatureRecord.copyOf(item);
+        Set<String> fields = writeFields();
+        if (fields != null) {
+            for (String field : fields) degraded.put(field, defaults.get(field));
+        }
+        degraded.putAll(defaults);
+        return degraded;
+    }
+
+    public boolean isFilter() {
+        return type == FlowEnum.ProcessType.FILTER;
+    }
+
+    /**
+     * Whether the process waits on an external system (database, api) rather than only computing on the item.
+     */
+    public boolean isIo() {
+        return detailType != FlowEnum.ProcessDetailType.OPERATOR;
+    }
 }
@@ -0,0 +1,33 @@
+package com.kbank.ams.featurestreamengine.domain.flow.process;
+
+/**
+ * Receives what {@link ProcessStats} records, e.g. to export it as metrics. Called on the hot path for every
+ * micro-batch a process handles, so implementations must not block or allocate.
+ */
+public interface ProcessRecorder {
+    ProcessRecorder NOOP = new ProcessRecorder() {
+        @Override
+        public void record(int in, int out, long elapsedNanos) {
+        }
+
+        @Override
+        public void recordSkipped(int in) {
+        }
+
+        @Override
+        public void recordTimedOut(int in) {
+        }
+
+        @Override
+        public void recordFailed(int in) {
+        }
+    };
+
+    void record(int in, int out, long elapsedNanos);
+
+    void recordSkipped(int in);
+
+    void recordTimedOut(int in);
+
+    void recordFailed(int in);
+}
@@ -0,0 +1,174 @@
+package com.kbank.ams.featurestreamengine.domain.flow.process;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Running cost and selectivity of a process, recorded per micro-batch: items in, items passed on
+ * (not filtered out or failed) and time spent in the handler, plus how often the latency budget cut it short
+ * and how many items the handler failed on.
+ *
+ * Pass rate and cost cover the last one to two {@value #WINDOW_SECONDS}-second windows only, so a process whose data
+ * or latency changes is re-ranked within minutes rather than outvoted by its whole history. Failed items are left
+ * out of the pass rate, as are items past their timeout (an abandoned call records what it passed once it returns):
+ * neither says anything about how selective the process is.
+ */
+public class ProcessStats {
+    private static final long FAILURE_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long WINDOW_SECONDS = 60;
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(WINDOW_SECONDS);
+
+    private final LongSupplier nanoClock;
+    private final LongAdder items = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicLong lastFailureLogNanos;
+    private volatile Window current = new Window();
+    private volatile Window previous = new Window();
+    private volatile long windowStartNanos;
+    private volatile ProcessRecorder recorder = ProcessRecorder.NOOP;
+
+    public ProcessStats() {
+        this(System::nanoTime);
+    }
+
+    ProcessStats(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.windowStartNanos = nanoClock.getAsLong();
+        this.lastFailureLogNanos = new AtomicLong(windowStartNanos - FAILURE_LOG_INTERVAL_NANOS);
+    }
+
+    /**
+     * Also hands every record to {@code recorder} (metrics export).
+     */
+    public void setRecorder(ProcessRecorder recorder) {
+        this.recorder = recorder != null ? recorder : ProcessRecorder.NOOP;
+    }
+
+    public void record(int in, int out, long elapsedNanos) {
+        items.add(in);
+        Window window = window();
+        window.items.add(in);
+        window.passed.add(out);
+        window.nanos.add(elapsedNanos);
+        recorder.record(in, out, elapsedNanos);
+    }
+
+    /**
+     * Items an optional process was skipped for because the latency budget ran low.
+     */
+    public void recordSkipped(int in) {
+        skipped.add(in);
+        recorder.recordSkipped(in);
+    }
+
+    /**
+     * Items the process did not finish within its timeout (their cost is recorded once the call returns).
+     */
+    public void recordTimedOut(int in) {
+        timedOut.add(in);
+        recorder.recordTimedOut(in);
+    }
+
+    /**
+     * Items the handler threw on; they are dropped like filtered items.
+     *
+     * @return whether to log this failure: true at most once every 10 seconds
+     */
+    public boolean recordFailed(int in) {
+        failed.add(in);
+        window().failed.add(in);
+        recorder.recordFailed(in);
+        long now = nanoClock.getAsLong();
+        long last = lastFailureLogNanos.get();
+        return now - last >= FAILURE_LOG_INTERVAL_NANOS && lastFailureLogNanos.compareAndSet(last, now);
+    }
+
+    public long skipped() {
+        return skipped.sum();
+    }
+
+    public long timedOut() {
+        return timedOut.sum();
+    }
+
+    public long failed() {
+        return failed.sum();
+    }
+
+    public long items() {
+        return items.sum();
+    }
+
+    /**
+     * Items the current pass rate and cost are based on: recent items the handler did not fail on.
+     */
+    public long samples() {
+        Window current = window(), previous = this.previous;
+        return Math.max(0, current.items.sum() + previous.items.sum() - current.failed.sum() - previous.failed.sum());
+    }
+
+    public double passRate() {
+        Window current = window(), previous = this.previous;
+        long in = samples();
+        return in == 0 ? 1.0 : Math.min(1.0, (double) (current.passed.sum() + previous.passed.sum()) / in);
+    }
+
+    public double costNanosPerItem() {
+        Window current = window(), previous = this.previous;
+        long in = current.items.sum() + previous.items.sum();
+        return in == 0 ? 0 : (double) (current.nanos.sum() + previous.nanos.sum()) / in;
+    }
+
+    /**
+     * Cost per dropped item: the lower, the earlier a process should run. Processes that drop nothing
+     * (or have fewer than {@code minSamples} recent items recorded) gain nothing from running early.
+     */
+    public double rank(long minSamples) {
+        if (samples() < minSamples) return Double.POSITIVE_INFINITY;
+        return rank(costNanosPerItem(), passRate());
+    }
+
+    /**
+     * Rank of running {@code first} and then {@code then} back to back, as one step.
+     */
+    public static double rank(ProcessStats first, ProcessStats then, long minSamples) {
+        if (first.samples() < minSamples || then.samples() < minSamples) return Double.POSITIVE_INFINITY;
+        double firstPass = first.passRate();
+        return rank(first.costNanosPerItem() + firstPass * then.costNanosPerItem(), firstPass * then.passRate());
+    }
+
+    private static double rank(double cost, double passRate) {
+        double dropRate = 1.0 - passRate;
+        return dropRate <= 0 ? Double.POSITIVE_INFINITY : cost / dropRate;
+    }
+
+    /**
+     * The window to record into, rotating it once it is {@value #WINDOW_SECONDS} seconds old: the previous window is
+     * dropped and the current one becomes the previous.
+     */
+    private Window window() {
+        long now = nanoClock.getAsLong();
+        if (now - windowStartNanos >= WINDOW_NANOS) {
+            synchronized (this) {
+                if (now - windowStartNanos >= WINDOW_NANOS) {
+                    // idle for more than a window: nothing recent to keep
+                    previous = now - windowStartNanos >= 2 * WINDOW_NANOS ? new Window() : current;
+                    current = new Window();
+                    windowStartNanos = now;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static final class Window {
+        final LongAdder items = new LongAdder();
+        final LongAdder passed = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder failed = new LongAdder();
+    }
+}
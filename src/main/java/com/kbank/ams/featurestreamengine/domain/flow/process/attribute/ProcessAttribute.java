@@ -1,5 +1,10 @@
 package com.kbank.ams.featurestreamengine.domain.flow.process.attribute;
 
-public sealed interface ProcessAttribute permits ProcessDbQueryAttribute, ProcessOperatorAttribute {
+import java.util.Set;
 
+public sealed interface ProcessAttribute permits ProcessDbQueryAttribute, ProcessOperatorAttribute, ProcessReqApiAttribute {
+    /**
+     * Item fields this process reads (named query params, {@code :field} references in exprs, api request fields).
+     */
+    Set<String> readFields();
 }
@@ -1,10 +1,14 @@
 package com.kbank.ams.featurestreamengine.domain.flow.process.attribute;
 
+import com.kbank.ams.featurestreamengine.common.util.NamedParamUtil;
 import com.kbank.ams.featurestreamengine.common.util.ResourceFileUtil;
 import com.kbank.ams.featurestreamengine.domain.flow.FlowEnum;
 import com.kbank.ams.featurestreamengine.domain.flow.FlowModel;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import lombok.Getter;
 import lombok.ToString;
 
@@ -15,11 +19,42 @@ public final class ProcessDbQueryAttribute implements ProcessAttribute {
     private final String queryFilePath;
     private final String query;
     private final List<FlowModel.FieldSpec> fieldSpecs;
+    private final Set<String> paramNames;
+    private final Set<String> readFields;
+    private final FlowModel.BatchLookup batch;
+    private final List<FlowModel.FieldSpec> batchFieldSpecs;
+    private final FlowModel.FieldSpec batchKeySpec;
 
     public ProcessDbQueryAttribute(String baseDir, Map<String,Object> spec) {
         this.database = FlowEnum.Database.valueOf(spec.get("database").toString());
         this.queryFilePath = spec.get("queryFilePath").toString();
         this.query = ResourceFileUtil.load(baseDir + this.queryFilePath);
         this.fieldSpecs = spec.get("fieldSpecs") != null ? ((List<Map<String,Object>>) spec.get("fieldSpecs")).stream().map(FlowModel.FieldSpec::new).toList() : null;
+        this.paramNames = NamedParamUtil.paramNames(this.query);
+        this.readFields = new LinkedHashSet<>(this.paramNames);
+
+        Map<String,Object> batchSpec = (Map<String,Object>) spec.get("batch");
+        if (batchSpec != null && this.fieldSpecs != null) {
+            this.batch = new FlowModel.BatchLookup(batchSpec, ResourceFileUtil.load(baseDir + batchSpec.get("queryFilePath")));
+            this.readFields.add(batch.getKeyField());
+            // the key column is read to match rows back to items; it is not merged into the item
+            this.batchFieldSpecs = new ArrayList<>(this.fieldSpecs);
+            this.batchKeySpec = this.fieldSpecs.stream()
+                .filter(fieldSpec -> fieldSpec.getName().equals(batch.getKeyColumn()))
+                .findFirst()
+                .orElseGet(() -> new FlowModel.FieldSpec(Map.of("name", batch.getKeyColumn(), "type", "STRING")));
+            if (!this.fieldSpecs.contains(this.batchKeySpec)) {
+                this.batchFieldSpecs.add(this.batchKeySpec);
+            }
+        } else {
+            this.batch = null;
+            this.batchFieldSpecs = null;
+            this.batchKeySpec = null;
+        }
+    }
+
+    @Override
+    public Set<String> readFields() {
+        return readFields;
     }
 }
@@ -1,9 +1,13 @@
 package com.kbank.ams.featurestreamengine.domain.flow.process.attribute;
 
-
+import com.kbank.ams.featurestreamengine.common.util.CompiledExpression;
+import com.kbank.ams.featurestreamengine.common.util.ExpressionCompiler;
+import com.kbank.ams.featurestreamengine.common.util.NamedParamUtil;
 import com.kbank.ams.featurestreamengine.domain.flow.FlowModel;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import lombok.Getter;
 import lombok.ToString;
 
@@ -11,8 +15,32 @@ import lombok.ToString;
 @ToString
 public final class ProcessOperatorAttribute implements ProcessAttribute {
     private final List<FlowModel.Expr> exprs;
+    private final Set<String> referencedFields;
+    // what the handler evaluates: DERIVED values in exprs order, the FILTER conjunction of all exprs
+    @ToString.Exclude
+    private List<CompiledExpression> values;
+    @ToString.Exclude
+    private CompiledExpression filter;
+
     public ProcessOperatorAttribute(Map<String,Object> spec) {
         List<Map<String,Object>> exprSpecs = (List<Map<String,Object>>) spec.get("exprs");
         this.exprs = exprSpecs.stream().map(FlowModel.Expr::new).toList();
+        this.referencedFields = new LinkedHashSet<>();
+        this.exprs.forEach(expr -> referencedFields.addAll(NamedParamUtil.paramNames(expr.getExpr())));
+        this.values = exprs.stream().map(FlowModel.Expr::getValue).toList();
+        this.filter = ExpressionCompiler.allOf(exprs.stream().map(FlowModel.Expr::getCondition).toList());
+    }
+
+    /**
+     * Switches to {@link ExpressionCompiler#generate generated} evaluator classes; call before the flow is published.
+     */
+    public void generateEvaluators() {
+        this.values = values.stream().map(ExpressionCompiler::generate).toList();
+        this.filter = ExpressionCompiler.generate(filter);
+    }
+
+    @Override
+    public Set<String> readFields() {
+        return referencedFields;
     }
 }
@@ -0,0 +1,58 @@
+package com.kbank.ams.featurestreamengine.domain.flow.process.attribute;
+
+import com.kbank.ams.featurestreamengine.domain.flow.FlowModel;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * HTTP enrichment: posts {@code requestFields} of the item as a JSON object to {@code baseUrl + path}.
+ * DERIVED merges the response fields in {@code fieldSpecs}; FILTER passes items whose response has
+ * {@code passField} (default {@code pass}) true.
+ *
+ * Responses are cached for {@code cacheTtlMs} (0 = off) by request field values. With a {@code batch} spec the
+ * distinct requests of a micro-batch are posted as one JSON array to {@code batch.path}, answered by an array of
+ * responses in the same order.
+ */
+@Getter
+@ToString
+public final class ProcessReqApiAttribute implements ProcessAttribute {
+    private static final long DEFAULT_TIMEOUT_MS = 1000;
+    private static final long DEFAULT_CACHE_MAX_ENTRIES = 100_000;
+    private static final String DEFAULT_PASS_FIELD = "pass";
+
+    private final String baseUrl;
+    private final String path;
+    private final List<String> requestFields;
+    private final List<FlowModel.FieldSpec> fieldSpecs;
+    private final String passField;
+    private final long timeoutMs;
+    private final long cacheTtlMs;
+    private final long cacheMaxEntries;
+    private final FlowModel.ApiBatch batch;
+
+    public ProcessReqApiAttribute(Map<String,Object> spec) {
+        String baseUrl = spec.get("baseUrl").toString();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        this.path = spec.get("path").toString();
+        this.requestFields = List.copyOf((List<String>) spec.get("requestFields"));
+        this.fieldSpecs = spec.get("fieldSpecs") != null ? ((List<Map<String,Object>>) spec.get("fieldSpecs")).stream().map(FlowModel.FieldSpec::new).toList() : List.of();
+        this.passField = spec.get("passField") != null ? spec.get("passField").toString() : DEFAULT_PASS_FIELD;
+        this.timeoutMs = longOf(spec.get("timeoutMs"), DEFAULT_TIMEOUT_MS);
+        this.cacheTtlMs = longOf(spec.get("cacheTtlMs"), 0);
+        this.cacheMaxEntries = longOf(spec.get("cacheMaxEntries"), DEFAULT_CACHE_MAX_ENTRIES);
+        this.batch = spec.get("batch") != null ? new FlowModel.ApiBatch((Map<String,Object>) spec.get("batch")) : null;
+    }
+
+    @Override
+    public Set<String> readFields() {
+        return new LinkedHashSet<>(requestFields);
+    }
+
+    private static long longOf(Object value, long defaultValue) {
+        return value != null ? Long.parseLong(value.toString()) : defaultValue;
+    }
+}
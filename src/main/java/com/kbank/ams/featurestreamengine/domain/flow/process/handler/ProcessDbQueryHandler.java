@@ -1,39 +1,73 @@
 package com.kbank.ams.featurestreamengine.domain.flow.process.handler;
 
 import com.kbank.ams.featurestreamengine.application.port.out.LoadJdbcPort;
+import com.kbank.ams.featurestreamengine.domain.command.LoadJdbcCommand;
 import com.kbank.ams.featurestreamengine.domain.command.LoadOneJdbcCommand;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowContext;
 import com.kbank.ams.featurestreamengine.domain.flow.FlowEnum;
 import com.kbank.ams.featurestreamengine.domain.flow.FlowEnum.ProcessType;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowModel;
+import com.kbank.ams.featurestreamengine.domain.flow.process.ProcessStats;
 import com.kbank.ams.featurestreamengine.domain.flow.process.attribute.ProcessAttribute;
 import com.kbank.ams.featurestreamengine.domain.flow.process.attribute.ProcessDbQueryAttribute;
+import com.kbank.ams.featurestreamengine.domain.flow.record.FieldSlots;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @Getter
 public final class ProcessDbQueryHandler implements ProcessHandler {
     private final LoadJdbcPort loadJdbcPort;
     private final FlowEnum.ProcessType type;
+    private final ProcessStats stats;
+    private volatile FieldSlots fieldSlots;
 
     public ProcessDbQueryHandler(LoadJdbcPort loadJdbcPort, ProcessType type) {
+        this(loadJdbcPort, type, new ProcessStats());
+    }
+
+    public ProcessDbQueryHandler(LoadJdbcPort loadJdbcPort, ProcessType type, ProcessStats stats) {
         this.loadJdbcPort = loadJdbcPort;
         this.type = type;
+        this.stats = stats;
     }
 
     @Override
     public Map<String, Object> handle(Map<String, Object> item, ProcessAttribute attribute) {
+        return handle(item, attribute, null);
+    }
+
+    /**
+     * With a context, the query result is shared by every process of the detect call issuing the same query
+     * with the same parameter values.
+     */
+    @Override
+    public Map<String, Object> handle(Map<String, Object> item, ProcessAttribute attribute, FlowContext context) {
         ProcessDbQueryAttribute dbQueryAttribute = (ProcessDbQueryAttribute) attribute;
         switch (type) {
             case DERIVED -> {
-                Map<String, Object> derived = loadJdbcPort.loadOne(mapToCommand(dbQueryAttribute, item));
-                Map<String, Object> merged = new HashMap<>(item);
+                Map<String, Object> derived = context == null
+                    ? loadJdbcPort.loadOne(mapToCommand(dbQueryAttribute, item))
+                    : context.lookup(lookupKey(dbQueryAttribute, item), () -> loadJdbcPort.loadOne(mapToCommand(dbQueryAttribute, item)));
+                // written into the item like operators do; the flow hands concurrent processes their own copies
                 if (derived != null && !derived.isEmpty()) {
-                    merged.putAll(derived);
+                    item.putAll(derived);
                 }
-                return merged;
+                return item;
             }
             case FILTER -> {
-                return loadJdbcPort.loadBool(mapToCommand(dbQueryAttribute, item)) ? item : null;
+                boolean pass = context == null
+                    ? loadJdbcPort.loadBool(mapToCommand(dbQueryAttribute, item))
+                    : context.lookup(lookupKey(dbQueryAttribute, item), () -> loadJdbcPort.loadBool(mapToCommand(dbQueryAttribute, item)));
+                return pass ? item : null;
             }
             default -> {
                 return item;
@@ -41,6 +75,142 @@ public final class ProcessDbQueryHandler implements ProcessHandler {
         }
     }
 
+    /**
+     * DERIVED queries with a {@code batch} spec look up all keys of the batch at once. Items whose key matched
+     * exactly one row are merged from it; items whose key matched no row are dropped and counted as failed, as the
+     * per-item query fails on them too. Items without key or with several rows (where the per-item query would fail
+     * only for some of them) and every item of a failed batch query go through the per-item path.
+     */
+    @Override
+    public List<Map<String, Object>> handleBatch(List<Map<String, Object>> items, ProcessAttribute attribute, FlowContext context) {
+        ProcessDbQueryAttribute dbQueryAttribute = (ProcessDbQueryAttribute) attribute;
+        FlowModel.BatchLookup batch = dbQueryAttribute.getBatch();
+        if (type != ProcessType.DERIVED || batch == null || items.size() < 2) {
+            return ProcessHandler.super.handleBatch(items, attribute, context);
+        }
+
+        // keys are compared as the key column's type, so a Long or "100" matches a numeric column's 100
+        FlowModel.FieldSpec keySpec = dbQueryAttribute.getBatchKeySpec();
+        List<Object> itemKeys = new ArrayList<>(items.size());
+        Set<Object> keys = new LinkedHashSet<>();
+        for (Map<String, Object> item : items) {
+            Object key = normalizeKey(keySpec, item.get(batch.getKeyField()));
+            itemKeys.add(key);
+            if (key != null) keys.add(key);
+        }
+
+        // rows per key; a key with several rows is ambiguous
+        Map<Object, Object> rows;
+        try {
+            rows = context == null
+                ? loadRows(dbQueryAttribute, keys)
+                : context.lookupAll(List.of(dbQueryAttribute.getDatabase(), batch.getQuery()), keys,
+                    claimed -> loadRows(dbQueryAttribute, claimed));
+        } catch (RuntimeException e) {
+            log.warn("batch lookup failed -> per item. query={}, keys={}", batch.getQueryFilePath(), keys.size(), e);
+            return ProcessHandler.super.handleBatch(items, attribute, context);
+        }
+
+        FieldSlots slots = fieldSlots(dbQueryAttribute);
+        List<FlowModel.FieldSpec> fieldSpecs = dbQueryAttribute.getFieldSpecs();
+        List<Map<String, Object>> results = new ArrayList<>(items.size());
+        List<Integer> fallbackIndexes = new ArrayList<>();
+        List<Map<String, Object>> fallbackItems = new ArrayList<>();
+        int missed = 0;
+        for (int index = 0; index < items.size(); index++) {
+            Map<String, Object> item = items.get(index);
+            Object key = itemKeys.get(index);
+            List<Map<String, Object>> keyRows = key != null ? (List<Map<String, Object>>) rows.get(key) : null;
+            if (key != null && (keyRows == null || keyRows.isEmpty())) {
+                missed++;
+                results.add(null);
+                continue;
+            }
+            if (keyRows == null || keyRows.size() > 1) {
+                fallbackIndexes.add(results.size());
+                fallbackItems.add(item);
+                results.add(null);
+                continue;
+            }
+            Map<String, Object> row = keyRows.get(0);
+            for (int i = 0; i < fieldSpecs.size(); i++) {
+                slots.put(item, i, row.get(fieldSpecs.get(i).getName()));
+            }
+            results.add(item);
+        }
+        if (missed > 0 && stats.recordFailed(missed)) {
+            log.warn("no row for {}/{} items, dropped. query={}, total failed={}",
+                missed, items.size(), batch.getQueryFilePath(), stats.failed());
+        }
+
+        if (!fallbackItems.isEmpty()) {
+            List<Map<String, Object>> fallback = ProcessHandler.super.handleBatch(fallbackItems, attribute, context);
+            for (int i = 0; i < fallback.size(); i++) {
+                results.set(fallbackIndexes.get(i), fallback.get(i));
+            }
+        }
+        return results;
+    }
+
+    private FieldSlots fieldSlots(ProcessDbQueryAttribute attribute) {
+        FieldSlots slots = fieldSlots;
+        if (slots == null) {
+            slots = new FieldSlots(attribute.getFieldSpecs().stream().map(FlowModel.FieldSpec::getName).toList());
+            fieldSlots = slots;
+        }
+        return slots;
+    }
+
+    private Map<Object, Object> loadRows(ProcessDbQueryAttribute attribute, Collection<?> keys) {
+        FlowModel.BatchLookup batch = attribute.getBatch();
+        Map<Object, Object> rows = new HashMap<>();
+        List<Object> keyList = List.copyOf(keys);
+        for (int from = 0; from < keyList.size(); from += batch.getMaxKeys()) {
+            List<Object> chunk = keyList.subList(from, Math.min(from + batch.getMaxKeys(), keyList.size()));
+            for (Map<String, Object> row : loadJdbcPort.load(mapToBatchCommand(attribute, chunk))) {
+                Object key = normalizeKey(attribute.getBatchKeySpec(), row.get(batch.getKeyColumn()));
+                if (key != null) {
+                    ((List<Map<String, Object>>) rows.computeIfAbsent(key, k -> new ArrayList<>())).add(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * The key as the key column's type, or null when it is missing or does not convert (such items go per item).
+     */
+    private static Object normalizeKey(FlowModel.FieldSpec keySpec, Object key) {
+        try {
+            return keySpec.convertValue(key);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Identifies a query result: database, query text and the values bound to its parameters.
+     */
+    private static List<Object> lookupKey(ProcessDbQueryAttribute attribute, Map<String, Object> item) {
+        Object[] parts = new Object[attribute.getParamNames().size() + 2];
+        parts[0] = attribute.getDatabase();
+        parts[1] = attribute.getQuery();
+        int i = 2;
+        for (String paramName : attribute.getParamNames()) {
+            parts[i++] = item.get(paramName);
+        }
+        return Arrays.asList(parts);
+    }
+
+    private LoadJdbcCommand mapToBatchCommand(ProcessDbQueryAttribute attribute, List<Object> keys) {
+        return LoadJdbcCommand.builder()
+            .database(attribute.getDatabase())
+            .query(attribute.getBatch().getQuery())
+            .fieldSpecs(attribute.getBatchFieldSpecs())
+            .params(Map.of("keys", keys))
+            .build();
+    }
+
     private LoadOneJdbcCommand mapToCommand(ProcessDbQueryAttribute attribute, Map<String, Object> params){
         return LoadOneJdbcCommand.builder()
             .database(attribute.getDatabase())
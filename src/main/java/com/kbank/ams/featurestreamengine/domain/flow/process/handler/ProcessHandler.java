@@ -1,8 +1,51 @@
 package com.kbank.ams.featurestreamengine.domain.flow.process.handler;
 
+import com.kbank.ams.featurestreamengine.domain.flow.FlowContext;
+import com.kbank.ams.featurestreamengine.domain.flow.process.ProcessStats;
 import com.kbank.ams.featurestreamengine.domain.flow.process.attribute.ProcessAttribute;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import org.slf4j.LoggerFactory;
 
-public sealed interface ProcessHandler permits ProcessDbQueryHandler, ProcessOperatorHandler {
+public sealed interface ProcessHandler permits ProcessDbQueryHandler, ProcessOperatorHandler, ProcessReqApiHandler {
     Map<String, Object> handle(Map<String, Object> item, ProcessAttribute attribute);
+
+    /**
+     * Stats of the process this handler belongs to; failed items are counted there.
+     */
+    ProcessStats getStats();
+
+    /**
+     * Handles one item within a detect call; handlers doing external lookups share them through {@code context}.
+     */
+    default Map<String, Object> handle(Map<String, Object> item, ProcessAttribute attribute, FlowContext context) {
+        return handle(item, attribute);
+    }
+
+    /**
+     * Handles a micro-batch. The result is aligned with {@code items}; null marks an item that was filtered out
+     * or failed. Defaults to {@link #handle} per item, where a failing item is dropped without affecting the others;
+     * failures are counted in {@link #getStats()} and logged at most every few seconds.
+     */
+    default List<Map<String, Object>> handleBatch(List<Map<String, Object>> items, ProcessAttribute attribute, FlowContext context) {
+        List<Map<String, Object>> results = new ArrayList<>(items.size());
+        int failed = 0;
+        RuntimeException firstFailure = null;
+        for (Map<String, Object> item : items) {
+            Map<String, Object> result;
+            try {
+                result = handle(item, attribute, context);
+            } catch (RuntimeException e) {
+                result = null;
+                if (failed++ == 0) firstFailure = e;
+            }
+            results.add(result);
+        }
+        if (failed > 0 && getStats().recordFailed(failed)) {
+            LoggerFactory.getLogger(getClass()).warn("{} failed on {}/{} items, dropped. total failed={}",
+                getClass().getSimpleName(), failed, items.size(), getStats().failed(), firstFailure);
+        }
+        return results;
+    }
 }
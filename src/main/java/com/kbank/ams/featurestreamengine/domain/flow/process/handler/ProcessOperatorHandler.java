@@ -1,18 +1,28 @@
 package com.kbank.ams.featurestreamengine.domain.flow.process.handler;
 
-import com.kbank.ams.featurestreamengine.common.util.ExpressionEvaluator;
+import com.kbank.ams.featurestreamengine.common.util.CompiledExpression;
 import com.kbank.ams.featurestreamengine.domain.flow.FlowEnum;
 import com.kbank.ams.featurestreamengine.domain.flow.FlowEnum.ProcessType;
 import com.kbank.ams.featurestreamengine.domain.flow.FlowModel.Expr;
+import com.kbank.ams.featurestreamengine.domain.flow.process.ProcessStats;
 import com.kbank.ams.featurestreamengine.domain.flow.process.attribute.ProcessAttribute;
 import com.kbank.ams.featurestreamengine.domain.flow.process.attribute.ProcessOperatorAttribute;
+import java.util.List;
 import java.util.Map;
+import lombok.Getter;
 
 public final class ProcessOperatorHandler implements ProcessHandler {
     private final FlowEnum.ProcessType type;
+    @Getter
+    private final ProcessStats stats;
 
     public ProcessOperatorHandler(ProcessType type) {
+        this(type, new ProcessStats());
+    }
+
+    public ProcessOperatorHandler(ProcessType type, ProcessStats stats) {
         this.type = type;
+        this.stats = stats;
     }
 
     @Override
@@ -20,13 +30,15 @@ public final class ProcessOperatorHandler implements ProcessHandler {
         ProcessOperatorAttribute operatorAttribute = (ProcessOperatorAttribute) attribute;
         switch (type) {
             case DERIVED -> {
-                for (Expr expr : operatorAttribute.getExprs()) {
-                    item.put(expr.getAs(), ExpressionEvaluator.evaluate(expr.getExpr(), item));
+                List<Expr> exprs = operatorAttribute.getExprs();
+                List<CompiledExpression> values = operatorAttribute.getValues();
+                for (int i = 0; i < exprs.size(); i++) {
+                    item.put(exprs.get(i).getAs(), values.get(i).evaluate(item));
                 }
                 return item;
             }
             case FILTER -> {
-                return operatorAttribute.getExprs().stream().allMatch(expr -> ExpressionEvaluator.matches(expr.getExpr(), item)) ? item : null;
+                return operatorAttribute.getFilter().matches(item) ? item : null;
             }
             default -> {
                 return item;
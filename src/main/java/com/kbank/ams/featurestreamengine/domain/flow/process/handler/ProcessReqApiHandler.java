@@ -0,0 +1,219 @@
+package com.kbank.ams.featurestreamengine.domain.flow.process.handler;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.kbank.ams.featurestreamengine.application.port.out.LoadApiPort;
+import com.kbank.ams.featurestreamengine.domain.command.LoadApiCommand;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowContext;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowEnum;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowEnum.ProcessType;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowModel;
+import com.kbank.ams.featurestreamengine.domain.flow.process.ProcessStats;
+import com.kbank.ams.featurestreamengine.domain.flow.process.attribute.ProcessAttribute;
+import com.kbank.ams.featurestreamengine.domain.flow.process.attribute.ProcessReqApiAttribute;
+import com.kbank.ams.featurestreamengine.domain.flow.record.FieldSlots;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Calls all distinct requests of a micro-batch at once without blocking per call, then waits for them together,
+ * so a batch costs about one round trip (bounded by {@code timeoutMs}). Items whose request failed or timed out,
+ * or whose response does not convert to the field specs, are dropped, like items whose DB lookup failed.
+ */
+@Slf4j
+@Getter
+public final class ProcessReqApiHandler implements ProcessHandler {
+    private final LoadApiPort loadApiPort;
+    private final FlowEnum.ProcessType type;
+    private final Cache<List<Object>, Map<String, Object>> cache;
+    private final FieldSlots fieldSlots;
+    private final ProcessStats stats;
+
+    public ProcessReqApiHandler(LoadApiPort loadApiPort, ProcessType type, ProcessReqApiAttribute attribute) {
+        this(loadApiPort, type, attribute, new ProcessStats());
+    }
+
+    public ProcessReqApiHandler(LoadApiPort loadApiPort, ProcessType type, ProcessReqApiAttribute attribute, ProcessStats stats) {
+        this.loadApiPort = loadApiPort;
+        this.type = type;
+        this.stats = stats;
+        this.fieldSlots = new FieldSlots(attribute.getFieldSpecs().stream().map(FlowModel.FieldSpec::getName).toList());
+        this.cache = attribute.getCacheTtlMs() > 0
+            ? CacheBuilder.newBuilder()
+                .expireAfterWrite(attribute.getCacheTtlMs(), TimeUnit.MILLISECONDS)
+                .maximumSize(attribute.getCacheMaxEntries())
+                .build()
+            : null;
+    }
+
+    @Override
+    public Map<String, Object> handle(Map<String, Object> item, ProcessAttribute attribute) {
+        return handleBatch(List.of(item), attribute, null).get(0);
+    }
+
+    @Override
+    public List<Map<String, Object>> handleBatch(List<Map<String, Object>> items, ProcessAttribute attribute, FlowContext context) {
+        ProcessReqApiAttribute apiAttribute = (ProcessReqApiAttribute) attribute;
+        List<List<Object>> keys = new ArrayList<>(items.size());
+        Set<List<Object>> distinct = new LinkedHashSet<>();
+        for (Map<String, Object> item : items) {
+            List<Object> key = requestKey(apiAttribute, item);
+            keys.add(key);
+            distinct.add(key);
+        }
+
+        Map<Object, Object> responses;
+        try {
+            responses = context == null
+                ? load(apiAttribute, distinct)
+                : context.lookupAll(List.of(apiAttribute.getBaseUrl(), apiAttribute.getPath()), distinct,
+                    claimed -> load(apiAttribute, claimed));
+        } catch (RuntimeException e) {
+            log.warn("api lookup failed. url={}{}", apiAttribute.getBaseUrl(), apiAttribute.getPath(), e);
+            responses = Map.of();
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>(items.size());
+        int invalid = 0;
+        RuntimeException firstInvalid = null;
+        for (int i = 0; i < items.size(); i++) {
+            Map<String, Object> response = (Map<String, Object>) responses.get(keys.get(i));
+            Map<String, Object> result = null;
+            if (response != null) {
+                try {
+                    result = apply(apiAttribute, items.get(i), response);
+                } catch (RuntimeException e) {
+                    if (invalid++ == 0) firstInvalid = e;
+                }
+            }
+            results.add(result);
+        }
+        if (invalid > 0 && stats.recordFailed(invalid)) {
+            log.warn("api responses not convertible, items dropped. url={}{}, invalid={}/{}", apiAttribute.getBaseUrl(),
+                apiAttribute.getPath(), invalid, items.size(), firstInvalid);
+        }
+        return results;
+    }
+
+    private Map<String, Object> apply(ProcessReqApiAttribute attribute, Map<String, Object> item, Map<String, Object> response) {
+        switch (type) {
+            case DERIVED -> {
+                // every field is converted before any is written, so a bad value leaves the item untouched
+                List<FlowModel.FieldSpec> fieldSpecs = attribute.getFieldSpecs();
+                Object[] values = new Object[fieldSpecs.size()];
+                for (int i = 0; i < values.length; i++) {
+                    FlowModel.FieldSpec fieldSpec = fieldSpecs.get(i);
+                    values[i] = fieldSpec.convertValue(response.get(fieldSpec.getName()));
+                }
+                for (int i = 0; i < values.length; i++) {
+                    fieldSlots.put(item, i, values[i]);
+                }
+                return item;
+            }
+            case FILTER -> {
+                return Boolean.parseBoolean(String.valueOf(response.get(attribute.getPassField()))) ? item : null;
+            }
+            default -> {
+                return item;
+            }
+        }
+    }
+
+    /**
+     * Responses by request key; keys whose call failed are missing.
+     */
+    private Map<Object, Object> load(ProcessReqApiAttribute attribute, Collection<?> keys) {
+        Map<Object, Object> responses = new ConcurrentHashMap<>();
+        List<List<Object>> misses = new ArrayList<>(keys.size());
+        for (Object key : keys) {
+            Map<String, Object> cached = cache != null ? cache.getIfPresent(key) : null;
+            if (cached != null) {
+                responses.put(key, cached);
+            } else {
+                misses.add((List<Object>) key);
+            }
+        }
+        if (misses.isEmpty()) return responses;
+
+        AtomicInteger failed = new AtomicInteger();
+        List<CompletableFuture<?>> calls = new ArrayList<>();
+        FlowModel.ApiBatch batch = attribute.getBatch();
+        if (batch != null && misses.size() > 1) {
+            for (int from = 0; from < misses.size(); from += batch.getMaxItems()) {
+                List<List<Object>> chunk = misses.subList(from, Math.min(from + batch.getMaxItems(), misses.size()));
+                List<Map<String, Object>> requests = chunk.stream().map(key -> request(attribute, key)).toList();
+                calls.add(bounded(attribute, loadApiPort.load(command(attribute, batch.getPath(), requests)))
+                    .thenAccept(chunkResponses -> {
+                        if (chunkResponses.size() != chunk.size()) {
+                            throw new IllegalStateException("batch response size " + chunkResponses.size() + " != " + chunk.size());
+                        }
+                        for (int i = 0; i < chunk.size(); i++) {
+                            if (chunkResponses.get(i) != null) responses.put(chunk.get(i), chunkResponses.get(i));
+                        }
+                    })
+                    .whenComplete((ignored, e) -> { if (e != null) failed.addAndGet(chunk.size()); }));
+            }
+        } else {
+            for (List<Object> key : misses) {
+                calls.add(bounded(attribute, loadApiPort.loadOne(command(attribute, attribute.getPath(), request(attribute, key))))
+                    .thenAccept(response -> { if (response != null) responses.put(key, response); })
+                    .whenComplete((ignored, e) -> { if (e != null) failed.incrementAndGet(); }));
+            }
+        }
+        // failures are counted above; the affected keys just stay without response
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+        if (failed.get() > 0) {
+            log.warn("api requests failed or timed out. url={}{}, failed={}/{}", attribute.getBaseUrl(), attribute.getPath(),
+                failed.get(), misses.size());
+        }
+
+        if (cache != null) {
+            for (List<Object> key : misses) {
+                Map<String, Object> response = (Map<String, Object>) responses.get(key);
+                if (response != null) cache.put(key, response);
+            }
+        }
+        return responses;
+    }
+
+    private static <T> CompletableFuture<T> bounded(ProcessReqApiAttribute attribute, CompletableFuture<T> call) {
+        return call.orTimeout(attribute.getTimeoutMs(), TimeUnit.MILLISECONDS);
+    }
+
+    private static LoadApiCommand command(ProcessReqApiAttribute attribute, String path, Object body) {
+        return LoadApiCommand.builder()
+            .baseUrl(attribute.getBaseUrl())
+            .path(path)
+            .body(body)
+            .timeoutMs(attribute.getTimeoutMs())
+            .build();
+    }
+
+    private static Map<String, Object> request(ProcessReqApiAttribute attribute, List<Object> key) {
+        Map<String, Object> request = new LinkedHashMap<>();
+        for (int i = 0; i < key.size(); i++) {
+            request.put(attribute.getRequestFields().get(i), key.get(i));
+        }
+        return request;
+    }
+
+    private static List<Object> requestKey(ProcessReqApiAttribute attribute, Map<String, Object> item) {
+        Object[] values = new Object[attribute.getRequestFields().size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = item.get(attribute.getRequestFields().get(i));
+        }
+        return Arrays.asList(values);
+    }
+}
@@ -0,0 +1,386 @@
+package com.kbank.ams.featurestreamengine.domain.flow.record;
+
+import com.kbank.ams.featurestreamengine.common.util.IndexedRecord;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import lombok.Getter;
+
+/**
+ * A flow item stored by slot of its {@link FeatureSchema}: handlers resolve a field's slot once and then read
+ * and write it by index, numeric fieldSpec values are kept unboxed. Fields the schema does not know (e.g. event
+ * fields no process reads) go to an overflow map.
+ *
+ * It is a {@link Map} as well, so code working on {@code Map<String,Object>} items keeps working. Values read
+ * through the map view have the type they were written with.
+ *
+ * Not thread-safe, reads included: {@link #converted} caches into two array slots without synchronization.
+ * A record is only used by one thread at a time; processes running concurrently or past their timeout work on
+ * {@link #copyOf copies} (see {@code Flow}).
+ */
+public final class FeatureRecord extends AbstractMap<String, Object> implements IndexedRecord {
+    // slot states besides a plain value: explicitly null / value held in primitives[slot]
+    private static final Object NULL = new Object();
+    private static final Object PRIMITIVE = new Object();
+
+    @Getter
+    private final FeatureSchema schema;
+    private final Object[] values;
+    private final long[] primitives;
+    private Map<String, Object> overflow;
+    private Object[] conversions;    // per slot: the last conversion applied, then its result
+    private int present;
+    private Set<Map.Entry<String, Object>> entrySet;
+
+    public FeatureRecord(FeatureSchema schema) {
+        this.schema = schema;
+        this.values = new Object[schema.size()];
+        this.primitives = schema.isPrimitive() ? new long[schema.size()] : null;
+    }
+
+    private FeatureRecord(FeatureRecord source) {
+        this.schema = source.schema;
+        this.values = source.values.clone();
+        this.primitives = source.primitives != null ? source.primitives.clone() : null;
+        this.overflow = source.overflow != null ? new HashMap<>(source.overflow) : null;
+        this.present = source.present;
+    }
+
+    /**
+     * An independent copy: for records two array copies instead of rehashing every field.
+     */
+    public static Map<String, Object> copyOf(Map<String, Object> item) {
+        return item instanceof FeatureRecord record ? record.copy() : new HashMap<>(item);
+    }
+
+    /**
+     * The item without the excluded fields, in schema order followed by the fields the schema does not know.
+     */
+    public static Map<String, Object> without(Map<String, Object> item, Collection<String> excluded) {
+        if (item instanceof FeatureRecord record) return record.without(excluded);
+        Map<String, Object> projected = new LinkedHashMap<>();
+        item.forEach((key, value) -> {
+            if (!excluded.contains(key)) projected.put(key, value);
+        });
+        return projected;
+    }
+
+    public FeatureRecord copy() {
+        return new FeatureRecord(this);
+    }
+
+    public FeatureRecord without(Collection<String> excluded) {
+        FeatureSchema.Projection projection = schema.without(excluded);
+        FeatureRecord projected = new FeatureRecord(projection.schema());
+        int[] sources = projection.sourceSlots();
+        for (int i = 0; i < sources.length; i++) {
+            Object value = values[sources[i]];
+            if (value == null) continue;
+            projected.values[i] = value;
+            if (value == PRIMITIVE) projected.primitives[i] = primitives[sources[i]];
+            projected.present++;
+        }
+        if (overflow != null) {
+            overflow.forEach((key, value) -> {
+                if (!excluded.contains(key)) projected.put(key, value);
+            });
+        }
+        return projected;
+    }
+
+    // ── slot access ──
+
+    @Override
+    public Object layout() {
+        return schema;
+    }
+
+    @Override
+    public int slot(String name) {
+        return schema.slot(name);
+    }
+
+    public boolean has(int slot) {
+        return values[slot] != null;
+    }
+
+    @Override
+    public Object get(int slot) {
+        Object value = values[slot];
+        if (value == null || value == NULL) return null;
+        if (value != PRIMITIVE) return value;
+        long bits = primitives[slot];
+        return switch (schema.kind(slot)) {
+            case INT -> (int) bits;
+            case LONG -> bits;
+            case FLOAT -> (float) Double.longBitsToDouble(bits);
+            case DOUBLE -> Double.longBitsToDouble(bits);
+            default -> throw new IllegalStateException("no primitive slot: " + schema.name(slot));
+        };
+    }
+
+    /**
+     * Caches the conversion and its result side by side; a concurrent reader could pair one with the other's
+     * result, which is why records are not shared between threads.
+     */
+    @Override
+    public Object converted(int slot, Function<Object, Object> conversion) {
+        if (conversions == null) conversions = new Object[values.length * 2];
+        if (conversions[2 * slot] != conversion) {
+            Object converted = conversion.apply(get(slot));
+            conversions[2 * slot] = conversion;
+            conversions[2 * slot + 1] = converted;
+        }
+        return conversions[2 * slot + 1];
+    }
+
+    private void invalidate(int slot) {
+        if (conversions != null) conversions[2 * slot] = null;
+    }
+
+    /**
+     * The slot's value as a long; null (or absent) reads as 0.
+     */
+    public long getLong(int slot) {
+        Object value = values[slot];
+        if (value == PRIMITIVE) {
+            return isFloating(slot) ? (long) Double.longBitsToDouble(primitives[slot]) : primitives[slot];
+        }
+        return value instanceof Number n ? n.longValue() : 0L;
+    }
+
+    /**
+     * The slot's value as a double; null (or absent) reads as 0.
+     */
+    public double getDouble(int slot) {
+        Object value = values[slot];
+        if (value == PRIMITIVE) {
+            return isFloating(slot) ? Double.longBitsToDouble(primitives[slot]) : primitives[slot];
+        }
+        return value instanceof Number n ? n.doubleValue() : 0.0;
+    }
+
+    /**
+     * Sets the slot; values of a primitive slot's own type are stored unboxed.
+     */
+    public Object set(int slot, Object value) {
+        Object previous = get(slot);
+        invalidate(slot);
+        if (values[slot] == null) present++;
+        if (primitives != null && isOwnType(slot, value)) {
+            values[slot] = PRIMITIVE;
+            primitives[slot] = switch (schema.kind(slot)) {
+                case INT, LONG -> ((Number) value).longValue();
+                default -> Double.doubleToRawLongBits(((Number) value).doubleValue());
+            };
+        } else {
+            values[slot] = value == null ? NULL : value;
+        }
+        return previous;
+    }
+
+    public void setLong(int slot, long value) {
+        invalidate(slot);
+        if (values[slot] == null) present++;
+        switch (schema.kind(slot)) {
+            case INT, LONG -> {
+                values[slot] = PRIMITIVE;
+                primitives[slot] = value;
+            }
+            case FLOAT, DOUBLE -> {
+                values[slot] = PRIMITIVE;
+                primitives[slot] = Double.doubleToRawLongBits(value);
+            }
+            default -> values[slot] = value;
+        }
+    }
+
+    public void setDouble(int slot, double value) {
+        invalidate(slot);
+        if (values[slot] == null) present++;
+        if (isFloating(slot)) {
+            values[slot] = PRIMITIVE;
+            primitives[slot] = Double.doubleToRawLongBits(value);
+        } else {
+            values[slot] = value;
+        }
+    }
+
+    public Object remove(int slot) {
+        Object previous = get(slot);
+        invalidate(slot);
+        if (values[slot] != null) present--;
+        values[slot] = null;
+        return previous;
+    }
+
+    private boolean isFloating(int slot) {
+        FeatureSchema.Kind kind = schema.kind(slot);
+        return kind == FeatureSchema.Kind.FLOAT || kind == FeatureSchema.Kind.DOUBLE;
+    }
+
+    private boolean isOwnType(int slot, Object value) {
+        return switch (schema.kind(slot)) {
+            case INT -> value instanceof Integer;
+            case LONG -> value instanceof Long;
+            case FLOAT -> value instanceof Float;
+            case DOUBLE -> value instanceof Double;
+            default -> false;
+        };
+    }
+
+    // ── map view ──
+
+    @Override
+    public Object get(Object key) {
+        int slot = schema.slot(key);
+        if (slot >= 0) return get(slot);
+        return overflow != null ? overflow.get(key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int slot = schema.slot(key);
+        if (slot >= 0) return values[slot] != null;
+        return overflow != null && overflow.containsKey(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int slot = schema.slot(key);
+        if (slot >= 0) return set(slot, value);
+        if (overflow == null) overflow = new HashMap<>();
+        return overflow.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int slot = schema.slot(key);
+        if (slot >= 0) return remove(slot);
+        return overflow != null ? overflow.remove(key) : null;
+    }
+
+    @Override
+    public int size() {
+        return present + (overflow != null ? overflow.size() : 0);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, null);
+        conversions = null;
+        present = 0;
+        overflow = null;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return FeatureRecord.this.size();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    /**
+     * Present slots in schema order, then the overflow fields.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+        private int next = advance(0);
+        private int last = -1;
+        private Iterator<Map.Entry<String, Object>> overflowIterator;
+        private boolean lastFromOverflow;
+
+        private int advance(int from) {
+            while (from < values.length && values[from] == null) from++;
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next < values.length) return true;
+            if (overflowIterator == null) overflowIterator = overflow != null ? overflow.entrySet().iterator() : null;
+            return overflowIterator != null && overflowIterator.hasNext();
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            if (next < values.length) {
+                last = next;
+                lastFromOverflow = false;
+                next = advance(next + 1);
+                return new SlotEntry(last);
+            }
+            lastFromOverflow = true;
+            return overflowIterator.next();
+        }
+
+        @Override
+        public void remove() {
+            if (lastFromOverflow) {
+                overflowIterator.remove();
+            } else {
+                if (last < 0) throw new IllegalStateException();
+                FeatureRecord.this.remove(last);
+                last = -1;
+            }
+        }
+    }
+
+    private final class SlotEntry implements Map.Entry<String, Object> {
+        private final int slot;
+
+        SlotEntry(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public String getKey() {
+            return schema.name(slot);
+        }
+
+        @Override
+        public Object getValue() {
+            return get(slot);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            return set(slot, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> e && getKey().equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
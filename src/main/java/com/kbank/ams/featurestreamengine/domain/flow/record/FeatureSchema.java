@@ -0,0 +1,111 @@
+package com.kbank.ams.featurestreamengine.domain.flow.record;
+
+import com.kbank.ams.featurestreamengine.domain.flow.FlowEnum;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+
+/**
+ * Slot layout of the {@link FeatureRecord}s of one flow, computed from the flow spec when the flow is compiled:
+ * every field the route and processes read or write gets a slot, numeric fieldSpecs a primitive one.
+ */
+public final class FeatureSchema {
+    public enum Kind {
+        OBJECT, INT, LONG, FLOAT, DOUBLE;
+
+        static Kind of(FlowEnum.FieldType type) {
+            if (type == null) return OBJECT;
+            return switch (type) {
+                case INTEGER -> INT;
+                case LONG -> LONG;
+                case FLOAT -> FLOAT;
+                case DOUBLE -> DOUBLE;
+                default -> OBJECT;
+            };
+        }
+    }
+
+    private final String[] names;
+    private final Kind[] kinds;
+    private final Map<String, Integer> slots;
+    @Getter
+    private final boolean primitive;
+    private volatile Projection projection;
+
+    private FeatureSchema(List<String> names, List<Kind> kinds) {
+        this.names = names.toArray(new String[0]);
+        this.kinds = kinds.toArray(new Kind[0]);
+        this.slots = new HashMap<>(names.size() * 2);
+        for (int i = 0; i < this.names.length; i++) {
+            slots.put(this.names[i], i);
+        }
+        this.primitive = kinds.stream().anyMatch(kind -> kind != Kind.OBJECT);
+    }
+
+    /**
+     * Schema of the given fields in order; a null type is an untyped (object) slot.
+     */
+    public static FeatureSchema of(Map<String, FlowEnum.FieldType> fields) {
+        List<Kind> kinds = new ArrayList<>(fields.size());
+        fields.values().forEach(type -> kinds.add(Kind.of(type)));
+        return new FeatureSchema(new ArrayList<>(fields.keySet()), kinds);
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Slot of the field, or -1 when the schema does not know it.
+     */
+    public int slot(Object name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    public String name(int slot) {
+        return names[slot];
+    }
+
+    public Kind kind(int slot) {
+        return kinds[slot];
+    }
+
+    /**
+     * The item as a record of this schema: records of this schema as they are, anything else copied into a new one.
+     */
+    public FeatureRecord wrap(Map<String, Object> item) {
+        if (item instanceof FeatureRecord record && record.getSchema() == this) return record;
+        FeatureRecord record = new FeatureRecord(this);
+        record.putAll(item);
+        return record;
+    }
+
+    /**
+     * This schema without the excluded fields, and where each of its slots comes from; the last projection is kept.
+     */
+    Projection without(Collection<String> excluded) {
+        Projection cached = projection;
+        if (cached != null && (cached.excluded == excluded || cached.excluded.equals(excluded))) return cached;
+
+        List<String> names = new ArrayList<>();
+        List<Kind> kinds = new ArrayList<>();
+        List<Integer> sources = new ArrayList<>();
+        for (int i = 0; i < this.names.length; i++) {
+            if (excluded.contains(this.names[i])) continue;
+            names.add(this.names[i]);
+            kinds.add(this.kinds[i]);
+            sources.add(i);
+        }
+        Projection created = new Projection(excluded, new FeatureSchema(names, kinds),
+            sources.stream().mapToInt(Integer::intValue).toArray());
+        projection = created;
+        return created;
+    }
+
+    record Projection(Collection<String> excluded, FeatureSchema schema, int[] sourceSlots) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.kbank.ams.featurestreamengine.domain.flow.record;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A fixed list of fields (e.g. a process's fieldSpecs) accessed on every item: on {@link FeatureRecord}s by slot,
+ * resolved once per schema, on other maps by name.
+ */
+public final class FieldSlots {
+    private final List<String> names;
+    private volatile Binding binding;
+
+    public FieldSlots(List<String> names) {
+        this.names = List.copyOf(names);
+    }
+
+    public Object get(Map<String, Object> item, int field) {
+        if (item instanceof FeatureRecord record) {
+            int slot = slots(record.getSchema())[field];
+            if (slot >= 0) return record.get(slot);
+        }
+        return item.get(names.get(field));
+    }
+
+    public void put(Map<String, Object> item, int field, Object value) {
+        if (item instanceof FeatureRecord record) {
+            int slot = slots(record.getSchema())[field];
+            if (slot >= 0) {
+                record.set(slot, value);
+                return;
+            }
+        }
+        item.put(names.get(field), value);
+    }
+
+    private int[] slots(FeatureSchema schema) {
+        Binding current = binding;
+        if (current != null && current.schema == schema) return current.slots;
+        int[] slots = new int[names.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = schema.slot(names.get(i));
+        }
+        binding = new Binding(schema, slots);
+        return slots;
+    }
+
+    private record Binding(FeatureSchema schema, int[] slots) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.kbank.ams.featurestreamengine.adapter.in.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReplayRunnerTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void streamingAndMappedReadersSplitLinesAlike() throws Exception {
+        Path file = dir.resolve("raw.jsonl");
+        Files.writeString(file, "{\"uuid\":\"a\"}\n\n{\"uuid\":\"b\"}\r\n{\"uuid\":\"c\"}", StandardCharsets.UTF_8);
+
+        List<String> streamed = new ArrayList<>();
+        ReplayRunner.readStreaming(file, line -> streamed.add(new String(line, StandardCharsets.UTF_8)));
+        List<String> mapped = new ArrayList<>();
+        ReplayRunner.readMapped(file, line -> mapped.add(new String(line, StandardCharsets.UTF_8)));
+
+        assertEquals(List.of("{\"uuid\":\"a\"}", "{\"uuid\":\"b\"}", "{\"uuid\":\"c\"}"), streamed);
+        assertEquals(streamed, mapped);
+    }
+
+    @Test
+    void linesCrossingReadChunksAreJoined() throws Exception {
+        List<String> lines = new ArrayList<>();
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; content.length() < 3 << 20; i++) {
+            String line = "{\"uuid\":\"" + i + "\",\"pad\":\"" + "x".repeat(i % 5000) + "\"}";
+            lines.add(line);
+            content.append(line).append('\n');
+        }
+        Path file = dir.resolve("large.jsonl");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+
+        List<String> streamed = new ArrayList<>();
+        ReplayRunner.readStreaming(file, line -> streamed.add(new String(line, StandardCharsets.UTF_8)));
+        assertEquals(lines, streamed);
+    }
+}
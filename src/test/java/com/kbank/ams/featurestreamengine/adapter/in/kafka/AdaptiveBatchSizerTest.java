@@ -0,0 +1,63 @@
+package com.kbank.ams.featurestreamengine.adapter.in.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.kbank.ams.featurestreamengine.domain.detection.DetectionResult;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveBatchSizerTest {
+    private static final DetectionResult RESULT = DetectionResult.builder().build();
+    private static final int BACKLOG = 10_000;
+
+    @Test
+    void growsWhileThereIsHeadroomAndABacklog() {
+        AdaptiveBatchSizer sizer = sizer();
+        batches(sizer, 15, 10, BACKLOG);
+        assertEquals(100, sizer.batchSize());   // not enough samples yet
+
+        batches(sizer, 1, 10, BACKLOG);
+        assertEquals(112, sizer.batchSize());
+        batches(sizer, 16, 10, BACKLOG);
+        assertEquals(126, sizer.batchSize());
+
+        batches(sizer, 64, 10, 0);              // no backlog, nothing to gain
+        assertEquals(126, sizer.batchSize());
+    }
+
+    @Test
+    void shrinksOncePerWindowAboveTheTarget() {
+        AdaptiveBatchSizer sizer = sizer();
+        batches(sizer, 16, 500, BACKLOG);
+        assertEquals(75, sizer.batchSize());
+
+        // the slow batches that caused the cut do not cut again
+        batches(sizer, 15, 500, BACKLOG);
+        assertEquals(75, sizer.batchSize());
+        batches(sizer, 1, 500, BACKLOG);
+        assertEquals(56, sizer.batchSize());
+    }
+
+    @Test
+    void recoversOnceLatencyIsBackUnderTheTarget() {
+        AdaptiveBatchSizer sizer = sizer();
+        batches(sizer, 16, 500, BACKLOG);
+        assertEquals(75, sizer.batchSize());
+
+        batches(sizer, 16, 10, BACKLOG);
+        assertEquals(84, sizer.batchSize());
+        assertEquals(10, sizer.p99Ms());
+        batches(sizer, 160, 10, BACKLOG);
+        assertTrue(sizer.batchSize() > 100, "back above where it started");
+    }
+
+    private static AdaptiveBatchSizer sizer() {
+        return new AdaptiveBatchSizer(true, 100, 10, 1000, 10, 0, 100, 100);
+    }
+
+    private static void batches(AdaptiveBatchSizer sizer, int count, long endToEndMs, int remainingDepth) {
+        for (int i = 0; i < count; i++) {
+            sizer.onBatch(sizer.batchSize(), endToEndMs, RESULT, remainingDepth);
+        }
+    }
+}
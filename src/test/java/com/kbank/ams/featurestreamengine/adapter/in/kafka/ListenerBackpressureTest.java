@@ -0,0 +1,98 @@
+package com.kbank.ams.featurestreamengine.adapter.in.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+class ListenerBackpressureTest {
+    private final AtomicBoolean containerPaused = new AtomicBoolean();
+    private final AtomicInteger switchedTwice = new AtomicInteger();
+    private KafkaListenerEndpointRegistry registry;
+
+    @BeforeEach
+    void container() {
+        MessageListenerContainer container = mock(MessageListenerContainer.class);
+        doAnswer(invocation -> {
+            if (containerPaused.getAndSet(true)) switchedTwice.incrementAndGet();
+            return null;
+        }).when(container).pause();
+        doAnswer(invocation -> {
+            if (!containerPaused.getAndSet(false)) switchedTwice.incrementAndGet();
+            return null;
+        }).when(container).resume();
+        registry = mock(KafkaListenerEndpointRegistry.class);
+        when(registry.getListenerContainer(ListenerBackpressure.LISTENER_ID)).thenReturn(container);
+    }
+
+    @Test
+    void pausesAtTheHighWatermarkAndResumesAtTheLowOne() {
+        ListenerBackpressure backpressure = new ListenerBackpressure(registry, 10, 4);
+
+        for (int i = 0; i < 9; i++) backpressure.onEnqueued();
+        assertFalse(containerPaused.get());
+        backpressure.onEnqueued();
+        assertTrue(containerPaused.get());
+        assertTrue(backpressure.isPaused());
+
+        backpressure.onDrained(5);    // 5 left, above the low watermark
+        assertTrue(containerPaused.get());
+        backpressure.onDrained(1);
+        assertFalse(containerPaused.get());
+        assertFalse(backpressure.isPaused());
+        assertEquals(1, backpressure.pauseCount());
+    }
+
+    @Test
+    void concurrentEnqueuesAndDrainsNeverLeaveTheContainerPausedOnAnEmptyBacklog() throws Exception {
+        ListenerBackpressure backpressure = new ListenerBackpressure(registry, 8, 2);
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads * 2);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 100_000; i++) backpressure.onEnqueued();
+                    return null;
+                }));
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int drained = 0;
+                    while (drained < 100_000) {
+                        if (backpressure.backlog() > 0) {
+                            backpressure.onDrained(1);
+                            drained++;
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, backpressure.backlog());
+        assertFalse(backpressure.isPaused());
+        assertFalse(containerPaused.get());
+        assertEquals(0, switchedTwice.get());
+    }
+}
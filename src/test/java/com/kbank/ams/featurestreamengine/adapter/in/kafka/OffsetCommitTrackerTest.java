@@ -0,0 +1,51 @@
+package com.kbank.ams.featurestreamengine.adapter.in.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+
+class OffsetCommitTrackerTest {
+    private static final String TOPIC = "raw.tx.log";
+
+    @Test
+    public void acknowledgesOnlyHighestContiguousOffset() {
+        OffsetCommitTracker tracker = new OffsetCommitTracker();
+        List<Long> acked = new ArrayList<>();
+        for (long offset = 10; offset < 15; offset++) {
+            long o = offset;
+            tracker.register(TOPIC, 0, offset, () -> acked.add(o));
+        }
+
+        tracker.complete(TOPIC, 0, 12);
+        tracker.complete(TOPIC, 0, 11);
+        assertEquals(List.of(), acked);
+        assertEquals(-1, tracker.committedOffset(new TopicPartition(TOPIC, 0)));
+
+        tracker.complete(TOPIC, 0, 10);
+        assertEquals(List.of(12L), acked);
+        assertEquals(13, tracker.committedOffset(new TopicPartition(TOPIC, 0)));
+
+        tracker.complete(TOPIC, 0, 14);
+        tracker.complete(TOPIC, 0, 13);
+        assertEquals(List.of(12L, 14L), acked);
+        assertEquals(0, tracker.pendingCount());
+    }
+
+    @Test
+    public void ignoresCompletionsOfRevokedPartitions() {
+        OffsetCommitTracker tracker = new OffsetCommitTracker();
+        List<Long> acked = new ArrayList<>();
+        Acknowledgment ack = () -> acked.add(0L);
+        tracker.register(TOPIC, 1, 0, ack);
+
+        tracker.revoke(Set.of(new TopicPartition(TOPIC, 1)));
+        tracker.complete(TOPIC, 1, 0);
+
+        assertEquals(List.of(), acked);
+    }
+}
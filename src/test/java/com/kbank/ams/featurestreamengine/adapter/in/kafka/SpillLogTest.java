@@ -0,0 +1,115 @@
+package com.kbank.ams.featurestreamengine.adapter.in.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpillLogTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBackInOrderAndDeletesCommittedSegments() throws Exception {
+        OffsetCommitTracker tracker = new OffsetCommitTracker();
+        SpillLog spill = new SpillLog(dir, "lane-0", 256, tracker);
+        for (long offset = 0; offset < 20; offset++) {
+            tracker.register("raw.tx.log", 0, offset, () -> { });
+            spill.append(new WorkerItem("raw.tx.log", 0, offset, "k", 1000 + offset, Map.of("uuid", "u-" + offset)));
+        }
+        assertEquals(20, spill.size());
+        assertTrue(spill.segmentCount() > 1);
+
+        List<WorkerItem> read = new ArrayList<>();
+        while (spill.poll(7, read) > 0) { }
+        assertEquals(20, read.size());
+        for (int i = 0; i < read.size(); i++) {
+            assertEquals(i, read.get(i).offset);
+            assertEquals("u-" + i, read.get(i).value.get("uuid"));
+        }
+
+        // nothing committed yet -> all segments retained
+        spill.purge();
+        assertTrue(spill.segmentCount() > 1);
+
+        read.forEach(item -> tracker.complete(item.topic, item.partition, item.offset));
+        spill.purge();
+        assertEquals(0, spill.segmentCount());
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void unreadableRecordIsQuarantinedAndTheRestIsRead() throws Exception {
+        OffsetCommitTracker tracker = new OffsetCommitTracker();
+        SpillLog spill = spillOf20Records(tracker);
+        Path third = dir.resolve(String.format("lane-0-%020d.seg", 2));
+        overwrite(third, Integer.BYTES, (byte) '#');
+
+        List<WorkerItem> read = new ArrayList<>();
+        while (spill.poll(7, read) > 0) { }
+        assertEquals(19, read.size());
+        assertEquals(1, spill.takeQuarantined());
+        assertEquals(0, spill.takeQuarantined());
+        assertEquals(0, spill.size());
+        assertAscending(read);
+
+        // the quarantined offset is never completed, so its segment and every later one are kept for redelivery
+        read.forEach(item -> tracker.complete(item.topic, item.partition, item.offset));
+        spill.purge();
+        assertFalse(Files.exists(dir.resolve(String.format("lane-0-%020d.seg", 0))));
+        assertTrue(Files.exists(third));
+        spill.close();
+    }
+
+    @Test
+    void corruptLengthQuarantinesTheRestOfItsSegment() throws Exception {
+        SpillLog spill = spillOf20Records(new OffsetCommitTracker());
+        overwrite(dir.resolve(String.format("lane-0-%020d.seg", 2)), 0, (byte) 0x7f);
+
+        List<WorkerItem> read = new ArrayList<>();
+        while (spill.poll(7, read) > 0) { }
+        int quarantined = spill.takeQuarantined();
+        assertTrue(quarantined > 0);
+        assertEquals(20, read.size() + quarantined);
+        assertEquals(0, spill.size());
+        assertAscending(read);
+        spill.close();
+    }
+
+    private SpillLog spillOf20Records(OffsetCommitTracker tracker) throws IOException {
+        SpillLog spill = new SpillLog(dir, "lane-0", 256, tracker);
+        for (long offset = 0; offset < 20; offset++) {
+            tracker.register("raw.tx.log", 0, offset, () -> { });
+            spill.append(new WorkerItem("raw.tx.log", 0, offset, "k", 1000 + offset, Map.of("uuid", "u-" + offset)));
+        }
+        return spill;
+    }
+
+    private static void assertAscending(List<WorkerItem> read) {
+        for (int i = 1; i < read.size(); i++) {
+            assertTrue(read.get(i - 1).offset < read.get(i).offset);
+        }
+    }
+
+    /**
+     * Replaces one byte of the segment file, which the mapping sees as well.
+     */
+    private static void overwrite(Path segment, int position, byte b) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {b}), position);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.kbank.ams.featurestreamengine.adapter.in.kafka;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Listener -> lane hand-off: {@link WorkerRing} vs the previous {@link ArrayBlockingQueue} + drainTo.
+ *
+ * One producer and one consumer thread per group; the {@code transferred} counter is the number of records
+ * that crossed the hand-off per time unit. Run {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkerRingBenchmark {
+    private static final Map<String, Object> VALUE = Map.of("uuid", "u-1", "cust_id", "C1");
+    private static final int BATCH = 100;
+
+    @Param({"2048"})
+    int capacity;
+
+    @Param({"BUSY_SPIN", "YIELD", "PARK"})
+    WaitStrategy waitStrategy;
+
+    WorkerRing ring;
+    ArrayBlockingQueue<WorkerItem> queue;
+    long producerSeq;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Transferred {
+        public long transferred;
+        final List<WorkerItem> buffer = new ArrayList<>(BATCH);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ring = new WorkerRing(capacity, waitStrategy);
+        queue = new ArrayBlockingQueue<>(capacity);
+        producerSeq = 0;
+    }
+
+    @Benchmark
+    @Group("ring")
+    @GroupThreads(1)
+    public boolean ringProduce() {
+        if (ring.tryPublish("raw.tx.log", 0, producerSeq, "k", 0L, VALUE)) {
+            producerSeq++;
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    @Group("ring")
+    @GroupThreads(1)
+    public void ringConsume(Transferred counter, Blackhole bh) throws InterruptedException {
+        int n = Math.min(ring.await(1, 0), BATCH);
+        for (int i = 0; i < n; i++) {
+            bh.consume(ring.get(i).offset);
+        }
+        ring.release(n);
+        counter.transferred += n;
+    }
+
+    @Benchmark
+    @Group("blockingQueue")
+    @GroupThreads(1)
+    public boolean queueProduce() {
+        if (queue.offer(new WorkerItem("raw.tx.log", 0, producerSeq, "k", 0L, VALUE))) {
+            producerSeq++;
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    @Group("blockingQueue")
+    @GroupThreads(1)
+    public void queueConsume(Transferred counter, Blackhole bh) {
+        List<WorkerItem> buffer = counter.buffer;
+        int n = queue.drainTo(buffer, BATCH);
+        for (int i = 0; i < n; i++) {
+            bh.consume(buffer.get(i).offset);
+        }
+        buffer.clear();
+        counter.transferred += n;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(WorkerRingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
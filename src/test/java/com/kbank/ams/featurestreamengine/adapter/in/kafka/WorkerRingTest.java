@@ -0,0 +1,54 @@
+package com.kbank.ams.featurestreamengine.adapter.in.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class WorkerRingTest {
+    @Test
+    void rejectsWhenFullUntilReleased() throws Exception {
+        WorkerRing ring = new WorkerRing(3, WaitStrategy.YIELD);
+        assertEquals(4, ring.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.tryPublish("t", 0, i, "k", 0L, Map.of()));
+        }
+        assertFalse(ring.tryPublish("t", 0, 4, "k", 0L, Map.of()));
+
+        assertEquals(4, ring.await(1, 0));
+        assertEquals(0, ring.get(0).offset);
+        ring.release(2);
+        assertTrue(ring.tryPublish("t", 0, 4, "k", 0L, Map.of()));
+        assertEquals(2, ring.get(0).offset);
+    }
+
+    @Test
+    void handsOffInOrderAcrossThreads() throws Exception {
+        WorkerRing ring = new WorkerRing(64, WaitStrategy.YIELD);
+        int total = 200_000;
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < total; i++) {
+                    assertTrue(ring.publish("t", 0, i, "k", 0L, Map.of(), 10, TimeUnit.SECONDS));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+
+        long expected = 0;
+        while (expected < total) {
+            int n = Math.min(ring.await(1, TimeUnit.SECONDS.toNanos(10)), 17);
+            for (int i = 0; i < n; i++) {
+                assertEquals(expected++, ring.get(i).offset);
+            }
+            ring.release(n);
+        }
+        producer.join();
+        assertTrue(ring.isEmpty());
+    }
+}
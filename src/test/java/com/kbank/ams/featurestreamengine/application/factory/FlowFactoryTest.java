@@ -0,0 +1,266 @@
+package com.kbank.ams.featurestreamengine.application.factory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.kbank.ams.featurestreamengine.application.port.out.LoadJdbcPort;
+import com.kbank.ams.featurestreamengine.domain.command.LoadJdbcCommand;
+import com.kbank.ams.featurestreamengine.domain.command.LoadOneJdbcCommand;
+import com.kbank.ams.featurestreamengine.domain.flow.Flow;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowContext;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowPlan;
+import com.kbank.ams.featurestreamengine.domain.flow.process.Process;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FlowFactoryTest {
+    @TempDir
+    Path dir;
+
+    /**
+     * answers every query with {@code <alias>: <key>-<alias>} where the alias is the comment on the first query line
+     * and the key is the value bound to its {@code WHERE} parameter;
+     * aliases starting with {@code slow} answer after 300ms and {@code failing} throws.
+     * Batch queries answer one such row per key, keyed by {@code cust_id}.
+     */
+    private final LoadJdbcPort loadJdbcPort = new LoadJdbcPort() {
+        @Override
+        public Map<String, Object> loadOne(LoadOneJdbcCommand command) {
+            String alias = alias(command.getQuery());
+            if (alias.startsWith("slow")) sleep(300);
+            if (alias.equals("failing")) throw new IllegalStateException("lookup failed");
+            String key = command.getQuery().substring(command.getQuery().lastIndexOf(':') + 1).trim();
+            return Map.of(alias, command.getParams().get(key) + "-" + alias);
+        }
+
+        @Override
+        public Boolean loadBool(LoadOneJdbcCommand command) {
+            return !"blocked".equals(command.getParams().get("cust_id"));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<Map<String, Object>> load(LoadJdbcCommand command) {
+            String alias = alias(command.getQuery());
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (String key : (List<String>) command.getParams().get("keys")) {
+                rows.add(Map.of("cust_id", key, alias, key + "-" + alias));
+            }
+            return rows;
+        }
+    };
+
+    @Test
+    void independentQueriesShareAStageAndFiltersGateLaterProcesses() throws Exception {
+        List<Process> processes = List.of(
+            dbQuery("DERIVED", "a"),                         // reads cust_id, writes a
+            dbQuery("DERIVED", "b"),                         // independent of a
+            operator("DERIVED", "CONCAT(:a, :b)", "ab"),     // reads a, b
+            dbQuery("FILTER", "f"),                          // reads cust_id
+            operator("DERIVED", "NVL(:ab, '')", "c"),        // after the filter
+            dbQuery("DERIVED", "d", Map.of(), "a"));         // reads a, written by the first lookup
+
+        FlowPlan plan = FlowFactory.plan(processes);
+        List<FlowPlan.Stage> stages = plan.getStages();
+        assertEquals(3, stages.size());
+        assertEquals(List.of(processes.get(0), processes.get(1), processes.get(3)), stages.get(0).getProcesses());
+        // d reads what a writes, so it waits for a's stage rather than sharing it
+        assertEquals(List.of(processes.get(2), processes.get(5)), stages.get(1).getProcesses());
+        assertEquals(List.of(processes.get(4)), stages.get(2).getProcesses());
+        assertTrue(plan.isConcurrent());
+
+        Flow sequential = flow(processes);
+        Flow concurrent = flow(processes);
+        ExecutorService io = Executors.newFixedThreadPool(2);
+        try {
+            concurrent.setPlan(plan, io);
+
+            Map<String, Object> expected = sequential.run(new HashMap<>(Map.of("cust_id", "C1")));
+            assertEquals(expected, concurrent.run(new HashMap<>(Map.of("cust_id", "C1"))));
+            assertEquals("C1-aC1-b", expected.get("c"));
+            assertEquals("C1-a-d", expected.get("d"));
+            assertNull(concurrent.run(new HashMap<>(Map.of("cust_id", "blocked"))));
+        } finally {
+            io.shutdownNow();
+        }
+    }
+
+    @Test
+    void cheapSelectiveFiltersMoveAheadButNotPastTheirInputs() throws Exception {
+        Process dbFilter = dbQuery("FILTER", "f");                                  // expensive, drops 10%
+        Process derived = operator("DERIVED", "NVL(:cust_id, '')", "x");            // drops nothing
+        Process cheapFilter = operator("FILTER", "NVL(:tx_tp, '') = 'T'", "t");     // cheap, drops 90%
+        Process dependentFilter = operator("FILTER", "NVL(:x, '') = 'C1'", "y");    // reads x, cheap, drops 50%
+        dbFilter.getStats().record(1000, 900, 1_000_000_000L);
+        derived.getStats().record(1000, 1000, 1_000_000L);
+        cheapFilter.getStats().record(1000, 100, 1_000_000L);
+        dependentFilter.getStats().record(1000, 500, 1_000_000L);
+
+        List<Process> order = FlowFactory.order(List.of(dbFilter, derived, cheapFilter, dependentFilter), 100);
+        assertEquals(List.of(cheapFilter, derived, dependentFilter, dbFilter), order);
+
+        // without enough samples nothing moves
+        assertEquals(List.of(dbFilter, derived, cheapFilter, dependentFilter),
+            FlowFactory.order(List.of(dbFilter, derived, cheapFilter, dependentFilter), 10_000));
+
+        Flow reordered = flow(List.of(dbFilter, derived, cheapFilter, dependentFilter));
+        ExecutorService io = Executors.newSingleThreadExecutor();
+        try {
+            reordered.setPlan(FlowFactory.plan(order), io);
+            Map<String, Object> item = new HashMap<>(Map.of("cust_id", "C1", "tx_tp", "T"));
+            assertEquals(flow(List.of(dbFilter, derived, cheapFilter, dependentFilter)).run(new HashMap<>(item)), reordered.run(item));
+        } finally {
+            io.shutdownNow();
+        }
+    }
+
+    @Test
+    void optionalProcessesAreSkippedWithDefaultsOnceTheBudgetRunsLow() throws Exception {
+        Process optional = dbQuery("DERIVED", "a", Map.of("optional", true, "defaults", Map.of("a", "NA")));
+        Process required = dbQuery("DERIVED", "b");
+        Flow flow = flow(List.of(optional, required));
+        ExecutorService io = Executors.newSingleThreadExecutor();
+        try {
+            flow.setPlan(FlowFactory.plan(List.of(optional, required)), io);
+
+            // deadline already passed: the optional lookup is skipped, the required one still gets its minimum timeout
+            FlowContext context = new FlowContext(System.nanoTime() - 1, 100_000_000L, 1_000_000_000L);
+            List<Map<String, Object>> result = flow.runBatch(List.of(new HashMap<>(Map.of("cust_id", "C1"))), context);
+
+            assertEquals("NA", result.get(0).get("a"));
+            assertEquals("C1-b", result.get(0).get("b"));
+            assertEquals(1, context.skippedItems());
+            assertEquals(1, optional.getStats().skipped());
+            assertEquals(0, required.getStats().skipped());
+        } finally {
+            io.shutdownNow();
+        }
+    }
+
+    @Test
+    void callsPastTheirTimeoutNeverWriteIntoTheFlowsRecords() throws Exception {
+        Process slow = dbQuery("DERIVED", "slow", Map.of("optional", true, "defaults", Map.of("slow", "NA")));
+        Process next = operator("DERIVED", "CONCAT(:slow, '!')", "after");
+        Flow flow = flow(List.of(slow, next));
+        ExecutorService io = Executors.newSingleThreadExecutor();
+        try {
+            flow.setPlan(FlowFactory.plan(List.of(slow, next)), io);
+            FlowContext context = new FlowContext(System.nanoTime() + 50_000_000L, 0, 0);
+            Map<String, Object> result = flow.runBatch(List.of(new HashMap<>(Map.of("cust_id", "C1"))), context).get(0);
+
+            io.shutdown();
+            assertTrue(io.awaitTermination(5, TimeUnit.SECONDS));   // the abandoned call has finished by now
+            assertEquals("NA", result.get("slow"));
+            assertEquals("NA!", result.get("after"));
+            assertEquals(1, context.timedOutItems());
+        } finally {
+            io.shutdownNow();
+        }
+    }
+
+    @Test
+    void requiredProcessesPastTheirTimeoutDropTheItem() throws Exception {
+        Process slow = dbQuery("DERIVED", "slow");
+        Flow flow = flow(List.of(slow));
+        ExecutorService io = Executors.newSingleThreadExecutor();
+        try {
+            flow.setPlan(FlowFactory.plan(List.of(slow)), io);
+            // the deadline has passed; the required lookup still gets its 50ms minimum, not the 300ms it needs
+            FlowContext context = new FlowContext(System.nanoTime() - 1, 0, 50_000_000L);
+
+            assertTrue(flow.runBatch(List.of(new HashMap<>(Map.of("cust_id", "C1"))), context).isEmpty());
+            assertEquals(1, context.timedOutItems());
+            assertEquals(0, context.skippedItems());
+            assertEquals(1, slow.getStats().timedOut());
+        } finally {
+            io.shutdownNow();
+        }
+    }
+
+    @Test
+    void optionalProcessesPastTheirTimeoutAreDegradedInConcurrentStages() throws Exception {
+        Process slow = dbQuery("DERIVED", "slow", Map.of("optional", true, "defaults", Map.of("slow", "NA")));
+        Process fast = dbQuery("DERIVED", "fast");
+        Flow flow = flow(List.of(slow, fast));
+        FlowPlan plan = FlowFactory.plan(List.of(slow, fast));
+        assertTrue(plan.isConcurrent());
+        ExecutorService io = Executors.newFixedThreadPool(2);
+        try {
+            flow.setPlan(plan, io);
+            FlowContext context = new FlowContext(System.nanoTime() + 100_000_000L, 0, 0);
+
+            Map<String, Object> result = flow.runBatch(List.of(new HashMap<>(Map.of("cust_id", "C1"))), context).get(0);
+            assertEquals("NA", result.get("slow"));
+            assertEquals("C1-fast", result.get("fast"));
+            assertEquals(1, context.timedOutItems());
+            assertEquals(1, slow.getStats().timedOut());
+            assertEquals(0, fast.getStats().timedOut());
+        } finally {
+            io.shutdownNow();
+        }
+    }
+
+    @Test
+    void failingLookupsDropTheirItemsAndAreCounted() throws Exception {
+        Process failing = dbQuery("DERIVED", "failing");
+        Flow flow = flow(List.of(failing));
+        FlowContext context = new FlowContext(System.nanoTime() + 1_000_000_000L, 0, 0);
+
+        List<Map<String, Object>> items = List.of(new HashMap<>(Map.of("cust_id", "C1")), new HashMap<>(Map.of("cust_id", "C2")));
+        assertTrue(flow.runBatch(items, context).isEmpty());
+        assertEquals(2, failing.getStats().failed());
+    }
+
+    private Flow flow(List<Process> processes) {
+        Flow flow = new Flow("test", Map.of("name", "test"));
+        processes.forEach(flow::addProcess);
+        return flow;
+    }
+
+    private Process dbQuery(String type, String alias) throws Exception {
+        return dbQuery(type, alias, Map.of());
+    }
+
+    private Process dbQuery(String type, String alias, Map<String, Object> extraSpec) throws Exception {
+        return dbQuery(type, alias, extraSpec, "cust_id");
+    }
+
+    private Process dbQuery(String type, String alias, Map<String, Object> extraSpec, String key) throws Exception {
+        Files.writeString(dir.resolve(alias + ".sql"),
+            "-- " + alias + "\nSELECT " + alias + " FROM feature WHERE " + key + " = :" + key);
+        Map<String, Object> attribute = new HashMap<>();
+        attribute.put("database", "SINGLESTORE");
+        attribute.put("queryFilePath", alias + ".sql");
+        attribute.put("fieldSpecs", List.of(Map.of("name", alias, "type", "STRING")));
+        Map<String, Object> spec = new HashMap<>(extraSpec);
+        spec.putAll(Map.of("type", type, "detailType", "DB_QUERY", "attribute", attribute));
+        return new Process(dir + "/", spec, loadJdbcPort, null);
+    }
+
+    private static String alias(String query) {
+        return query.lines().findFirst().orElseThrow().replace("--", "").trim();
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Process operator(String type, String expr, String as) {
+        Map<String, Object> attribute = Map.of("exprs", List.of(Map.of("expr", expr, "as", as)));
+        return new Process(dir + "/", Map.of("type", type, "detailType", "OPERATOR", "attribute", attribute), loadJdbcPort, null);
+    }
+}
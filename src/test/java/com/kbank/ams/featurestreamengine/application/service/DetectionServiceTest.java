@@ -0,0 +1,64 @@
+package com.kbank.ams.featurestreamengine.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.kbank.ams.featurestreamengine.application.port.out.StoreFraudScoringPort;
+import com.kbank.ams.featurestreamengine.domain.fraudscoring.FraudScoring;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class DetectionServiceTest {
+    private DetectionService<?> service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) service.destroy();
+    }
+
+    @Test
+    void sinksAreWrittenInParallel() {
+        CountDownLatch bothStoring = new CountDownLatch(2);
+        // each sink only returns once the other one is storing too
+        StoreFraudScoringPort sink = fraudScorings -> {
+            bothStoring.countDown();
+            try {
+                assertTrue(bothStoring.await(5, TimeUnit.SECONDS), "sinks were written one after another");
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return fraudScorings.size();
+        };
+        service = service(List.of(sink, sink));
+
+        ReflectionTestUtils.invokeMethod(service, "store", List.<FraudScoring>of());
+        assertEquals(0, bothStoring.getCount());
+    }
+
+    @Test
+    void aFailingSinkFailsTheStore() {
+        StoreFraudScoringPort ok = List::size;
+        StoreFraudScoringPort failing = fraudScorings -> {
+            throw new IllegalStateException("sink down");
+        };
+        service = service(List.of(ok, failing));
+
+        CompletionException e = assertThrows(CompletionException.class,
+            () -> ReflectionTestUtils.invokeMethod(service, "store", List.<FraudScoring>of()));
+        assertEquals("sink down", e.getCause().getMessage());
+    }
+
+    private static DetectionService<?> service(List<StoreFraudScoringPort> sinks) {
+        DetectionService<?> service = new DetectionService<>(null, null, null, sinks, null);
+        ReflectionTestUtils.setField(service, "excludeFromFeaturesStr", "");
+        ReflectionTestUtils.setField(service, "parallelism", 1);
+        service.init();
+        return service;
+    }
+}
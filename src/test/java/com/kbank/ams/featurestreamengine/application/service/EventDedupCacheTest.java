@@ -0,0 +1,47 @@
+package com.kbank.ams.featurestreamengine.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class EventDedupCacheTest {
+    @Test
+    void skipsSeenAndRepeatedUuids() {
+        EventDedupCache cache = new EventDedupCache(true, 60_000, 1000);
+        List<Map<String, Object>> first = List.of(Map.of("uuid", "a"), Map.of("uuid", "b"), Map.of("uuid", "a"), Map.of("x", 1));
+
+        List<Map<String, Object>> unseen = cache.filterUnseen("f", first);
+        assertEquals(3, unseen.size());
+        // nothing is remembered until the batch was stored
+        assertEquals(3, cache.filterUnseen("f", first).size());
+
+        cache.markSeen("f", unseen);
+        assertEquals(List.of(Map.of("x", 1), Map.of("uuid", "c")),
+            cache.filterUnseen("f", List.of(Map.of("uuid", "b"), Map.of("x", 1), Map.of("uuid", "c"))));
+    }
+
+    @Test
+    void forgetsAfterTwoRotations() {
+        EventDedupCache cache = new EventDedupCache(true, 60_000, 2);
+        cache.markSeen("f", List.of(Map.of("uuid", "a"), Map.of("uuid", "b")));
+        cache.markSeen("f", List.of(Map.of("uuid", "c"), Map.of("uuid", "d")));  // rotates: a,b in previous generation
+        assertEquals(0, cache.filterUnseen("f", List.of(Map.of("uuid", "a"))).size());
+
+        cache.markSeen("f", List.of(Map.of("uuid", "e")));                         // rotates again: a,b dropped
+        assertEquals(1, cache.filterUnseen("f", List.of(Map.of("uuid", "a"))).size());
+        assertEquals(0, cache.filterUnseen("f", List.of(Map.of("uuid", "d"))).size());
+    }
+
+    @Test
+    void remembersUuidsPerFlow() {
+        EventDedupCache cache = new EventDedupCache(true, 60_000, 1000);
+        List<Map<String, Object>> batch = List.of(Map.of("uuid", "a"), Map.of("uuid", "b"));
+
+        // f stored the batch, g failed it: the retry only runs on g
+        cache.markSeen("f", batch);
+        assertEquals(0, cache.filterUnseen("f", batch).size());
+        assertEquals(2, cache.filterUnseen("g", batch).size());
+    }
+}
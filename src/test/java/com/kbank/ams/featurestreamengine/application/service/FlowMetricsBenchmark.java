@@ -0,0 +1,66 @@
+package com.kbank.ams.featurestreamengine.application.service;
+
+import com.kbank.ams.featurestreamengine.domain.flow.Flow;
+import com.kbank.ams.featurestreamengine.domain.flow.process.Process;
+import com.kbank.ams.featurestreamengine.domain.flow.process.ProcessStats;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Cost of recording one micro-batch of a process: {@link ProcessStats} alone vs also exported to the
+ * Prometheus registry through {@link FlowMetrics} (histogram timer + counters).
+ *
+ * Run {@link #main(String[])} from the test classpath; add {@code -prof gc} to check the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class FlowMetricsBenchmark {
+    @Param({"false", "true"})
+    boolean exported;
+
+    ProcessStats stats;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> attribute = Map.of("exprs", List.of(Map.of("expr", "NVL(:cust_id, '')", "as", "x")));
+        Process process = new Process("", Map.of("type", "FILTER", "detailType", "OPERATOR", "attribute", attribute), null, null);
+        Flow flow = new Flow("bench", Map.of("name", "bench"));
+        flow.addProcess(process);
+        if (exported) {
+            new FlowMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)).bind(List.of(flow));
+        }
+        stats = process.getStats();
+    }
+
+    @Benchmark
+    public void record() {
+        stats.record(100, 90, 250_000L);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FlowMetricsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,33 @@
+package com.kbank.ams.featurestreamengine.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.kbank.ams.featurestreamengine.domain.detection.DetectionResult;
+import com.kbank.ams.featurestreamengine.domain.flow.Flow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class FlowMetricsTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final FlowMetrics metrics = new FlowMetrics(registry);
+
+    @Test
+    void removesStageMetersOfFlowsNoLongerLoaded() {
+        Flow kept = new Flow("kept", Map.of("name", "kept"));
+        Flow dropped = new Flow("dropped", Map.of("name", "dropped"));
+        metrics.bind(List.of(kept, dropped));
+        DetectionResult result = DetectionResult.builder().inputCount(1).scoredCount(1).flowNanos(1_000).build();
+        metrics.record(kept, result);
+        metrics.record(dropped, result);
+
+        metrics.bind(List.of(kept));
+
+        assertEquals(3, registry.find("fse.detection.stage").tag("flow", "kept").timers().size());
+        assertEquals(1.0, registry.get("fse.detection.scored").tag("flow", "kept").counter().count());
+        assertNull(registry.find("fse.detection.stage").tag("flow", "dropped").timer());
+        assertNull(registry.find("fse.detection.scored").tag("flow", "dropped").counter());
+    }
+}
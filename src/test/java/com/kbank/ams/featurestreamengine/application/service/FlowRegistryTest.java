@@ -0,0 +1,45 @@
+package com.kbank.ams.featurestreamengine.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.kbank.ams.featurestreamengine.domain.flow.Flow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class FlowRegistryTest {
+
+    @Test
+    void swappedVersionIsRetiredOnceItsBatchesDrain() {
+        FlowRegistry registry = new FlowRegistry(List.of(), null, new FlowMetrics(new SimpleMeterRegistry()));
+        registry.init();
+
+        FlowVersion first = registry.acquire();
+        Flow flow = new Flow("f", Map.of("name", "f"));
+        FlowVersion second = registry.swap(Map.of("f", flow));
+
+        assertEquals(2, second.getNumber());
+        assertSame(flow, registry.get("f"));
+        assertTrue(first.all().isEmpty());    // the in-flight batch keeps its flows
+        assertFalse(first.isRetired());
+
+        registry.release(first);
+        assertTrue(first.isRetired());
+        assertFalse(second.isRetired());
+    }
+
+    @Test
+    void versionWithoutBatchesIsRetiredOnSwap() {
+        FlowRegistry registry = new FlowRegistry(List.of(), null, new FlowMetrics(new SimpleMeterRegistry()));
+        registry.init();
+        FlowVersion first = registry.current();
+
+        registry.swap(Map.of());
+
+        assertTrue(first.isRetired());
+    }
+}
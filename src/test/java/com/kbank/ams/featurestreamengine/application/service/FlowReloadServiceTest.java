@@ -0,0 +1,125 @@
+package com.kbank.ams.featurestreamengine.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.kbank.ams.featurestreamengine.application.factory.FlowFactory;
+import com.kbank.ams.featurestreamengine.application.factory.ProcessFactory;
+import com.kbank.ams.featurestreamengine.common.kafka.ProjectedEvent;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowReloadResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class FlowReloadServiceTest {
+    private static final String TRANSFERS = "{\"name\": \"f\", \"route\": {\"when\": \":tx_tp = 'TRANSFER'\"}}";
+    private static final String LARGE = "{\"name\": \"f\", \"route\": {\"when\": \":tx_amt > 100\"}}";
+
+    @TempDir
+    Path dir;
+
+    private FlowFactory flowFactory;
+    private FlowRegistry flowRegistry;
+    private FlowFieldProjection projection;
+    private FlowReloadService reloadService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        writeSpec(TRANSFERS);
+        Files.writeString(dir.resolve("flow.list"), "f\n");
+
+        flowFactory = new FlowFactory(Map.of("f", TRANSFERS), new ProcessFactory(null, null));
+        ReflectionTestUtils.setField(flowFactory, "configDir", dir.toString());
+        ReflectionTestUtils.setField(flowFactory, "ioThreads", 1);
+        flowFactory.init();
+        flowRegistry = new FlowRegistry(List.of("f"), flowFactory, new FlowMetrics(new SimpleMeterRegistry()));
+        flowRegistry.init();
+
+        projection = new FlowFieldProjection(flowRegistry);
+        ReflectionTestUtils.setField(projection, "excludeFromFeaturesStr", "");
+        ReflectionTestUtils.setField(projection, "extraFieldsStr", "");
+        projection.refresh();
+
+        reloadService = new FlowReloadService(flowRegistry, flowFactory, projection);
+        ReflectionTestUtils.setField(reloadService, "configDir", dir.toString());
+        ReflectionTestUtils.setField(reloadService, "flowListPath", dir.resolve("flow.list").toString());
+        ReflectionTestUtils.setField(reloadService, "projectionDrainTimeoutMs", 10_000L);
+        reloadService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        flowFactory.destroy();
+    }
+
+    @Test
+    void swapWaitsForEventsReadWithoutTheNewFields() throws Exception {
+        ProjectedEvent queued = new ProjectedEvent(projection.acquire(), Map.of("uuid", "u-1", "tx_tp", "TRANSFER"));
+        writeSpec(LARGE);
+
+        CompletableFuture<FlowReloadResult> reload = CompletableFuture.supplyAsync(reloadService::reload);
+        await(() -> projection.fields().contains("tx_amt"));
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(1, flowRegistry.current().getNumber());  // the queued event still runs on the old flow
+
+        queued.markDetected();
+        FlowReloadResult result = reload.get(10, TimeUnit.SECONDS);
+
+        assertEquals(2, result.getVersion());
+        assertEquals(List.of("f"), result.getReloaded());
+        assertEquals(2, flowRegistry.current().getNumber());
+        // nothing ran on the old version, so it retired on the swap and the projection was narrowed
+        assertTrue(projection.fields().contains("tx_amt"));
+        assertFalse(projection.fields().contains("tx_tp"));
+    }
+
+    @Test
+    void projectionIsNarrowedOnceTheOldVersionRetires() {
+        FlowVersion running = flowRegistry.acquire();
+        writeSpec(LARGE);
+
+        assertEquals(2, reloadService.reload().getVersion());
+        assertTrue(projection.fields().containsAll(List.of("tx_tp", "tx_amt")));
+
+        flowRegistry.release(running);
+        assertTrue(running.isRetired());
+        assertTrue(projection.fields().contains("tx_amt"));
+        assertFalse(projection.fields().contains("tx_tp"));
+    }
+
+    @Test
+    void unchangedFlowsAreNotSwapped() {
+        FlowReloadResult result = reloadService.reload();
+
+        assertEquals(1, result.getVersion());
+        assertEquals(List.of("f"), result.getUnchanged());
+    }
+
+    private void writeSpec(String spec) {
+        try {
+            Files.createDirectories(dir.resolve("flow/f"));
+            Files.writeString(dir.resolve("flow/f/spec.json"), spec);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+}
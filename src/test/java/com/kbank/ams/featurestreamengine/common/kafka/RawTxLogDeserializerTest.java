@@ -0,0 +1,64 @@
+package com.kbank.ams.featurestreamengine.common.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.kbank.ams.featurestreamengine.common.util.JsonUtil;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+class RawTxLogDeserializerTest {
+    private static final String JSON = """
+        {"uuid":"u-1","cust_id":"C1","tx_amt":12000,"big":12345678901234,"rate":0.25,
+         "flag":true,"memo":null,"nested":{"a":[1,2,{"b":"c"}]},"unused":{"x":[1,2,3]},"skip":"s"}
+        """;
+
+    @Test
+    void projectsFieldsWithSameTypesAsUntypedMap() throws Exception {
+        Set<String> fields = Set.of("uuid", "cust_id", "tx_amt", "big", "rate", "flag", "memo", "nested");
+        RawTxLogDeserializer deserializer = new RawTxLogDeserializer(acquiring(new FieldProjection(1, fields)));
+
+        Map<String, Object> actual = deserializer.deserialize("raw.tx.log", JSON.getBytes(StandardCharsets.UTF_8));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> full = JsonUtil.om.readValue(JSON, Map.class);
+        Map<String, Object> expected = new LinkedHashMap<>(full);
+        expected.keySet().retainAll(fields);
+        assertEquals(expected, actual);
+        expected.forEach((k, v) -> assertEquals(v == null ? null : v.getClass(),
+            actual.get(k) == null ? null : actual.get(k).getClass(), k));
+    }
+
+    @Test
+    void eventsHoldTheirProjectionUntilDetected() {
+        FieldProjection projection = new FieldProjection(1, Set.of("uuid"));
+        RawTxLogDeserializer deserializer = new RawTxLogDeserializer(acquiring(projection));
+
+        ProjectedEvent event = (ProjectedEvent) deserializer.deserialize("raw.tx.log", JSON.getBytes(StandardCharsets.UTF_8));
+        assertThrows(SerializationException.class,
+            () -> deserializer.deserialize("raw.tx.log", "{\"uuid\": ".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(1, projection.pending());
+
+        event.markDetected();
+        event.markDetected();
+        assertEquals(0, projection.pending());
+    }
+
+    @Test
+    void nullPayloadIsTombstone() {
+        assertNull(new RawTxLogDeserializer(acquiring(new FieldProjection(1, Set.of()))).deserialize("raw.tx.log", null));
+    }
+
+    private static Supplier<FieldProjection> acquiring(FieldProjection projection) {
+        return () -> {
+            projection.acquire();
+            return projection;
+        };
+    }
+}
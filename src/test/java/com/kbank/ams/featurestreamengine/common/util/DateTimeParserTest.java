@@ -0,0 +1,82 @@
+package com.kbank.ams.featurestreamengine.common.util;
+
+import static com.kbank.ams.featurestreamengine.common.util.OutcomeAssertions.assertSameOutcome;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The hand parsers and pre-checks against the JDK parsers they stand in for: same value, or the same exception.
+ */
+class DateTimeParserTest {
+    private static final List<String> PATTERNS = List.of(
+        "yyyyMMddHHmmss", "yyyyMMddHHmmssSSS", "yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd HH:mm:ss.SSS", "yyyy-MM-dd'T'HH:mm:ss");
+
+    @Test
+    void rawTxLogTimestampsParseByHand() {
+        assertEquals(LocalDateTime.of(2024, 1, 1, 12, 0, 0),
+            DateTimeParser.format("yyyyMMddHHmmss").toLocalDateTime("20240101120000"));
+        assertEquals(Instant.parse("2024-03-01T09:58:30.125Z"), DateTimeParser.instant("2024-03-01T09:58:30.125Z"));
+        assertNull(DateTimeParser.instant("TRANSFER"));
+        assertNull(DateTimeParser.instant("2024-03-01 09:58:30"));
+    }
+
+    @Test
+    void fixedWidthPatternsParseLikeTheFormatter() {
+        Random random = new Random(3);
+        for (String pattern : PATTERNS) {
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern);
+            String template = pattern.replace("'", "");
+            for (int i = 0; i < 5_000; i++) {
+                String text = fill(random, template);
+                assertSameOutcome(pattern + " " + text,
+                    () -> LocalDateTime.parse(text, formatter),
+                    () -> DateTimeParser.format(pattern).toLocalDateTime(text));
+            }
+        }
+    }
+
+    @Test
+    void instantsParseLikeInstantParse() {
+        Random random = new Random(5);
+        List<String> templates = List.of("yyyy-MM-ddTHH:mm:ssZ", "yyyy-MM-ddTHH:mm:ss.SSSZ", "yyyy-MM-ddtHH:mm:ssz",
+            "yyyy-MM-ddTHH:mm:ss.SSSSSSZ", "yyyy-MM-ddTHH:mm:ss+09:00", "yyyy-MM-ddTHH:mmZ", "yyyy-MM-dd HH:mm:ssZ",
+            "+yyyyy-MM-ddTHH:mm:ssZ", "yyyyMMddHHmmss", "TRANSFER", "T", "");
+        for (int i = 0; i < 20_000; i++) {
+            String text = fill(random, templates.get(random.nextInt(templates.size())));
+            Instant expected;
+            try {
+                expected = Instant.parse(text);
+            } catch (Exception e) {
+                expected = null;
+            }
+            assertEquals(expected, DateTimeParser.instant(text), text);
+        }
+    }
+
+    /**
+     * The template with each pattern letter replaced by a digit, biased toward edge values of the field.
+     */
+    private static String fill(Random random, String template) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < template.length(); i++) {
+            char c = template.charAt(i);
+            boolean field = c == 'y' || c == 'M' || c == 'd' || c == 'H' || c == 'm' || c == 's' || c == 'S';
+            if (!field) {
+                sb.append(c);
+            } else if (random.nextInt(50) == 0) {
+                sb.append(random.nextBoolean() ? 'x' : ' ');
+            } else {
+                boolean first = i == 0 || template.charAt(i - 1) != c;
+                sb.append(first && c != 'y' && c != 'S' ? (char) ('0' + random.nextInt(4)) : (char) ('0' + random.nextInt(10)));
+            }
+        }
+        return sb.toString();
+    }
+}
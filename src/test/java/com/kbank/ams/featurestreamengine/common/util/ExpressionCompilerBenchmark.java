@@ -0,0 +1,84 @@
+package com.kbank.ams.featurestreamengine.common.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * One DERIVED expression and one FILTER condition per event: interpreted from the string, compiled once into a
+ * tree, and as {@link ExpressionCompiler#generate generated} classes.
+ *
+ * Run {@link #main(String[])} from the test classpath; add {@code -prof gc} to check the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpressionCompilerBenchmark {
+    static final Map<String, String[]> EXPRESSIONS = Map.of(
+        // string comparisons: compareSmart rules out numbers and instants before comparing the text
+        "strings", new String[] {
+            "IF(:tx_amt >= 1000000 AND :tx_tp = 'TRANSFER', CONCAT(:cust_id, '-H'), NVL(:memo, 'N/A'))",
+            ":tx_amt > 100000 AND :wd_or_dp = 'WD' AND :memo NOT LIKE '%salary%'"},
+        "numbers", new String[] {
+            "IF(:tx_amt >= 1000000 AND :fee IS NULL, :tx_amt + 100, COALESCE(:fee, :tx_amt))",
+            ":tx_amt > 100000 AND :memo IS NOT NULL AND :cust_id NOT LIKE 'X%'"});
+
+    @Param({"strings", "numbers"})
+    String expressions;
+
+    String valueExpr;
+    String conditionExpr;
+    Map<String, Object> record;
+    CompiledExpression value;
+    CompiledExpression condition;
+    CompiledExpression generatedValue;
+    CompiledExpression generatedCondition;
+
+    @Setup
+    public void setUp() {
+        record = new HashMap<>(Map.of(
+            "cust_id", "C001", "tx_tp", "TRANSFER", "tx_amt", 1_500_000L, "wd_or_dp", "WD", "memo", "birthday gift"));
+        valueExpr = EXPRESSIONS.get(expressions)[0];
+        conditionExpr = EXPRESSIONS.get(expressions)[1];
+        value = ExpressionCompiler.compile(valueExpr);
+        condition = ExpressionCompiler.compileCondition(conditionExpr);
+        generatedValue = ExpressionCompiler.generate(value);
+        generatedCondition = ExpressionCompiler.generate(condition);
+    }
+
+    @Benchmark
+    public boolean interpreted() {
+        return ExpressionEvaluator.evaluate(valueExpr, record) != null && ExpressionEvaluator.matches(conditionExpr, record);
+    }
+
+    @Benchmark
+    public boolean compiled() {
+        return value.evaluate(record) != null && condition.matches(record);
+    }
+
+    @Benchmark
+    public boolean generated() {
+        return generatedValue.evaluate(record) != null && generatedCondition.matches(record);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ExpressionCompilerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,204 @@
+package com.kbank.ams.featurestreamengine.common.util;
+
+import static com.kbank.ams.featurestreamengine.common.util.OutcomeAssertions.assertSameOutcome;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.kbank.ams.featurestreamengine.domain.flow.FlowEnum;
+import com.kbank.ams.featurestreamengine.domain.flow.record.FeatureSchema;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compiled expressions, as trees and as generated classes, against the interpreter: same value, or the same
+ * exception type and message.
+ */
+class ExpressionCompilerTest {
+    private static final List<String> EXPRESSIONS = List.of(
+        ":tx_amt + 100 - :fee",
+        "-:tx_amt + 1",
+        "CONCAT(:cust_id, '-', :tx_tp, :missing)",
+        "NVL(:missing, 'N/A')",
+        "COALESCE(:missing, :none, :tx_amt)",
+        "IF(:tx_amt >= 1000 AND :tx_tp = 'TRANSFER', 'HIGH', 'LOW')",
+        "IF(:memo LIKE '%gift%' OR :memo IS NULL, 1, 0)",
+        "TIMEDIFF(:tx_dt, :prev_dt, 'SECONDS')",
+        "TIMEDIFF(:tx_dt, :prev_dt, :unit)",
+        "TIMEDIFF(:tx_dt, :prev_dt, 'WEEKS')",
+        "TIMEDIFF(:tx_dt, :prev_dt)",
+        "TO_LOCAL_DATETIME(:tx_dt_str, 'yyyy-MM-dd HH:mm:ss')",
+        "TO_LOCAL_DATETIME(:tx_dt, 'yyyy-MM-dd')",
+        "TO_LOCAL_DATETIME(:tx_dt_str, 'bad pattern {')",
+        "CONCAT(:cust_id",
+        "UPPER(:cust_id)",
+        ":tx_amt > 1000000 AND :wd_or_dp = 'WD'",
+        ":cust_id NOT LIKE 'C\\_%'",
+        ":cust_id LIKE :cust_pattern",
+        ":memo LIKE NULL",
+        "(:tx_amt != 0)",
+        ":tx_tp IS NOT NULL",
+        ":flag",
+        "");
+
+    @Test
+    void compiledExpressionsEvaluateLikeTheInterpreter() {
+        for (Map<String, Object> record : records()) {
+            for (String expr : EXPRESSIONS) {
+                assertSame(expr, record);
+            }
+        }
+    }
+
+    @Test
+    void randomExpressionsEvaluateLikeTheInterpreter() {
+        Random random = new Random(42);
+        List<Map<String, Object>> records = records();
+        for (int i = 0; i < 2000; i++) {
+            String expr = random.nextBoolean() ? new Generator(random).value(3) : new Generator(random).condition(3);
+            for (Map<String, Object> record : records) {
+                assertSame(expr, record);
+            }
+        }
+    }
+
+    @Test
+    void fieldReferencesRebindWhenTheRecordLayoutChanges() {
+        CompiledExpression expr = ExpressionCompiler.compile("CONCAT(:a, :b)");
+        Map<String, Object> values = Map.of("a", "1", "b", "2");
+        Map<String, FlowEnum.FieldType> ab = new LinkedHashMap<>();
+        ab.put("a", null);
+        ab.put("b", null);
+        Map<String, FlowEnum.FieldType> ba = new LinkedHashMap<>();
+        ba.put("b", null);
+        ba.put("a", null);
+
+        assertEquals("12", expr.evaluate(FeatureSchema.of(ab).wrap(values)));
+        assertEquals("12", expr.evaluate(FeatureSchema.of(ba).wrap(values)));
+        assertEquals("12", expr.evaluate(FeatureSchema.of(Map.of("a", FlowEnum.FieldType.STRING)).wrap(values)));
+        assertEquals("12", expr.evaluate(values));
+    }
+
+    @Test
+    void blankConditionsAlwaysMatch() {
+        assertTrue(ExpressionCompiler.compileCondition(null).matches(Map.of()));
+        assertTrue(ExpressionCompiler.compileCondition(" ").matches(Map.of()));
+        assertFalse(ExpressionCompiler.compileCondition(":missing").matches(Map.of()));
+    }
+
+    @Test
+    void generatedClassesReplaceTheTree() {
+        CompiledExpression tree = ExpressionCompiler.compileCondition(":tx_amt > 1000 AND :memo LIKE '%gift%'");
+        CompiledExpression generated = ExpressionCompiler.generate(tree);
+        assertNotSame(tree, generated);
+        assertTrue(generated.matches(Map.of("tx_amt", 1500L, "memo", "Gift card")));
+        assertEquals(Boolean.FALSE, generated.evaluate(Map.of("tx_amt", 999L, "memo", "Gift card")));
+
+        CompiledExpression filter = ExpressionCompiler.generate(ExpressionCompiler.allOf(List.of(
+            ExpressionCompiler.compileCondition(":tx_tp = 'TRANSFER'"), ExpressionCompiler.compileCondition(":cust_id IS NOT NULL"))));
+        assertTrue(filter.matches(Map.of("tx_tp", "TRANSFER", "cust_id", "C1")));
+        assertFalse(filter.matches(Map.of("tx_tp", "TRANSFER")));
+    }
+
+    private static void assertSame(String expr, Map<String, Object> record) {
+        assertSameOutcome(expr, () -> ExpressionEvaluator.evaluate(expr, record), () -> ExpressionCompiler.compile(expr).evaluate(record));
+        assertSameOutcome(expr, () -> ExpressionEvaluator.matches(expr, record), () -> ExpressionCompiler.compileCondition(expr).matches(record));
+        assertSameOutcome(expr, () -> ExpressionEvaluator.evaluate(expr, record),
+            () -> ExpressionCompiler.generate(ExpressionCompiler.compile(expr)).evaluate(record));
+        assertSameOutcome(expr, () -> ExpressionEvaluator.matches(expr, record),
+            () -> ExpressionCompiler.generate(ExpressionCompiler.compileCondition(expr)).matches(record));
+    }
+
+    /**
+     * The same event as a plain map and as records of a schema that knows part of its fields.
+     */
+    private static List<Map<String, Object>> records() {
+        Map<String, Object> event = new HashMap<>();
+        event.put("cust_id", "C_001");
+        event.put("cust_pattern", "c\\_0%");
+        event.put("tx_tp", "TRANSFER");
+        event.put("wd_or_dp", "WD");
+        event.put("tx_amt", 1_500_000L);
+        event.put("fee", new BigDecimal("12.50"));
+        event.put("memo", "birthday gift");
+        event.put("tx_dt", Instant.parse("2024-03-01T10:00:00Z"));
+        event.put("prev_dt", "2024-03-01T09:58:30Z");
+        event.put("tx_dt_str", "2024-03-01 19:00:00");
+        event.put("unit", "minutes");
+        event.put("flag", "true");
+        event.put("none", null);
+
+        Map<String, FlowEnum.FieldType> fields = new LinkedHashMap<>();
+        fields.put("tx_amt", FlowEnum.FieldType.LONG);
+        fields.put("cust_id", null);
+        fields.put("memo", null);
+        fields.put("none", null);
+        fields.put("absent", null);
+
+        Map<String, Object> withoutMemo = new HashMap<>(event);
+        withoutMemo.remove("memo");
+        withoutMemo.put("tx_amt", 999L);
+
+        return List.of(event, FeatureSchema.of(fields).wrap(event), FeatureSchema.of(fields).wrap(withoutMemo), withoutMemo);
+    }
+
+    private record Generator(Random random) {
+        private static final String[] ATOMS = {
+            ":tx_amt", ":fee", ":cust_id", ":tx_tp", ":memo", ":tx_dt", ":prev_dt", ":tx_dt_str", ":none", ":absent",
+            ":unit", ":flag", "'TRANSFER'", "'C\\_%'", "'%gift%'", "''", "1000", "-3", "12.5", "'SECONDS'", "null", "x"};
+        private static final String[] COMPARATORS = {"=", "!=", ">", "<", ">=", "<="};
+
+        String value(int depth) {
+            if (depth == 0 || random.nextInt(3) == 0) return pick(ATOMS);
+            int d = depth - 1;
+            return switch (random.nextInt(12)) {
+                case 0 -> "CONCAT(" + String.join(", ", values(d, 1 + random.nextInt(3))) + ")";
+                case 1 -> "NVL(" + value(d) + ", " + value(d) + ")";
+                case 2 -> "COALESCE(" + String.join(", ", values(d, random.nextInt(3))) + ")";
+                case 3 -> "IF(" + condition(d) + ", " + value(d) + ", " + value(d) + ")";
+                case 4 -> "TIMEDIFF(" + value(d) + ", " + value(d) + ", " + pick(":unit", "'HOURS'", "'days'", "'YEARS'") + ")";
+                case 5 -> "TO_LOCAL_DATETIME(" + value(d) + ", " + pick("'yyyy-MM-dd HH:mm:ss'", ":tx_tp", "'yyyy'") + ")";
+                case 6 -> value(d) + " + " + value(d);
+                case 7 -> value(d) + " - " + value(d) + " + " + value(d);
+                case 8 -> "IF(" + condition(d) + ", " + value(d) + ")";
+                case 9 -> "TIMEDIFF(" + value(d) + ")";
+                case 10 -> "NVL(" + value(d);
+                default -> "(" + value(d) + ")";
+            };
+        }
+
+        String condition(int depth) {
+            if (depth == 0) return value(0);
+            int d = depth - 1;
+            return switch (random.nextInt(9)) {
+                case 0 -> condition(d) + " AND " + condition(d);
+                case 1 -> condition(d) + " OR " + condition(d);
+                case 2 -> "(" + condition(d) + ")";
+                case 3 -> value(d) + " LIKE " + pick(ATOMS);
+                case 4 -> value(d) + " NOT LIKE " + value(d);
+                case 5 -> value(d) + " IS NULL";
+                case 6 -> value(d) + " IS NOT NULL";
+                case 7 -> value(d);
+                default -> value(d) + " " + pick(COMPARATORS) + " " + value(d);
+            };
+        }
+
+        private List<String> values(int depth, int count) {
+            List<String> values = new ArrayList<>();
+            for (int i = 0; i < count; i++) values.add(value(depth));
+            return values;
+        }
+
+        private String pick(String... options) {
+            return options[random.nextInt(options.length)];
+        }
+    }
+}
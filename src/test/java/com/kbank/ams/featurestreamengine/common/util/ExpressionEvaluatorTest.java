@@ -0,0 +1,75 @@
+package com.kbank.ams.featurestreamengine.common.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The long/double fast paths of arithmetic and comparison against doing both in BigDecimal, as before.
+ */
+class ExpressionEvaluatorTest {
+
+    @Test
+    void numbersAreScannedLikeTheRegex() {
+        for (String s : List.of("0", "-12", "+3", "1.5", "007.250", "", "-", "+.5", "1.", ".5", "1e5", "1.2.3", "١٢", " 1")) {
+            assertEquals(s.matches("[+-]?\\d+(?:\\.\\d+)?"), ExpressionEvaluator.isNumber(s), s);
+        }
+    }
+
+    @Test
+    void sumsAndComparisonsMatchBigDecimal() {
+        Random random = new Random(11);
+        for (int i = 0; i < 50_000; i++) {
+            Object a = randomNumber(random);
+            Object b = randomNumber(random);
+            boolean plus = random.nextBoolean();
+
+            BigDecimal expected = plus ? reference(a).add(reference(b)) : reference(a).subtract(reference(b));
+            BigDecimal actual = ExpressionEvaluator.toBigDecimal(
+                ExpressionEvaluator.sum(ExpressionEvaluator.number(a), ExpressionEvaluator.number(b), plus));
+            assertEquals(expected, actual, a + (plus ? " + " : " - ") + b);
+
+            if (a != null && b != null) {
+                assertEquals(Integer.signum(reference(a).compareTo(reference(b))),
+                    Integer.signum(ExpressionEvaluator.compareSmart(a, b)), a + " <=> " + b);
+            }
+        }
+    }
+
+    @Test
+    void overflowFallsBackToBigDecimal() {
+        Object max = ExpressionEvaluator.sum(Long.MAX_VALUE, 1, true);
+        assertEquals(new BigDecimal("9223372036854775808"), max);
+        assertEquals(new BigDecimal("-9223372036854775809"), ExpressionEvaluator.sum(Long.MIN_VALUE, 1L, false));
+        assertTrue(ExpressionEvaluator.compareSmart("999999999999999999999", Long.MAX_VALUE) > 0);
+        assertFalse(ExpressionEvaluator.compareSmart(-0.0d, 0.0d) != 0);
+    }
+
+    private static Object randomNumber(Random random) {
+        long edge = random.nextBoolean() ? Long.MAX_VALUE - random.nextInt(100) : Long.MIN_VALUE + random.nextInt(100);
+        long small = random.nextInt(2001) - 1000;
+        return switch (random.nextInt(12)) {
+            case 0 -> null;
+            case 1 -> (int) small;
+            case 2 -> small;
+            case 3 -> edge;
+            case 4 -> (short) small;
+            case 5 -> small / 10.0;
+            case 6 -> random.nextDouble() * 1e20;
+            case 7 -> BigDecimal.valueOf(small, random.nextInt(3));
+            case 8 -> new BigDecimal(edge + "" + random.nextInt(10));
+            case 9 -> String.valueOf(small);
+            case 10 -> (edge > 0 && random.nextBoolean() ? "+" : "") + edge;
+            default -> small + "." + random.nextInt(100);
+        };
+    }
+
+    private static BigDecimal reference(Object v) {
+        return v == null ? BigDecimal.ZERO : v instanceof BigDecimal bd ? bd : new BigDecimal(v.toString());
+    }
+}
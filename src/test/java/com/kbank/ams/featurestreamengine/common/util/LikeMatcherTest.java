@@ -0,0 +1,75 @@
+package com.kbank.ams.featurestreamengine.common.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+/**
+ * LikeMatcher against the regex LIKE was evaluated with before, for compiled and per-event patterns.
+ */
+class LikeMatcherTest {
+    // wildcards, escapes, regex meta characters, case pairs with Unicode folding quirks, line terminators, surrogates
+    private static final String[] PATTERN_PARTS = {
+        "%", "%", "_", "\\", "\\%", "\\_", "\\\\", "a", "A", "b", "k", "K", "K", "s", "ſ", "i", "I", "İ",
+        "ı", "ß", "ẞ", ".", "*", "$", "^", "(", "[", "\n", " ", "😀", "\uD83D", "가", "계좌"};
+    private static final String[] TEXT_PARTS = {
+        "a", "A", "b", "B", "k", "K", "K", "s", "S", "ſ", "i", "I", "İ", "ı", "ß", "ẞ", "%", "_",
+        "\\", ".", "*", "$", "\n", "\r", "\u0085", " ", "😀", "\uDE00", "가", "계좌"};
+
+    @Test
+    void commonShapesMatchWithoutRegex() {
+        assertTrue(LikeMatcher.compile("%gift%").matches("Birthday GIFT card"));
+        assertTrue(LikeMatcher.compile("KB%").matches("kbank"));
+        assertTrue(LikeMatcher.compile("%은행").matches("케이뱅크은행"));
+        assertTrue(LikeMatcher.compile("transfer").matches("TRANSFER"));
+        assertFalse(LikeMatcher.compile("transfer").matches("TRANSFERS"));
+        assertFalse(LikeMatcher.compile("%gift%").matches("gift\ncard"));
+        assertFalse(LikeMatcher.compile("%").matches(null));
+        assertTrue(LikeMatcher.matches("C_001", "c\\_0%"));
+        assertFalse(LikeMatcher.matches("CX001", "c\\_0%"));
+    }
+
+    @Test
+    void matchesLikeTheRegex() {
+        List<String> patterns = List.of("", "%", "%%", "_", "a%", "%a", "%a%", "a_c", "%a%b%", "a\\%", "a\\", "\\\\%", "%\\%%",
+            "%ß%", "ß", "k%", "%s_", "__%");
+        List<String> texts = List.of("", "a", "A", "abc", "ABC", "a%", "a\\", "\\x", "x%y", "ß", "ẞ", "Kx", "ſ!",
+            "a\nb", "😀sß", "strasse");
+        for (String pattern : patterns) {
+            for (String text : texts) {
+                assertLikeRegex(pattern, text);
+            }
+        }
+    }
+
+    @Test
+    void randomPatternsMatchLikeTheRegex() {
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            String pattern = random(random, PATTERN_PARTS, 6);
+            String text = random.nextInt(4) == 0 ? pattern.replace("%", "xy").replace("_", "z") : random(random, TEXT_PARTS, 8);
+            assertLikeRegex(pattern, text);
+        }
+    }
+
+    private static void assertLikeRegex(String pattern, String text) {
+        boolean expected = Pattern.compile(ExpressionEvaluator.sqlLikeToRegex(pattern), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE)
+            .matcher(text).matches();
+        String message = "'" + text + "' LIKE '" + pattern + "'";
+        assertEquals(expected, LikeMatcher.compile(pattern).matches(text), message);
+        assertEquals(expected, LikeMatcher.matches(text, pattern), message);
+    }
+
+    private static String random(Random random, String[] parts, int maxParts) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = random.nextInt(maxParts + 1); i > 0; i--) {
+            sb.append(parts[random.nextInt(parts.length)]);
+        }
+        return sb.toString();
+    }
+}
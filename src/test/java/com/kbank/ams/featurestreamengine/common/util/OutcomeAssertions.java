@@ -0,0 +1,28 @@
+package com.kbank.ams.featurestreamengine.common.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.function.Supplier;
+
+/**
+ * Compares a fast path with the reference it stands in for.
+ */
+final class OutcomeAssertions {
+    private OutcomeAssertions() {
+    }
+
+    /**
+     * Both return equal values, or both throw the same exception type with the same message.
+     */
+    static void assertSameOutcome(String message, Supplier<Object> expected, Supplier<Object> actual) {
+        assertEquals(outcome(expected), outcome(actual), message);
+    }
+
+    private static Object outcome(Supplier<Object> supplier) {
+        try {
+            return supplier.get();
+        } catch (RuntimeException e) {
+            return e.getClass().getName() + ": " + e.getMessage();
+        }
+    }
+}
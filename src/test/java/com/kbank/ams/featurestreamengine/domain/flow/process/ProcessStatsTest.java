@@ -0,0 +1,47 @@
+package com.kbank.ams.featurestreamengine.domain.flow.process;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class ProcessStatsTest {
+    private final AtomicLong now = new AtomicLong();
+    private final ProcessStats stats = new ProcessStats(now::get);
+
+    @Test
+    void failuresAreNotCountedAsFiltered() {
+        stats.record(100, 40, 1_000);
+        stats.recordFailed(50);
+
+        assertEquals(50, stats.samples());
+        assertEquals(0.8, stats.passRate(), 1e-9);
+        assertEquals(100, stats.items());
+    }
+
+    @Test
+    void ratesFollowRecentBatches() {
+        stats.record(1000, 900, 1_000_000);
+        assertEquals(0.9, stats.passRate(), 1e-9);
+
+        advanceSeconds(60);
+        stats.record(1000, 100, 1_000_000);
+        assertEquals(0.5, stats.passRate(), 1e-9);   // the previous window still counts
+
+        advanceSeconds(60);
+        stats.record(1000, 100, 3_000_000);
+        assertEquals(0.1, stats.passRate(), 1e-9);
+        assertEquals(2000, stats.samples());
+        assertEquals(2000, stats.costNanosPerItem(), 1e-9);
+        assertEquals(3000, stats.items());
+
+        advanceSeconds(180);                        // idle: nothing recent left
+        assertEquals(0, stats.samples());
+        assertEquals(1.0, stats.passRate(), 1e-9);
+    }
+
+    private void advanceSeconds(long seconds) {
+        now.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+}
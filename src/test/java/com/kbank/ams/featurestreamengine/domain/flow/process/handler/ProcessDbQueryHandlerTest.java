@@ -0,0 +1,190 @@
+package com.kbank.ams.featurestreamengine.domain.flow.process.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.kbank.ams.featurestreamengine.application.port.out.LoadJdbcPort;
+import com.kbank.ams.featurestreamengine.domain.command.LoadJdbcCommand;
+import com.kbank.ams.featurestreamengine.domain.command.LoadOneJdbcCommand;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowContext;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowEnum;
+import com.kbank.ams.featurestreamengine.domain.flow.process.attribute.ProcessDbQueryAttribute;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProcessDbQueryHandlerTest {
+    @TempDir
+    Path dir;
+
+    private final Map<String, Integer> table = Map.of("C1", 10, "C2", 20);
+    private final AtomicInteger batchCalls = new AtomicInteger();
+    private final AtomicInteger singleCalls = new AtomicInteger();
+
+    private final LoadJdbcPort loadJdbcPort = new LoadJdbcPort() {
+        @Override
+        public Map<String, Object> loadOne(LoadOneJdbcCommand command) {
+            singleCalls.incrementAndGet();
+            Integer score = table.get(command.getParams().get("cust_id"));
+            if (score == null) throw new IllegalStateException("no row");
+            return Map.of("score", score);
+        }
+
+        @Override
+        public Boolean loadBool(LoadOneJdbcCommand command) {
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<Map<String, Object>> load(LoadJdbcCommand command) {
+            batchCalls.incrementAndGet();
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (String key : (List<String>) command.getParams().get("keys")) {
+                if (table.containsKey(key)) rows.add(Map.of("cust_id", key, "score", table.get(key)));
+            }
+            return rows;
+        }
+    };
+
+    @Test
+    void looksUpKeysOnceAndDropsMisses() throws Exception {
+        Files.writeString(dir.resolve("one.sql"), "select score from t where cust_id = :cust_id");
+        Files.writeString(dir.resolve("batch.sql"), "select cust_id, score from t where cust_id in (:keys)");
+        ProcessDbQueryAttribute attribute = new ProcessDbQueryAttribute(dir + "/", Map.of(
+            "database", "SINGLESTORE",
+            "queryFilePath", "one.sql",
+            "fieldSpecs", List.of(Map.of("name", "score", "type", "INTEGER")),
+            "batch", Map.of("keyField", "cust_id", "queryFilePath", "batch.sql")));
+        ProcessDbQueryHandler handler = new ProcessDbQueryHandler(loadJdbcPort, FlowEnum.ProcessType.DERIVED);
+
+        List<Map<String, Object>> items = List.of(item("C1"), item("C2"), item("C1"), item("C9"));
+        List<Map<String, Object>> results = handler.handleBatch(items, attribute, new FlowContext());
+
+        assertEquals(1, batchCalls.get());
+        assertEquals(0, singleCalls.get());   // the miss is dropped like the per-item query would
+        assertEquals(1, handler.getStats().failed());
+        assertEquals(10, results.get(0).get("score"));
+        assertEquals(20, results.get(1).get("score"));
+        assertEquals(10, results.get(2).get("score"));
+        assertNull(results.get(3));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(handler.handle(items.get(i), attribute), results.get(i));
+        }
+    }
+
+    @Test
+    void mostlyMissingKeysTakeOneQuery() throws Exception {
+        ProcessDbQueryHandler handler = new ProcessDbQueryHandler(loadJdbcPort, FlowEnum.ProcessType.DERIVED);
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(item(i == 50 ? "C2" : "X" + i));
+        }
+
+        List<Map<String, Object>> results = handler.handleBatch(items, batchedAttribute(), new FlowContext());
+
+        assertEquals(1, batchCalls.get());
+        assertEquals(0, singleCalls.get());
+        assertEquals(99, handler.getStats().failed());
+        assertEquals(20, results.get(50).get("score"));
+        assertEquals(99, results.stream().filter(Objects::isNull).count());
+    }
+
+    @Test
+    void matchesNumericKeysByTheKeyColumnType() throws Exception {
+        Files.writeString(dir.resolve("one.sql"), "select score from t where cust_no = :cust_no");
+        Files.writeString(dir.resolve("batch.sql"), "select cust_no, score from t where cust_no in (:keys)");
+        ProcessDbQueryAttribute attribute = new ProcessDbQueryAttribute(dir + "/", Map.of(
+            "database", "SINGLESTORE",
+            "queryFilePath", "one.sql",
+            "fieldSpecs", List.of(Map.of("name", "score", "type", "INTEGER"), Map.of("name", "cust_no", "type", "LONG")),
+            "batch", Map.of("keyField", "cust_no", "queryFilePath", "batch.sql")));
+        List<Object> boundKeys = new ArrayList<>();
+        LoadJdbcPort numericPort = new LoadJdbcPort() {
+            @Override
+            public Map<String, Object> loadOne(LoadOneJdbcCommand command) {
+                throw new IllegalStateException("no row");
+            }
+
+            @Override
+            public Boolean loadBool(LoadOneJdbcCommand command) {
+                return true;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public List<Map<String, Object>> load(LoadJdbcCommand command) {
+                boundKeys.addAll((List<Object>) command.getParams().get("keys"));
+                return List.of(Map.of("cust_no", 100L, "score", 7));
+            }
+        };
+        ProcessDbQueryHandler handler = new ProcessDbQueryHandler(numericPort, FlowEnum.ProcessType.DERIVED);
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (Object custNo : List.of("100", new BigDecimal("100.00"), 100)) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("cust_no", custNo);
+            items.add(item);
+        }
+        List<Map<String, Object>> results = handler.handleBatch(items, attribute, null);
+
+        assertEquals(List.of(100L), boundKeys);
+        for (Map<String, Object> result : results) {
+            assertEquals(7, result.get("score"));
+        }
+    }
+
+    @Test
+    void sharesLookupsOfTheSameQueryWithinContext() throws Exception {
+        Files.writeString(dir.resolve("one.sql"), "select score from t where cust_id = :cust_id");
+        Files.writeString(dir.resolve("batch.sql"), "select cust_id, score from t where cust_id in (:keys)");
+        ProcessDbQueryAttribute single = new ProcessDbQueryAttribute(dir + "/", Map.of(
+            "database", "SINGLESTORE",
+            "queryFilePath", "one.sql",
+            "fieldSpecs", List.of(Map.of("name", "score", "type", "INTEGER"))));
+        ProcessDbQueryAttribute batched = new ProcessDbQueryAttribute(dir + "/", Map.of(
+            "database", "SINGLESTORE",
+            "queryFilePath", "one.sql",
+            "fieldSpecs", List.of(Map.of("name", "score", "type", "INTEGER")),
+            "batch", Map.of("keyField", "cust_id", "queryFilePath", "batch.sql")));
+        ProcessDbQueryHandler handler = new ProcessDbQueryHandler(loadJdbcPort, FlowEnum.ProcessType.DERIVED);
+        FlowContext context = new FlowContext();
+
+        // two flows issuing the same per-item query
+        handler.handleBatch(List.of(item("C1"), item("C2")), single, context);
+        List<Map<String, Object>> results = handler.handleBatch(List.of(item("C2"), item("C1")), single, context);
+        assertEquals(2, singleCalls.get());
+        assertEquals(20, results.get(0).get("score"));
+
+        // two flows issuing the same batch query over overlapping keys
+        handler.handleBatch(List.of(item("C1"), item("C2")), batched, context);
+        results = handler.handleBatch(List.of(item("C2"), item("C1"), item("C9")), batched, context);
+        assertEquals(2, batchCalls.get());    // only C9 was not looked up yet
+        assertEquals(20, results.get(0).get("score"));
+        assertNull(results.get(2));
+    }
+
+    private ProcessDbQueryAttribute batchedAttribute() throws Exception {
+        Files.writeString(dir.resolve("one.sql"), "select score from t where cust_id = :cust_id");
+        Files.writeString(dir.resolve("batch.sql"), "select cust_id, score from t where cust_id in (:keys)");
+        return new ProcessDbQueryAttribute(dir + "/", Map.of(
+            "database", "SINGLESTORE",
+            "queryFilePath", "one.sql",
+            "fieldSpecs", List.of(Map.of("name", "score", "type", "INTEGER")),
+            "batch", Map.of("keyField", "cust_id", "queryFilePath", "batch.sql")));
+    }
+
+    private static Map<String, Object> item(String custId) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("cust_id", custId);
+        return item;
+    }
+}
@@ -0,0 +1,166 @@
+package com.kbank.ams.featurestreamengine.domain.flow.process.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.kbank.ams.featurestreamengine.adapter.out.restapi.ApiQueryAdapter;
+import com.kbank.ams.featurestreamengine.adapter.out.restapi.retrofit.RestApiServiceRegistry;
+import com.kbank.ams.featurestreamengine.common.util.JsonUtil;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowContext;
+import com.kbank.ams.featurestreamengine.domain.flow.FlowEnum;
+import com.kbank.ams.featurestreamengine.domain.flow.process.attribute.ProcessReqApiAttribute;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProcessReqApiHandlerTest {
+    private final Map<String, String> grades = Map.of("C1", "A", "C2", "B");
+    private final AtomicInteger singleCalls = new AtomicInteger();
+    private final AtomicInteger batchCalls = new AtomicInteger();
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String baseUrl;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/risk", exchange -> {
+            singleCalls.incrementAndGet();
+            Map<String, Object> request = JsonUtil.om.readValue(exchange.getRequestBody(), new TypeReference<>() {});
+            if ("SLOW".equals(request.get("cust_id"))) sleep(5000);
+            if ("LAGGY".equals(request.get("cust_id"))) sleep(1500);
+            Object custId = request.get("cust_id");
+            Object body = "BAD".equals(custId) ? Map.of("grade", "A", "score", "not-a-number")
+                : grades.containsKey(custId) || "LAGGY".equals(custId) ? response(request) : null;
+            reply(exchange, 200, body);
+        });
+        server.createContext("/risk/batch", exchange -> {
+            batchCalls.incrementAndGet();
+            List<Map<String, Object>> requests = JsonUtil.om.readValue(exchange.getRequestBody(), new TypeReference<>() {});
+            List<Map<String, Object>> responses = new ArrayList<>();
+            requests.forEach(request -> responses.add(response(request)));
+            reply(exchange, 200, responses);
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void callsEachDistinctRequestOnceAndCachesResponses() {
+        ProcessReqApiHandler handler = handler(Map.of("cacheTtlMs", 60_000));
+        ProcessReqApiAttribute attribute = attribute(Map.of("cacheTtlMs", 60_000));
+
+        List<Map<String, Object>> results = handler.handleBatch(List.of(item("C1"), item("C2"), item("C1"), item("C9")), attribute, new FlowContext());
+        assertEquals(3, singleCalls.get());
+        assertEquals("A", results.get(0).get("grade"));
+        assertEquals(2, results.get(1).get("score"));
+        assertEquals("A", results.get(2).get("grade"));
+        assertNull(results.get(3));   // null response body
+
+        handler.handleBatch(List.of(item("C2"), item("C1")), attribute, new FlowContext());
+        assertEquals(3, singleCalls.get());
+    }
+
+    @Test
+    void aggregatesRequestsOfABatch() {
+        Map<String, Object> batch = Map.of("batch", Map.of("path", "risk/batch", "maxItems", 2));
+        ProcessReqApiHandler handler = handler(batch);
+
+        List<Map<String, Object>> results = handler.handleBatch(List.of(item("C1"), item("C2"), item("C3"), item("C1")), attribute(batch), new FlowContext());
+        assertEquals(2, batchCalls.get());   // 3 distinct requests in chunks of 2
+        assertEquals(0, singleCalls.get());
+        assertEquals("B", results.get(1).get("grade"));
+        assertEquals("A", results.get(3).get("grade"));
+    }
+
+    @Test
+    void dropsItemsWhoseCallTimesOut() {
+        ProcessReqApiHandler handler = handler(Map.of("timeoutMs", 1000));
+
+        long start = System.nanoTime();
+        List<Map<String, Object>> results = handler.handleBatch(List.of(item("SLOW"), item("C1")), attribute(Map.of("timeoutMs", 1000)), null);
+        assertTrue(System.nanoTime() - start < 3_000_000_000L);
+        assertNull(results.get(0));
+        assertEquals("A", results.get(1).get("grade"));
+    }
+
+    @Test
+    void waitsUpToTheProcessTimeoutBeyondTheClientDefault() {
+        ProcessReqApiHandler handler = handler(Map.of("timeoutMs", 3000));
+
+        List<Map<String, Object>> results = handler.handleBatch(List.of(item("LAGGY")), attribute(Map.of("timeoutMs", 3000)), null);
+        assertEquals("Z", results.get(0).get("grade"));
+    }
+
+    @Test
+    void dropsOnlyTheItemWhoseResponseDoesNotConvert() {
+        ProcessReqApiHandler handler = handler(Map.of());
+
+        Map<String, Object> bad = item("BAD");
+        List<Map<String, Object>> results = handler.handleBatch(List.of(bad, item("C2")), attribute(Map.of()), new FlowContext());
+        assertNull(results.get(0));
+        assertEquals(Map.of("cust_id", "BAD"), bad);   // nothing written into the dropped item
+        assertEquals(2, results.get(1).get("score"));
+    }
+
+    private ProcessReqApiHandler handler(Map<String, Object> extra) {
+        return new ProcessReqApiHandler(new ApiQueryAdapter(new RestApiServiceRegistry()), FlowEnum.ProcessType.DERIVED, attribute(extra));
+    }
+
+    private ProcessReqApiAttribute attribute(Map<String, Object> extra) {
+        Map<String, Object> spec = new HashMap<>(Map.of(
+            "baseUrl", baseUrl,
+            "path", "risk",
+            "requestFields", List.of("cust_id"),
+            "fieldSpecs", List.of(Map.of("name", "grade", "type", "STRING"), Map.of("name", "score", "type", "INTEGER"))));
+        spec.putAll(extra);
+        return new ProcessReqApiAttribute(spec);
+    }
+
+    private Map<String, Object> response(Map<String, Object> request) {
+        String custId = String.valueOf(request.get("cust_id"));
+        return Map.of("grade", grades.getOrDefault(custId, "Z"), "score", custId.length() > 1 ? custId.charAt(1) - '0' : 0);
+    }
+
+    private static Map<String, Object> item(String custId) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("cust_id", custId);
+        return item;
+    }
+
+    private static void reply(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = JsonUtil.om.writeValueAsBytes(body);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.kbank.ams.featurestreamengine.domain.flow.record;
+
+import com.kbank.ams.featurestreamengine.domain.flow.FlowEnum;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * One event through a typical flow: three DERIVED lookups writing two fields each, a few reads, then the
+ * feature projection for scoring. HashMap items (copied per DERIVED step, as the handlers used to) vs
+ * {@link FeatureRecord}s written by slot.
+ *
+ * Run {@link #main(String[])} from the test classpath; add {@code -prof gc} for the bytes allocated per event.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeatureRecordBenchmark {
+    private static final List<String> EXCLUDED = List.of("uuid", "dt", "cust_id", "acct_nbr");
+    private static final String[][] DERIVED = {{"cnt_1d", "amt_1d"}, {"cnt_7d", "amt_7d"}, {"age", "grade"}};
+
+    Map<String, Object> event;
+    Map<String, Object> row;
+    FeatureSchema schema;
+    FieldSlots[] slots;
+
+    @Setup
+    public void setUp() {
+        event = new HashMap<>();
+        event.put("uuid", "u-1");
+        event.put("dt", "20240101120000");
+        event.put("cust_id", "C1");
+        event.put("acct_nbr", "A1");
+        event.put("tx_amt", 150000L);
+        event.put("tx_tp", "T");
+        event.put("wd_or_dp", "WD");
+        event.put("counter_acct_nbr", "A2");
+
+        row = Map.of("cnt_1d", 3L, "amt_1d", 200000L, "cnt_7d", 10L, "amt_7d", 900000L, "age", 41L, "grade", "B");
+
+        Map<String, FlowEnum.FieldType> fields = new LinkedHashMap<>();
+        event.keySet().forEach(field -> fields.put(field, null));
+        for (String[] derived : DERIVED) {
+            for (String field : derived) fields.put(field, FlowEnum.FieldType.LONG);
+        }
+        schema = FeatureSchema.of(fields);
+        slots = new FieldSlots[DERIVED.length];
+        for (int i = 0; i < DERIVED.length; i++) {
+            slots[i] = new FieldSlots(List.of(DERIVED[i]));
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> hashMap() {
+        Map<String, Object> item = new HashMap<>(event);
+        for (String[] derived : DERIVED) {
+            Map<String, Object> merged = new HashMap<>(item);
+            for (String field : derived) merged.put(field, row.get(field));
+            item = merged;
+        }
+        if (!"WD".equals(item.get("wd_or_dp")) || item.get("cust_id") == null) return null;
+        Map<String, Object> features = new LinkedHashMap<>();
+        item.forEach((key, value) -> {
+            if (!EXCLUDED.contains(key)) features.put(key, value);
+        });
+        return features;
+    }
+
+    @Benchmark
+    public Map<String, Object> featureRecord() {
+        Map<String, Object> item = schema.wrap(event);
+        for (int d = 0; d < DERIVED.length; d++) {
+            for (int i = 0; i < DERIVED[d].length; i++) slots[d].put(item, i, row.get(DERIVED[d][i]));
+        }
+        if (!"WD".equals(item.get("wd_or_dp")) || item.get("cust_id") == null) return null;
+        return FeatureRecord.without(item, EXCLUDED);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FeatureRecordBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,92 @@
+package com.kbank.ams.featurestreamengine.domain.flow.record;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.kbank.ams.featurestreamengine.domain.flow.FlowEnum;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+class FeatureRecordTest {
+    private final FeatureSchema schema = schema();
+
+    @Test
+    void behavesLikeTheMapItWasBuiltFrom() {
+        Map<String, Object> event = new HashMap<>(Map.of("cust_id", "C1", "tx_amt", 1500L, "extra", "x"));
+        event.put("score", null);
+        FeatureRecord record = schema.wrap(event);
+
+        assertEquals(event, record);
+        assertEquals(record, event);
+        assertEquals(event.hashCode(), record.hashCode());
+        assertTrue(record.containsKey("score"));
+        assertFalse(record.containsKey("ratio"));
+        assertEquals(1500L, record.get("tx_amt"));
+        assertEquals(1500L, record.getLong(schema.slot("tx_amt")));
+
+        record.put("ratio", 0.5);
+        record.put("tx_amt", "not a number");    // keeps whatever type is put
+        assertEquals("not a number", record.get("tx_amt"));
+        assertEquals(0.5, record.getDouble(schema.slot("ratio")));
+        assertEquals(5, record.size());
+
+        record.remove("extra");
+        record.remove("cust_id");
+        assertEquals(Map.of("tx_amt", "not a number", "ratio", 0.5), new HashMap<>(filterNulls(record)));
+        assertEquals(4, event.size());    // the source map is copied, not changed
+    }
+
+    @Test
+    void copiesAndProjectionsAreIndependent() {
+        FeatureRecord record = schema.wrap(Map.of("cust_id", "C1", "tx_amt", 1500L, "extra", "x"));
+        FeatureRecord copy = record.copy();
+        copy.put("tx_amt", 1L);
+        copy.put("extra", "y");
+        assertEquals(1500L, record.get("tx_amt"));
+        assertEquals("x", record.get("extra"));
+
+        Map<String, Object> features = FeatureRecord.without(record, List.of("cust_id"));
+        assertEquals(Map.of("tx_amt", 1500L, "extra", "x"), features);
+        assertEquals(List.of("tx_amt", "extra"), List.copyOf(features.keySet()));
+        assertNull(features.get("cust_id"));
+    }
+
+    @Test
+    void conversionsAreReusedUntilTheSlotIsWritten() {
+        FeatureRecord record = schema.wrap(Map.of("cust_id", "C1"));
+        int slot = schema.slot("cust_id");
+        AtomicInteger calls = new AtomicInteger();
+        Function<Object, Object> conversion = value -> value + "#" + calls.incrementAndGet();
+
+        assertEquals("C1#1", record.converted(slot, conversion));
+        assertEquals("C1#1", record.converted(slot, conversion));
+        record.put("cust_id", "C2");
+        assertEquals("C2#2", record.converted(slot, conversion));
+        assertEquals("C2!", record.converted(slot, value -> value + "!"));
+        assertEquals("C2#3", record.converted(slot, conversion));
+    }
+
+    private static Map<String, Object> filterNulls(Map<String, Object> map) {
+        Map<String, Object> filtered = new LinkedHashMap<>();
+        map.forEach((key, value) -> {
+            if (value != null) filtered.put(key, value);
+        });
+        return filtered;
+    }
+
+    private static FeatureSchema schema() {
+        Map<String, FlowEnum.FieldType> fields = new LinkedHashMap<>();
+        fields.put("cust_id", null);
+        fields.put("tx_amt", FlowEnum.FieldType.LONG);
+        fields.put("score", FlowEnum.FieldType.INTEGER);
+        fields.put("ratio", FlowEnum.FieldType.DOUBLE);
+        return FeatureSchema.of(fields);
+    }
+}